@@ -7,6 +7,22 @@
 package de.hpi.swa.trufflesqueak.shared;
 
 public final class SqueakLanguageOptions {
+    public static final String CACHE_LIMIT_EXECUTE_METHOD = "cache-limit-execute-method";
+    public static final String CACHE_LIMIT_EXECUTE_METHOD_HELP = "Number of methods or primitives cached by primitives that execute them";
+    public static final String CACHE_LIMIT_INDIRECT_PRIMITIVE = "cache-limit-indirect-primitive";
+    public static final String CACHE_LIMIT_INDIRECT_PRIMITIVE_HELP = "Number of primitives cached by indirect sends";
+    public static final String CACHE_LIMIT_INLINE_BLOCK = "cache-limit-inline-block";
+    public static final String CACHE_LIMIT_INLINE_BLOCK_HELP = "Number of blocks cached by value sends";
+    public static final String CACHE_LIMIT_INLINE_METHOD = "cache-limit-inline-method";
+    public static final String CACHE_LIMIT_INLINE_METHOD_HELP = "Number of receiver classes cached by send sites before they go megamorphic";
+    public static final String CACHE_LIMIT_NEW = "cache-limit-new";
+    public static final String CACHE_LIMIT_NEW_HELP = "Number of classes cached by instantiation primitives";
+    public static final String CACHE_LIMIT_PERFORM_SELECTOR = "cache-limit-perform-selector";
+    public static final String CACHE_LIMIT_PERFORM_SELECTOR_HELP = "Number of selectors cached by perform primitives";
+    public static final String CACHE_LIMIT_POINTERS_LAYOUT = "cache-limit-pointers-layout";
+    public static final String CACHE_LIMIT_POINTERS_LAYOUT_HELP = "Number of object layouts cached by instance variable accesses";
+    public static final String CACHE_LIMIT_POINTERS_VARIABLE_PART = "cache-limit-pointers-variable-part";
+    public static final String CACHE_LIMIT_POINTERS_VARIABLE_PART_HELP = "Number of object layouts cached by variable part accesses";
     public static final String CODE_FLAG = "--code";
     public static final String CODE_FLAG_SHORT = "-c";
     public static final String CODE_HELP = "Smalltalk code to be executed without display";
@@ -19,17 +35,31 @@ public final class SqueakLanguageOptions {
     public static final String IMAGE_ARGUMENTS = "image-arguments";
     public static final String IMAGE_ARGUMENTS_FLAG = "--" + IMAGE_ARGUMENTS;
     public static final String IMAGE_ARGUMENTS_HELP = "Comma-separated list of image arguments";
+    public static final String IMAGE_DELTA_CHECKPOINTS = "image-delta-checkpoints";
+    public static final String IMAGE_DELTA_CHECKPOINTS_HELP = "Allow saving delta checkpoints with changed objects only and replay them when loading the image (objects of the last save stay in memory until the next full save)";
+    public static final String IMAGE_LOAD_THREADS = "image-load-threads";
+    public static final String IMAGE_LOAD_THREADS_HELP = "Number of threads used for loading the image (1 = sequential)";
     public static final String IMAGE_PATH = "image-path";
     public static final String IMAGE_PATH_FLAG = "--" + IMAGE_PATH;
     public static final String IMAGE_PATH_HELP = "Path to image";
     public static final String DOWNLOAD_IMAGE = "download-image";
     public static final String DOWNLOAD_IMAGE_FLAG = "--" + DOWNLOAD_IMAGE;
     public static final String DOWNLOAD_IMAGE_HELP = "Download a specific default image or from a provided image URL";
+    public static final String INSTANCE_REGISTRY = "instance-registry";
+    public static final String INSTANCE_REGISTRY_HELP = "Keep track of the instances of pointers classes to answer allInstances and someInstance without tracing the object graph (may include unreachable instances that have not been garbage collected yet)";
     public static final String INTERCEPT_MESSAGES = "intercept-messages";
     public static final String INTERCEPT_MESSAGES_HELP = "Comma-separated list of messages to intercept with an instrument";
     public static final String INTERRUPTS = "disable-interrupts";
     public static final String INTERRUPTS_FLAG = "--" + INTERRUPTS;
     public static final String INTERRUPTS_HELP = "Disable interrupt handler";
+    public static final String METHOD_CACHE_ADAPTIVE = "method-cache-adaptive";
+    public static final String METHOD_CACHE_ADAPTIVE_HELP = "Grow the global method cache when its miss rate is high";
+    public static final String METHOD_CACHE_SIZE = "method-cache-size";
+    public static final String METHOD_CACHE_SIZE_HELP = "Initial number of entries of the global method cache (rounded up to a power of two)";
+    public static final String OBJECT_GRAPH_THREADS = "object-graph-threads";
+    public static final String OBJECT_GRAPH_THREADS_HELP = "Number of threads used for tracing the object graph (0 = number of available processors)";
+    public static final String POLYMORPHISM_REPORT = "polymorphism-report";
+    public static final String POLYMORPHISM_REPORT_HELP = "Print the receiver classes observed by polymorphic and megamorphic send sites on context exit";
     public static final String PRINT_IMAGE_PATH_FLAG = "--print-image-path";
     public static final String PRINT_IMAGE_PATH_HELP = "Print the path to default Squeak/Smalltalk image";
     public static final String QUIET = "quiet";
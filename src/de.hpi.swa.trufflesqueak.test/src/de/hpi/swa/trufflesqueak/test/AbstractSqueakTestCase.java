@@ -94,20 +94,7 @@ public abstract class AbstractSqueakTestCase {
 
     protected static final SqueakImage loadImageContext(final TestImageSpec spec) {
         assert context == null && image == null;
-        final Builder contextBuilder = Context.newBuilder();
-        contextBuilder.allowAllAccess(true);
-        contextBuilder.option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.IMAGE_PATH, spec.imagePath);
-        contextBuilder.option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.HEADLESS, "true");
-        contextBuilder.option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.TESTING, "true");
-        contextBuilder.option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.RESOURCE_SUMMARY, Boolean.toString(spec.showStatistics));
-
-        final String logLevel = System.getProperty("log.level");
-        if (logLevel != null) {
-            contextBuilder.option("log." + SqueakLanguageConfig.ID + ".level", logLevel);
-        }
-        contextBuilder.option(// Log missing primitives
-                        "log." + SqueakLanguageConfig.ID + ".primitives.level", "FINE");
-        context = contextBuilder.build();
+        context = createImageContext(spec.imagePath, spec.showStatistics);
         context.initialize(SqueakLanguageConfig.ID);
         context.enter();
         try {
@@ -121,6 +108,28 @@ public abstract class AbstractSqueakTestCase {
         }
     }
 
+    /* Additional language options are passed as pairs of option names and values. */
+    protected static final Context createImageContext(final String imagePath, final boolean showStatistics, final String... languageOptions) {
+        assert languageOptions.length % 2 == 0;
+        final Builder contextBuilder = Context.newBuilder();
+        contextBuilder.allowAllAccess(true);
+        contextBuilder.option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.IMAGE_PATH, imagePath);
+        contextBuilder.option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.HEADLESS, "true");
+        contextBuilder.option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.TESTING, "true");
+        contextBuilder.option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.RESOURCE_SUMMARY, Boolean.toString(showStatistics));
+        for (int i = 0; i < languageOptions.length; i += 2) {
+            contextBuilder.option(SqueakLanguageConfig.ID + "." + languageOptions[i], languageOptions[i + 1]);
+        }
+
+        final String logLevel = System.getProperty("log.level");
+        if (logLevel != null) {
+            contextBuilder.option("log." + SqueakLanguageConfig.ID + ".level", logLevel);
+        }
+        contextBuilder.option(// Log missing primitives
+                        "log." + SqueakLanguageConfig.ID + ".primitives.level", "FINE");
+        return contextBuilder.build();
+    }
+
     protected static final void destroyImageContext() {
         // Close context if existing (for reloading mechanism).
         context.close(true);
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2017-2026 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2026 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteOrder;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.truffle.api.interop.InteropException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.InvalidArrayIndexException;
+import com.oracle.truffle.api.interop.InvalidBufferOffsetException;
+
+import de.hpi.swa.trufflesqueak.model.ArrayObject;
+import de.hpi.swa.trufflesqueak.model.NativeObject;
+
+/**
+ * Checks the array, buffer and string messages that are answered without a send to the interop
+ * protocol implemented in Smalltalk (see DirectInteropSendNode).
+ */
+@SuppressWarnings("static-method")
+public final class DirectInteropSendTest extends AbstractSqueakTestCaseWithImage {
+    private static final InteropLibrary INTEROP = InteropLibrary.getUncached();
+    private static final ByteOrder[] BYTE_ORDERS = {ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN};
+
+    @Before
+    public void enterContext() {
+        context.enter();
+    }
+
+    @After
+    public void leaveContext() {
+        context.leave();
+    }
+
+    @Test
+    public void testEmptyArray() throws InteropException {
+        final ArrayObject array = (ArrayObject) evaluate("Array new: 3");
+        assertTrue(array.isEmptyType());
+        assertArrayMessages(array, 3);
+        assertTrue(INTEROP.isNull(INTEROP.readArrayElement(array, 2)));
+        INTEROP.writeArrayElement(array, 2, 42L);
+        assertEquals(42L, INTEROP.readArrayElement(array, 2));
+    }
+
+    @Test
+    public void testBooleanArray() throws InteropException {
+        final ArrayObject array = (ArrayObject) evaluate("(Array new: 3) at: 1 put: true; at: 2 put: false; at: 3 put: true; yourself");
+        assertTrue(array.isBooleanType());
+        assertArrayMessages(array, 3);
+        assertEquals(true, INTEROP.readArrayElement(array, 0));
+        assertEquals(false, INTEROP.readArrayElement(array, 1));
+        INTEROP.writeArrayElement(array, 1, true);
+        assertEquals(true, INTEROP.readArrayElement(array, 1));
+    }
+
+    @Test
+    public void testCharArray() throws InteropException {
+        final ArrayObject array = (ArrayObject) evaluate("(Array new: 2) at: 1 put: $a; at: 2 put: $b; yourself");
+        assertTrue(array.isCharType());
+        assertArrayMessages(array, 2);
+        assertEquals('a', INTEROP.readArrayElement(array, 0));
+        INTEROP.writeArrayElement(array, 1, 'c');
+        assertEquals('c', INTEROP.readArrayElement(array, 1));
+    }
+
+    @Test
+    public void testLongArray() throws InteropException {
+        final ArrayObject array = (ArrayObject) evaluate("(Array new: 3) at: 1 put: 1; at: 2 put: 2; at: 3 put: 3; yourself");
+        assertTrue(array.isLongType());
+        assertArrayMessages(array, 3);
+        assertEquals(3L, INTEROP.readArrayElement(array, 2));
+        INTEROP.writeArrayElement(array, 0, 42L);
+        assertEquals(42L, INTEROP.readArrayElement(array, 0));
+        /* Writing an element of another type generalizes the storage. */
+        INTEROP.writeArrayElement(array, 1, 0.5);
+        assertEquals(0.5, INTEROP.readArrayElement(array, 1));
+        assertEquals(3L, INTEROP.readArrayElement(array, 2));
+    }
+
+    @Test
+    public void testDoubleArray() throws InteropException {
+        final ArrayObject array = (ArrayObject) evaluate("(Array new: 2) at: 1 put: 1.5; at: 2 put: 2.5; yourself");
+        assertTrue(array.isDoubleType());
+        assertArrayMessages(array, 2);
+        assertEquals(1.5, INTEROP.readArrayElement(array, 0));
+        INTEROP.writeArrayElement(array, 1, 3.5);
+        assertEquals(3.5, INTEROP.readArrayElement(array, 1));
+    }
+
+    @Test
+    public void testObjectArray() throws InteropException {
+        final ArrayObject array = (ArrayObject) evaluate("Array with: 'abc' with: #abc with: nil");
+        assertTrue(array.isObjectType());
+        assertArrayMessages(array, 3);
+        assertEquals("abc", INTEROP.asString(INTEROP.readArrayElement(array, 0)));
+        assertTrue(INTEROP.isNull(INTEROP.readArrayElement(array, 2)));
+        INTEROP.writeArrayElement(array, 2, 7L);
+        assertEquals(7L, INTEROP.readArrayElement(array, 2));
+    }
+
+    @Test
+    public void testByteBuffer() throws InteropException {
+        final NativeObject buffer = (NativeObject) evaluate("ByteArray new: 16");
+        assertTrue(buffer.isByteType());
+        assertBufferMessages(buffer);
+        INTEROP.writeBufferByte(buffer, 3, (byte) -2);
+        assertEquals(-2, buffer.getByteStorage()[3]);
+    }
+
+    @Test
+    public void testShortBuffer() throws InteropException {
+        final NativeObject buffer = (NativeObject) evaluate("DoubleByteArray new: 8");
+        assertTrue(buffer.isShortType());
+        assertBufferMessages(buffer);
+        INTEROP.writeBufferShort(buffer, ByteOrder.nativeOrder(), 2, (short) 0x1234);
+        assertEquals(0x1234, buffer.getShortStorage()[1]);
+    }
+
+    @Test
+    public void testIntBuffer() throws InteropException {
+        final NativeObject buffer = (NativeObject) evaluate("WordArray new: 4");
+        assertTrue(buffer.isIntType());
+        assertBufferMessages(buffer);
+        INTEROP.writeBufferInt(buffer, ByteOrder.nativeOrder(), 4, 0x12345678);
+        assertEquals(0x12345678, buffer.getIntStorage()[1]);
+    }
+
+    @Test
+    public void testLongBuffer() throws InteropException {
+        final NativeObject buffer = (NativeObject) evaluate("DoubleWordArray new: 2");
+        assertTrue(buffer.isLongType());
+        assertBufferMessages(buffer);
+        INTEROP.writeBufferLong(buffer, ByteOrder.nativeOrder(), 8, 0x123456789ABCDEF0L);
+        assertEquals(0x123456789ABCDEF0L, buffer.getLongStorage()[1]);
+    }
+
+    @Test
+    public void testStrings() throws InteropException {
+        assertString("hello", evaluate("'hello' copy"));
+        assertString("hello", evaluate("#hello"));
+        final Object wideString = evaluate("WideString with: $a with: (Character value: 16r3B1)");
+        assertTrue(((NativeObject) wideString).isIntType());
+        assertString("a\u03B1", wideString);
+        assertFalse(INTEROP.isString(evaluate("ByteArray new: 4")));
+    }
+
+    private static void assertArrayMessages(final ArrayObject array, final long size) throws InteropException {
+        assertTrue(INTEROP.hasArrayElements(array));
+        assertEquals(size, INTEROP.getArraySize(array));
+        assertTrue(INTEROP.isArrayElementReadable(array, 0));
+        assertTrue(INTEROP.isArrayElementModifiable(array, size - 1));
+        assertFalse(INTEROP.isArrayElementReadable(array, size));
+        assertFalse(INTEROP.isArrayElementReadable(array, -1));
+        assertFalse(INTEROP.isArrayElementInsertable(array, size));
+        assertFalse(INTEROP.isArrayElementRemovable(array, 0));
+        for (final long index : new long[]{-1, size, Long.MAX_VALUE}) {
+            try {
+                INTEROP.readArrayElement(array, index);
+                fail("Expected InvalidArrayIndexException for read at " + index);
+            } catch (final InvalidArrayIndexException e) {
+                assertEquals(index, e.getInvalidIndex());
+            }
+            try {
+                INTEROP.writeArrayElement(array, index, 1L);
+                fail("Expected InvalidArrayIndexException for write at " + index);
+            } catch (final InvalidArrayIndexException e) {
+                assertEquals(index, e.getInvalidIndex());
+            }
+        }
+    }
+
+    /* Expects a zeroed buffer of 16 bytes. */
+    private static void assertBufferMessages(final NativeObject buffer) throws InteropException {
+        assertTrue(INTEROP.hasBufferElements(buffer));
+        assertTrue(INTEROP.isBufferWritable(buffer));
+        assertEquals(16L, INTEROP.getBufferSize(buffer));
+        for (final ByteOrder order : BYTE_ORDERS) {
+            final boolean isBigEndian = order == ByteOrder.BIG_ENDIAN;
+
+            INTEROP.writeBufferShort(buffer, order, 1, (short) 0x0102);
+            assertEquals((short) 0x0102, INTEROP.readBufferShort(buffer, order, 1));
+            assertEquals(isBigEndian ? 0x01 : 0x02, INTEROP.readBufferByte(buffer, 1));
+
+            INTEROP.writeBufferInt(buffer, order, 4, 0x01020304);
+            assertEquals(0x01020304, INTEROP.readBufferInt(buffer, order, 4));
+            assertEquals(isBigEndian ? 0x01 : 0x04, INTEROP.readBufferByte(buffer, 4));
+
+            INTEROP.writeBufferLong(buffer, order, 8, 0x0102030405060708L);
+            assertEquals(0x0102030405060708L, INTEROP.readBufferLong(buffer, order, 8));
+            assertEquals(isBigEndian ? 0x01 : 0x08, INTEROP.readBufferByte(buffer, 8));
+            final ByteOrder otherOrder = isBigEndian ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+            assertEquals(0x0807060504030201L, INTEROP.readBufferLong(buffer, otherOrder, 8));
+
+            INTEROP.writeBufferFloat(buffer, order, 0, 1.5f);
+            assertEquals(1.5f, INTEROP.readBufferFloat(buffer, order, 0), 0);
+            INTEROP.writeBufferDouble(buffer, order, 8, -2.5);
+            assertEquals(-2.5, INTEROP.readBufferDouble(buffer, order, 8), 0);
+        }
+        for (final long offset : new long[]{-1, 13, 16, Long.MAX_VALUE}) {
+            try {
+                INTEROP.readBufferInt(buffer, ByteOrder.LITTLE_ENDIAN, offset);
+                fail("Expected InvalidBufferOffsetException for read at " + offset);
+            } catch (final InvalidBufferOffsetException e) {
+                assertEquals(offset, e.getByteOffset());
+            }
+            try {
+                INTEROP.writeBufferInt(buffer, ByteOrder.LITTLE_ENDIAN, offset, 0);
+                fail("Expected InvalidBufferOffsetException for write at " + offset);
+            } catch (final InvalidBufferOffsetException e) {
+                assertEquals(offset, e.getByteOffset());
+            }
+        }
+        /* Leave the buffer zeroed for the element checks of the callers. */
+        INTEROP.writeBufferLong(buffer, ByteOrder.LITTLE_ENDIAN, 0, 0L);
+        INTEROP.writeBufferLong(buffer, ByteOrder.LITTLE_ENDIAN, 8, 0L);
+    }
+
+    private static void assertString(final String expected, final Object object) throws InteropException {
+        assertTrue(INTEROP.isString(object));
+        assertEquals(expected, INTEROP.asString(object));
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2017-2026 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2026 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.test;
+
+import static org.junit.Assert.assertTrue;
+
+import org.graalvm.polyglot.Context;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import de.hpi.swa.trufflesqueak.shared.SqueakLanguageConfig;
+import de.hpi.swa.trufflesqueak.shared.SqueakLanguageOptions;
+
+/**
+ * Checks that allInstances and someInstance answer the same instances from the instance registry as
+ * from tracing the object graph. All instances are held strongly, so the registry cannot contain
+ * unreachable instances.
+ */
+@SuppressWarnings("static-method")
+public final class InstanceRegistryTest extends AbstractSqueakTestCase {
+    private static final String TEST_CLASS = "(Smalltalk at: #InstanceRegistryTestClass)";
+    private static final String TEST_INSTANCES = "(Smalltalk at: #InstanceRegistryTestInstances)";
+    private static final String TRACED_INSTANCES = "(SystemNavigation default allObjects select: [:o | o class == " + TEST_CLASS + "])";
+
+    private static Context registryContext;
+
+    @BeforeClass
+    public static void setUpRegistryContext() {
+        registryContext = createImageContext(AbstractSqueakTestCaseWithImage.getPathToTestImage(), false, SqueakLanguageOptions.INSTANCE_REGISTRY, "true");
+        /* An anonymous class keeps the system dictionary and the changes file untouched. */
+        eval("Smalltalk at: #InstanceRegistryTestClass put: (Behavior new superclass: Association; setFormat: Association format; methodDictionary: MethodDictionary new; yourself)");
+        eval("Smalltalk at: #InstanceRegistryTestInstances put: ((1 to: 100) collect: [:i | " + TEST_CLASS + " basicNew])");
+    }
+
+    @AfterClass
+    public static void closeRegistryContext() {
+        registryContext.close();
+        registryContext = null;
+    }
+
+    @Test
+    public void testAllInstancesMatchesTracing() {
+        assertTrue(evalBoolean(TEST_CLASS + " allInstances size = 100"));
+        assertTrue(evalBoolean(TEST_CLASS + " allInstances asIdentitySet = " + TRACED_INSTANCES + " asIdentitySet"));
+        assertTrue(evalBoolean(TEST_CLASS + " allInstances asIdentitySet = " + TEST_INSTANCES + " asIdentitySet"));
+    }
+
+    @Test
+    public void testSomeInstanceIsTraced() {
+        assertTrue(evalBoolean(TRACED_INSTANCES + " identityIncludes: " + TEST_CLASS + " someInstance"));
+    }
+
+    private static void eval(final String expression) {
+        registryContext.eval(SqueakLanguageConfig.ID, expression);
+    }
+
+    private static boolean evalBoolean(final String expression) {
+        return registryContext.eval(SqueakLanguageConfig.ID, expression).asBoolean();
+    }
+}
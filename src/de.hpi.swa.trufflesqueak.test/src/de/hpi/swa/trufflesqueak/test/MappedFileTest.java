@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2017-2026 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2026 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.hpi.swa.trufflesqueak.model.NativeObject;
+import de.hpi.swa.trufflesqueak.model.NilObject;
+
+/**
+ * Maps a temporary file through the FilePlugin, copies byte and int storage from and to the mapped
+ * region, and checks the file contents after the region is flushed and unmapped.
+ */
+@SuppressWarnings("static-method")
+public final class MappedFileTest extends AbstractSqueakTestCaseWithImage {
+    private static final int FILE_SIZE = 64;
+    private static final int REGION_POSITION = 8;
+    private static final int REGION_SIZE = 32;
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        patchPrimitive("mappedFileTestMap: fileID position: position size: size writable: writableFlag", "primitiveFileMap");
+        patchPrimitive("mappedFileTestRead: region position: position into: target startingAt: startIndex count: count", "primitiveMappedFileRead");
+        patchPrimitive("mappedFileTestWrite: region position: position from: source startingAt: startIndex count: count", "primitiveMappedFileWrite");
+        patchPrimitive("mappedFileTestSize: region", "primitiveMappedFileSize");
+        patchPrimitive("mappedFileTestFlush: region", "primitiveMappedFileFlush");
+        patchPrimitive("mappedFileTestUnmap: region", "primitiveMappedFileUnmap");
+        file = Files.createTempFile("trufflesqueak-mapped-file", ".bin");
+        final byte[] contents = new byte[FILE_SIZE];
+        for (int i = 0; i < FILE_SIZE; i++) {
+            contents[i] = (byte) i;
+        }
+        Files.write(file, contents);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        evaluate("Smalltalk at: #MappedFileTestFileID ifPresent: [:fileID | StandardFileStream new primClose: fileID]. " +
+                        "Smalltalk removeKey: #MappedFileTestFileID ifAbsent: []. Smalltalk removeKey: #MappedFileTestRegion ifAbsent: []");
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testReadWriteFlushUnmap() throws IOException {
+        map(true);
+        assertEquals((long) REGION_SIZE, evaluate("Object new mappedFileTestSize: " + region()));
+
+        /* Positions are byte offsets into the region, indices are 1-based as in Smalltalk. */
+        final NativeObject bytes = (NativeObject) evaluate("| bytes | bytes := ByteArray new: 6. " +
+                        "(Object new mappedFileTestRead: " + region() + " position: 1 into: bytes startingAt: 2 count: 4) = 4 ifTrue: [bytes]");
+        assertArrayEquals(new byte[]{0, 9, 10, 11, 12, 0}, bytes.getByteStorage());
+        final NativeObject words = (NativeObject) evaluate("| words | words := WordArray new: 2. " +
+                        "(Object new mappedFileTestRead: " + region() + " position: 3 into: words startingAt: 1 count: 2) = 2 ifTrue: [words]");
+        final ByteBuffer expectedWords = ByteBuffer.wrap(new byte[]{11, 12, 13, 14, 15, 16, 17, 18}).order(ByteOrder.nativeOrder());
+        assertArrayEquals(new int[]{expectedWords.getInt(0), expectedWords.getInt(4)}, words.getIntStorage());
+
+        assertEquals(2L, evaluate("Object new mappedFileTestWrite: " + region() + " position: 0 from: #[255 254 253] startingAt: 2 count: 2"));
+        assertEquals(1L, evaluate("Object new mappedFileTestWrite: " + region() + " position: 5 from: (WordArray with: 16r01020304) startingAt: 1 count: 1"));
+        /* Copies beyond the end of the region fail. */
+        assertEquals(NilObject.SINGLETON, evaluate("Object new mappedFileTestWrite: " + region() + " position: " + (REGION_SIZE - 2) + " from: (WordArray new: 1) startingAt: 1 count: 1"));
+        assertEquals(NilObject.SINGLETON, evaluate("Object new mappedFileTestRead: " + region() + " position: 0 into: (ByteArray new: 4) startingAt: 2 count: 4"));
+
+        assertNotEquals(NilObject.SINGLETON, evaluate("Object new mappedFileTestFlush: " + region()));
+        assertNotEquals(NilObject.SINGLETON, evaluate("Object new mappedFileTestUnmap: " + region()));
+        /* Unmapped regions can no longer be accessed, but unmapping again is harmless. */
+        assertEquals(NilObject.SINGLETON, evaluate("Object new mappedFileTestSize: " + region()));
+        assertNotEquals(NilObject.SINGLETON, evaluate("Object new mappedFileTestUnmap: " + region()));
+
+        final byte[] expected = new byte[FILE_SIZE];
+        for (int i = 0; i < FILE_SIZE; i++) {
+            expected[i] = (byte) i;
+        }
+        expected[REGION_POSITION] = (byte) 254;
+        expected[REGION_POSITION + 1] = (byte) 253;
+        ByteBuffer.wrap(expected).order(ByteOrder.nativeOrder()).putInt(REGION_POSITION + 5, 0x01020304);
+        assertArrayEquals(expected, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void testReadOnlyRegion() throws IOException {
+        map(false);
+        final NativeObject bytes = (NativeObject) evaluate("| bytes | bytes := ByteArray new: 2. " +
+                        "(Object new mappedFileTestRead: " + region() + " position: 0 into: bytes startingAt: 1 count: 2) = 2 ifTrue: [bytes]");
+        assertArrayEquals(new byte[]{REGION_POSITION, REGION_POSITION + 1}, bytes.getByteStorage());
+        assertEquals(NilObject.SINGLETON, evaluate("Object new mappedFileTestWrite: " + region() + " position: 0 from: #[1 2] startingAt: 1 count: 2"));
+        assertNotEquals(NilObject.SINGLETON, evaluate("Object new mappedFileTestFlush: " + region()));
+        assertNotEquals(NilObject.SINGLETON, evaluate("Object new mappedFileTestUnmap: " + region()));
+        assertEquals(REGION_POSITION, Files.readAllBytes(file)[REGION_POSITION]);
+    }
+
+    /* Mapping fails unless the file system of the context opens files as FileChannels. */
+    private void map(final boolean writable) {
+        assertNotEquals(NilObject.SINGLETON, evaluate("Smalltalk at: #MappedFileTestFileID put: (StandardFileStream new primOpen: '" + file + "' writable: " + writable + ")"));
+        assertNotEquals(NilObject.SINGLETON, evaluate("Smalltalk at: #MappedFileTestRegion put: (Object new mappedFileTestMap: (Smalltalk at: #MappedFileTestFileID) position: " +
+                        REGION_POSITION + " size: " + REGION_SIZE + " writable: " + writable + ")"));
+    }
+
+    private static String region() {
+        return "(Smalltalk at: #MappedFileTestRegion)";
+    }
+
+    /* Installs a method on Object that calls the FilePlugin primitive and answers nil if it fails. */
+    private static void patchPrimitive(final String pattern, final String primitiveName) {
+        final String selector = pattern.replaceAll(" \\w+( |$)", "");
+        patchMethod("Object", selector, pattern + " <primitive: ''" + primitiveName + "'' module: ''FilePlugin''> ^ nil");
+    }
+}
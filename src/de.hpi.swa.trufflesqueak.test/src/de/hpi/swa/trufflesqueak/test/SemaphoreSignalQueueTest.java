@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2017-2026 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2026 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import de.hpi.swa.trufflesqueak.nodes.interrupts.SemaphoreSignalQueue;
+
+@SuppressWarnings("static-method")
+public final class SemaphoreSignalQueueTest {
+    private static final int CAPACITY = SemaphoreSignalQueue.CAPACITY;
+
+    @Test
+    public void testCoalescing() {
+        final SemaphoreSignalQueue queue = new SemaphoreSignalQueue();
+        assertTrue(queue.offer(5));
+        assertTrue(queue.offer(5));
+        assertTrue(queue.offer(7));
+        assertEquals(5, queue.poll());
+        assertEquals(7, queue.poll());
+        assertEquals(0, queue.poll());
+        assertTrue(queue.isEmpty());
+        /* Once polled, the index can be signaled again. */
+        assertTrue(queue.offer(5));
+        assertEquals(5, queue.poll());
+        assertEquals(0, queue.getOverflows());
+    }
+
+    @Test
+    public void testInvalidIndices() {
+        final SemaphoreSignalQueue queue = new SemaphoreSignalQueue();
+        assertFalse(queue.offer(0));
+        assertFalse(queue.offer(-1));
+        assertFalse(queue.offer(Integer.MIN_VALUE));
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.poll());
+        assertEquals(0, queue.getOverflows());
+    }
+
+    @Test
+    public void testIndicesAboveCapacity() {
+        final SemaphoreSignalQueue queue = new SemaphoreSignalQueue();
+        assertTrue(queue.offer(CAPACITY));
+        assertTrue(queue.offer(CAPACITY));
+        /* Signals of indices above the capacity are not coalesced. */
+        assertTrue(queue.offer(CAPACITY + 1));
+        assertTrue(queue.offer(CAPACITY + 1));
+        assertTrue(queue.offer(Integer.MAX_VALUE));
+        assertEquals(CAPACITY, queue.poll());
+        assertEquals(CAPACITY + 1, queue.poll());
+        assertEquals(CAPACITY + 1, queue.poll());
+        assertEquals(Integer.MAX_VALUE, queue.poll());
+        assertEquals(0, queue.poll());
+    }
+
+    @Test
+    public void testCoalescedIndicesDoNotOverflow() {
+        final SemaphoreSignalQueue queue = new SemaphoreSignalQueue();
+        for (int round = 0; round < 2; round++) {
+            for (int index = 1; index <= CAPACITY; index++) {
+                assertTrue(queue.offer(index));
+            }
+        }
+        assertEquals(0, queue.getOverflows());
+        for (int index = 1; index <= CAPACITY; index++) {
+            assertEquals(index, queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testOverflow() {
+        final SemaphoreSignalQueue queue = new SemaphoreSignalQueue();
+        for (int i = 0; i < CAPACITY; i++) {
+            assertTrue(queue.offer(CAPACITY + 1));
+        }
+        assertFalse(queue.offer(CAPACITY + 1));
+        assertFalse(queue.offer(7));
+        assertEquals(2, queue.getOverflows());
+        assertEquals(CAPACITY + 1, queue.poll());
+        /* The dropped signal must not leave index 7 marked as pending. */
+        assertTrue(queue.offer(7));
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.offer(7));
+        assertEquals(7, queue.poll());
+        assertEquals(2, queue.getOverflows());
+    }
+
+    @Test
+    public void testMultipleProducers() throws InterruptedException {
+        final SemaphoreSignalQueue queue = new SemaphoreSignalQueue();
+        final int numProducers = 8;
+        final int signalsPerProducer = 100_000;
+        final AtomicLong[] accepted = new AtomicLong[numProducers];
+        final AtomicLong rejected = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(numProducers);
+        for (int p = 0; p < numProducers; p++) {
+            final int producer = p;
+            accepted[producer] = new AtomicLong();
+            final Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < signalsPerProducer; i++) {
+                        /* Alternate between an index that is counted and one that is coalesced. */
+                        final int index = i % 2 == 0 ? CAPACITY + 1 + producer : 1 + producer;
+                        if (queue.offer(index)) {
+                            if (index > CAPACITY) {
+                                accepted[producer].incrementAndGet();
+                            }
+                        } else {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        final long[] polled = new long[numProducers];
+        start.countDown();
+        while (done.getCount() > 0 || !queue.isEmpty()) {
+            final int index = queue.poll();
+            if (index > CAPACITY) {
+                polled[index - CAPACITY - 1]++;
+            }
+        }
+        assertTrue(done.await(0, TimeUnit.SECONDS));
+
+        for (int p = 0; p < numProducers; p++) {
+            assertEquals(accepted[p].get(), polled[p]);
+        }
+        assertEquals(rejected.get(), queue.getOverflows());
+        /* No coalesced index may be left marked as pending. */
+        for (int p = 0; p < numProducers; p++) {
+            assertTrue(queue.offer(1 + p));
+            assertEquals(1 + p, queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2017-2026 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2026 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.graalvm.polyglot.Context;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import de.hpi.swa.trufflesqueak.shared.SqueakLanguageConfig;
+import de.hpi.swa.trufflesqueak.shared.SqueakLanguageOptions;
+
+/** Saves copies of the test image and checks that they load again with the same contents. */
+@SuppressWarnings("static-method")
+public final class SqueakImageWriterTest extends AbstractSqueakTestCase {
+    private static Path directory;
+
+    @BeforeClass
+    public static void setUpDirectory() throws IOException {
+        directory = Files.createTempDirectory("trufflesqueak-image-writer");
+    }
+
+    @AfterClass
+    public static void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void testSaveRoundTrip() throws IOException {
+        final String imagePath = copyTestImage("save");
+        try (Context saving = createImageContext(imagePath, false)) {
+            /* Enough objects to span several segments of the parallel writer. */
+            eval(saving, "Smalltalk at: #ImageWriterTestStrings put: ((1 to: 200000) collect: [:i | i printString])");
+            /* Large integers and boxed floats are appended after all traced objects. */
+            eval(saving, "Smalltalk at: #ImageWriterTestNumbers put: (Array with: SmallInteger maxVal + 1 with: 1.0e300 with: 0.5)");
+            eval(saving, "Smalltalk snapshotPrimitive");
+        }
+        try (Context loaded = createImageContext(imagePath, false)) {
+            assertTrue(evalBoolean(loaded, "(Smalltalk at: #ImageWriterTestStrings) size = 200000"));
+            assertTrue(evalBoolean(loaded, "(1 to: 200000) allSatisfy: [:i | ((Smalltalk at: #ImageWriterTestStrings) at: i) = i printString]"));
+            assertTrue(evalBoolean(loaded, "(Smalltalk at: #ImageWriterTestNumbers) = (Array with: SmallInteger maxVal + 1 with: 1.0e300 with: 0.5)"));
+        }
+    }
+
+    @Test
+    public void testDeltaRoundTrip() throws IOException {
+        final String imagePath = copyTestImage("delta");
+        try (Context saving = createImageContext(imagePath, false, SqueakLanguageOptions.IMAGE_DELTA_CHECKPOINTS, "true")) {
+            eval(saving, "SmalltalkImage addSelectorSilently: #imageWriterTestSnapshotDelta withMethod: (SmalltalkImage compile: " +
+                            "'imageWriterTestSnapshotDelta <primitive: ''primitiveSnapshotDelta'' module: ''TruffleSqueakPlugin''> ^ self primitiveFailed' " +
+                            "notifying: nil trailer: (CompiledMethodTrailer empty) ifFail: [nil]) method");
+            eval(saving, "Smalltalk at: #ImageWriterTestHolder put: (Array with: 'before' copy with: 0)");
+            eval(saving, "Smalltalk snapshotPrimitive");
+            /* The holder itself is not written to, only rewritten by the become. */
+            eval(saving, "((Smalltalk at: #ImageWriterTestHolder) at: 1) becomeForward: 'after' copy");
+            eval(saving, "Smalltalk at: #ImageWriterTestAdded put: (Array with: 42 with: 'added')");
+            eval(saving, "Smalltalk imageWriterTestSnapshotDelta");
+        }
+        try (Context loaded = createImageContext(imagePath, false, SqueakLanguageOptions.IMAGE_DELTA_CHECKPOINTS, "true")) {
+            assertTrue(evalBoolean(loaded, "((Smalltalk at: #ImageWriterTestHolder) at: 1) = 'after'"));
+            assertTrue(evalBoolean(loaded, "(Smalltalk at: #ImageWriterTestAdded) = (Array with: 42 with: 'added')"));
+        }
+    }
+
+    /* Copies the test image, so that saving does not modify it. */
+    private static String copyTestImage(final String name) throws IOException {
+        final Path copy = directory.resolve(name + ".image");
+        Files.copy(Paths.get(AbstractSqueakTestCaseWithImage.getPathToTestImage()), copy, StandardCopyOption.REPLACE_EXISTING);
+        return copy.toString();
+    }
+
+    private static void eval(final Context imageContext, final String expression) {
+        imageContext.eval(SqueakLanguageConfig.ID, expression);
+    }
+
+    private static boolean evalBoolean(final Context imageContext, final String expression) {
+        return imageContext.eval(SqueakLanguageConfig.ID, expression).asBoolean();
+    }
+}
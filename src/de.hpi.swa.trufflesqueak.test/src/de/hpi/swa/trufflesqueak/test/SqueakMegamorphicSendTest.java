@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2017-2026 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2026 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Sends one selector to receivers of more classes than the inline method cache holds, so that the
+ * send site uses the selector dispatch table, and checks that the table is flushed when methods are
+ * added or removed. Also includes a benchmark that logs its runtime in the format of the AWFY
+ * harness.
+ */
+@SuppressWarnings("static-method")
+public final class SqueakMegamorphicSendTest extends AbstractSqueakTestCaseWithImage {
+    private static final String SELECTOR = "megamorphicTestValue";
+    /* Classes of the receivers below, each answering its index (Object answers 0). */
+    private static final String[] CLASSES = {"SmallInteger", "Float", "Character", "String", "Symbol", "UndefinedObject", "True", "False", "Fraction", "Point", "Interval", "Array",
+                    "OrderedCollection", "Set", "Association"};
+    private static final String RECEIVERS = "{1. 1.5. $a. 'a' copy. #a. nil. true. false. 1/2. 3@4. 1 to: 2. Array new: 1. OrderedCollection new. Set new. 1->2. Object new}";
+    private static final long SUM_PER_ITERATION = CLASSES.length * (CLASSES.length + 1) / 2;
+    private static final int POINT_INDEX = 10;
+
+    @Before
+    public void installMethods() {
+        patchMethod("Object", SELECTOR, SELECTOR + " ^ 0");
+        for (int i = 0; i < CLASSES.length; i++) {
+            patchMethod(CLASSES[i], SELECTOR, SELECTOR + " ^ " + (i + 1));
+        }
+    }
+
+    @Test
+    public void testMegamorphicSend() {
+        assertEquals(SUM_PER_ITERATION * 100, sendToAllReceivers(100));
+    }
+
+    @Test
+    public void testMegamorphicSendAfterMethodChange() {
+        assertEquals(SUM_PER_ITERATION * 100, sendToAllReceivers(100));
+        patchMethod("Point", SELECTOR, SELECTOR + " ^ 100");
+        assertEquals((SUM_PER_ITERATION - POINT_INDEX + 100) * 100, sendToAllReceivers(100));
+        evaluate("Point removeSelectorSilently: #" + SELECTOR);
+        assertEquals((SUM_PER_ITERATION - POINT_INDEX) * 100, sendToAllReceivers(100));
+    }
+
+    @Test
+    public void testMegamorphicSendBenchmark() {
+        final int innerIterations = 20000;
+        for (int i = 0; i < 10; i++) {
+            sendToAllReceivers(innerIterations);
+        }
+        final int iterations = 10;
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            assertEquals(SUM_PER_ITERATION * innerIterations, sendToAllReceivers(innerIterations));
+        }
+        final long runtimeMicros = (System.nanoTime() - start) / 1000 / iterations;
+        println("MegamorphicSend: iterations=" + iterations + " runtime: " + runtimeMicros + "us");
+    }
+
+    private static long sendToAllReceivers(final int iterations) {
+        return (long) evaluate("| receivers sum | receivers := " + RECEIVERS + ". sum := 0. 1 to: " + iterations + " do: [:i | receivers do: [:each | sum := sum + each " + SELECTOR +
+                        "]]. sum");
+    }
+}
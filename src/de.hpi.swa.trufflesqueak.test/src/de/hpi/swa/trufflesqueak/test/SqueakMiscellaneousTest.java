@@ -6,14 +6,26 @@
  */
 package de.hpi.swa.trufflesqueak.test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Test;
 
 import de.hpi.swa.trufflesqueak.image.SqueakImageChunk;
 import de.hpi.swa.trufflesqueak.image.SqueakImageConstants.ObjectHeader;
 import de.hpi.swa.trufflesqueak.image.SqueakImageReader;
+import de.hpi.swa.trufflesqueak.image.SqueakImageReader.AddressToChunkMap;
 import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
 import de.hpi.swa.trufflesqueak.model.FloatObject;
 import de.hpi.swa.trufflesqueak.model.NilObject;
@@ -21,6 +33,8 @@ import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.CONTEXT;
 import de.hpi.swa.trufflesqueak.nodes.interpreter.AbstractDecoder.ShadowBlockParams;
 import de.hpi.swa.trufflesqueak.nodes.interpreter.DecoderSistaV1;
 import de.hpi.swa.trufflesqueak.nodes.interpreter.DecoderV3PlusClosures;
+import de.hpi.swa.trufflesqueak.nodes.plugins.AsyncFile;
+import de.hpi.swa.trufflesqueak.util.ArrayUtils;
 import de.hpi.swa.trufflesqueak.util.UnsafeUtils;
 
 @SuppressWarnings("static-method")
@@ -189,6 +203,33 @@ public final class SqueakMiscellaneousTest extends AbstractSqueakTestCaseWithDum
         return chunk;
     }
 
+    @Test
+    public void testAddressToChunkMap() {
+        final SqueakImageReader reader = new SqueakImageReader(image);
+        final AddressToChunkMap map = new AddressToChunkMap();
+        /* Spur-like addresses: word-aligned, mostly dense, split into two segments. */
+        final long[] addresses = new long[10_000];
+        long address = 0x10000000L;
+        for (int i = 0; i < addresses.length; i++) {
+            if (i == addresses.length / 2) {
+                address += 0x1000000L; /* bridge to next segment */
+            }
+            addresses[i] = address;
+            address += (1 + i % 7) * 8L;
+        }
+        final SqueakImageChunk[] chunks = new SqueakImageChunk[addresses.length];
+        for (int i = 0; i < addresses.length; i++) {
+            chunks[i] = new SqueakImageChunk(reader, ObjectHeader.getHeader(0, i, 9, 34), i, ArrayUtils.EMPTY_BYTE_ARRAY);
+            map.put(addresses[i], chunks[i]); /* grows without presizing */
+        }
+        assertEquals(addresses.length, map.size());
+        for (int i = 0; i < addresses.length; i++) {
+            assertSame(chunks[i], map.get(addresses[i]));
+        }
+        assertNull(map.get(address));
+        assertNull(map.get(addresses[0] - 8));
+    }
+
     @Test
     public void testSistaV1ExtendedBlockSizeDecoder() {
         /*
@@ -213,4 +254,119 @@ public final class SqueakMiscellaneousTest extends AbstractSqueakTestCaseWithDum
         assertEquals(0, params.numArgs());
         assertEquals(0, params.numCopied());
     }
+
+    @Test
+    public void testAsyncFileWithSlowChannel() throws InterruptedException {
+        image.interrupt.clear();
+        final int semaphoreIndex = 42;
+        final SlowChannel channel = new SlowChannel("hello world".getBytes(StandardCharsets.US_ASCII));
+        final AsyncFile asyncFile = new AsyncFile(channel, image.interrupt, semaphoreIndex);
+        final byte[] buffer = new byte[8];
+
+        /* The read blocks on the I/O thread until the gate opens, the VM thread does not. */
+        assertTrue(asyncFile.startRead(6, 5));
+        assertEquals(AsyncFile.BUSY, asyncFile.readResult(buffer, 0, buffer.length));
+        assertFalse(asyncFile.startRead(0, 1));
+        assertEquals(0, image.interrupt.nextSemaphoreToSignal());
+        channel.gate.countDown();
+        assertEquals(semaphoreIndex, awaitSemaphoreSignal());
+        assertEquals(5, asyncFile.readResult(buffer, 1, buffer.length - 1));
+        assertEquals("world", new String(buffer, 1, 5, StandardCharsets.US_ASCII));
+        assertEquals(AsyncFile.ERROR, asyncFile.writeResult());
+
+        assertTrue(asyncFile.startWrite(0, "HELLO".getBytes(StandardCharsets.US_ASCII), 0, 5));
+        assertEquals(semaphoreIndex, awaitSemaphoreSignal());
+        assertEquals(5, asyncFile.writeResult());
+        assertEquals(AsyncFile.ERROR, asyncFile.readResult(buffer, 0, buffer.length));
+        assertArrayEquals("HELLO world".getBytes(StandardCharsets.US_ASCII), channel.data);
+
+        asyncFile.close();
+        assertFalse(asyncFile.startRead(0, 1));
+    }
+
+    /* The result of an operation is published before its semaphore is signaled. */
+    private static int awaitSemaphoreSignal() throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        int semaphoreIndex;
+        while ((semaphoreIndex = image.interrupt.nextSemaphoreToSignal()) == 0) {
+            assertTrue("Async file operation timed out", System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+        return semaphoreIndex;
+    }
+
+    /* Stand-in for a slow file system: reads and writes block until the gate is opened. */
+    private static final class SlowChannel implements SeekableByteChannel {
+        private final CountDownLatch gate = new CountDownLatch(1);
+        private byte[] data;
+        private long position;
+        private boolean isOpen = true;
+
+        SlowChannel(final byte[] data) {
+            this.data = data;
+        }
+
+        private void awaitGate() {
+            try {
+                gate.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public synchronized int read(final ByteBuffer dst) {
+            awaitGate();
+            if (position >= data.length) {
+                return -1;
+            }
+            final int length = (int) Math.min(dst.remaining(), data.length - position);
+            dst.put(data, (int) position, length);
+            position += length;
+            return length;
+        }
+
+        @Override
+        public synchronized int write(final ByteBuffer src) {
+            awaitGate();
+            final int length = src.remaining();
+            if (position + length > data.length) {
+                data = Arrays.copyOf(data, (int) position + length);
+            }
+            src.get(data, (int) position, length);
+            position += length;
+            return length;
+        }
+
+        @Override
+        public synchronized long position() {
+            return position;
+        }
+
+        @Override
+        public synchronized SeekableByteChannel position(final long newPosition) {
+            position = newPosition;
+            return this;
+        }
+
+        @Override
+        public synchronized long size() {
+            return data.length;
+        }
+
+        @Override
+        public SeekableByteChannel truncate(final long size) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public synchronized boolean isOpen() {
+            return isOpen;
+        }
+
+        @Override
+        public synchronized void close() {
+            isOpen = false;
+        }
+    }
 }
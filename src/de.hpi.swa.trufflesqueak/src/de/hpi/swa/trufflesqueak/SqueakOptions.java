@@ -29,9 +29,42 @@ public final class SqueakOptions {
     @Option(name = SqueakLanguageOptions.IMAGE_ARGUMENTS, category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.IMAGE_ARGUMENTS_HELP, usageSyntax = "'arg1 arg2 ...'")//
     public static final OptionKey<String> ImageArguments = new OptionKey<>("");
 
+    @Option(name = SqueakLanguageOptions.CACHE_LIMIT_EXECUTE_METHOD, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.CACHE_LIMIT_EXECUTE_METHOD_HELP, usageSyntax = "number")//
+    public static final OptionKey<Integer> CacheLimitExecuteMethod = new OptionKey<>(4);
+
+    @Option(name = SqueakLanguageOptions.CACHE_LIMIT_INDIRECT_PRIMITIVE, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.CACHE_LIMIT_INDIRECT_PRIMITIVE_HELP, usageSyntax = "number")//
+    public static final OptionKey<Integer> CacheLimitIndirectPrimitive = new OptionKey<>(2);
+
+    @Option(name = SqueakLanguageOptions.CACHE_LIMIT_INLINE_BLOCK, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.CACHE_LIMIT_INLINE_BLOCK_HELP, usageSyntax = "number")//
+    public static final OptionKey<Integer> CacheLimitInlineBlock = new OptionKey<>(4);
+
+    @Option(name = SqueakLanguageOptions.CACHE_LIMIT_INLINE_METHOD, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.CACHE_LIMIT_INLINE_METHOD_HELP, usageSyntax = "number")//
+    public static final OptionKey<Integer> CacheLimitInlineMethod = new OptionKey<>(4);
+
+    @Option(name = SqueakLanguageOptions.CACHE_LIMIT_NEW, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.CACHE_LIMIT_NEW_HELP, usageSyntax = "number")//
+    public static final OptionKey<Integer> CacheLimitNew = new OptionKey<>(3);
+
+    @Option(name = SqueakLanguageOptions.CACHE_LIMIT_PERFORM_SELECTOR, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.CACHE_LIMIT_PERFORM_SELECTOR_HELP, usageSyntax = "number")//
+    public static final OptionKey<Integer> CacheLimitPerformSelector = new OptionKey<>(4);
+
+    @Option(name = SqueakLanguageOptions.CACHE_LIMIT_POINTERS_LAYOUT, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.CACHE_LIMIT_POINTERS_LAYOUT_HELP, usageSyntax = "number")//
+    public static final OptionKey<Integer> CacheLimitPointersLayout = new OptionKey<>(4);
+
+    @Option(name = SqueakLanguageOptions.CACHE_LIMIT_POINTERS_VARIABLE_PART, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.CACHE_LIMIT_POINTERS_VARIABLE_PART_HELP, usageSyntax = "number")//
+    public static final OptionKey<Integer> CacheLimitPointersVariablePart = new OptionKey<>(3);
+
+    @Option(name = SqueakLanguageOptions.IMAGE_DELTA_CHECKPOINTS, category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.IMAGE_DELTA_CHECKPOINTS_HELP, usageSyntax = "false|true")//
+    public static final OptionKey<Boolean> ImageDeltaCheckpoints = new OptionKey<>(false);
+
+    @Option(name = SqueakLanguageOptions.IMAGE_LOAD_THREADS, category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.IMAGE_LOAD_THREADS_HELP, usageSyntax = "number")//
+    public static final OptionKey<Integer> ImageLoadThreads = new OptionKey<>(1);
+
     @Option(name = SqueakLanguageOptions.HEADLESS, category = OptionCategory.USER, stability = OptionStability.STABLE, help = SqueakLanguageOptions.HEADLESS_HELP, usageSyntax = "true|false")//
     public static final OptionKey<Boolean> Headless = new OptionKey<>(true);
 
+    @Option(name = SqueakLanguageOptions.INSTANCE_REGISTRY, category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.INSTANCE_REGISTRY_HELP, usageSyntax = "false|true")//
+    public static final OptionKey<Boolean> InstanceRegistry = new OptionKey<>(false);
+
     @Option(name = SqueakLanguageOptions.INTERCEPT_MESSAGES, category = OptionCategory.INTERNAL, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.INTERCEPT_MESSAGES_HELP, //
                     usageSyntax = "'Object>>becomeForward:,Behavior>>allInstances,...'")//
     public static final OptionKey<String> InterceptMessages = new OptionKey<>("");
@@ -42,6 +75,18 @@ public final class SqueakOptions {
     @Option(name = SqueakLanguageOptions.INTERRUPTS, category = OptionCategory.USER, stability = OptionStability.STABLE, help = SqueakLanguageOptions.INTERRUPTS_HELP, usageSyntax = "false|true")//
     public static final OptionKey<Boolean> Interrupts = new OptionKey<>(false);
 
+    @Option(name = SqueakLanguageOptions.METHOD_CACHE_ADAPTIVE, category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.METHOD_CACHE_ADAPTIVE_HELP, usageSyntax = "false|true")//
+    public static final OptionKey<Boolean> MethodCacheAdaptive = new OptionKey<>(false);
+
+    @Option(name = SqueakLanguageOptions.METHOD_CACHE_SIZE, category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.METHOD_CACHE_SIZE_HELP, usageSyntax = "number")//
+    public static final OptionKey<Integer> MethodCacheSize = new OptionKey<>(2 << 12);
+
+    @Option(name = SqueakLanguageOptions.OBJECT_GRAPH_THREADS, category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.OBJECT_GRAPH_THREADS_HELP, usageSyntax = "number")//
+    public static final OptionKey<Integer> ObjectGraphThreads = new OptionKey<>(0);
+
+    @Option(name = SqueakLanguageOptions.POLYMORPHISM_REPORT, category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.POLYMORPHISM_REPORT_HELP, usageSyntax = "false|true")//
+    public static final OptionKey<Boolean> PolymorphismReport = new OptionKey<>(false);
+
     @Option(name = SqueakLanguageOptions.RESOURCE_SUMMARY, category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.RESOURCE_SUMMARY_HELP, usageSyntax = "false|true")//
     public static final OptionKey<Boolean> ResourceSummary = new OptionKey<>(false);
 
@@ -65,7 +110,10 @@ public final class SqueakOptions {
     }
 
     public record SqueakContextOptions(String imagePath, String[] imageArguments, boolean printResourceSummary, boolean isHeadless, boolean disableInterruptHandler,
-                    int maxContextStackDepth, boolean disableStartup, boolean isTesting, boolean signalInputSemaphore) {
+                    int maxContextStackDepth, boolean disableStartup, boolean isTesting, boolean signalInputSemaphore, int imageLoadThreads,
+                    boolean imageDeltaCheckpoints, int objectGraphThreads,
+                    boolean instanceRegistry, int methodCacheSize, boolean methodCacheAdaptive,
+                    boolean polymorphismReport) {
         public static SqueakContextOptions create(final OptionValues options) {
             return new SqueakContextOptions(
                             options.get(ImagePath).isEmpty() ? null : options.get(ImagePath),
@@ -76,7 +124,14 @@ public final class SqueakOptions {
                             Math.max(1, options.get(ContextStackDepth)),
                             options.get(Startup),
                             options.get(Testing),
-                            options.get(SignalInputSemaphore));
+                            options.get(SignalInputSemaphore),
+                            Math.max(1, options.get(ImageLoadThreads)),
+                            options.get(ImageDeltaCheckpoints),
+                            options.get(ObjectGraphThreads) > 0 ? options.get(ObjectGraphThreads) : Runtime.getRuntime().availableProcessors(),
+                            options.get(InstanceRegistry),
+                            options.get(MethodCacheSize),
+                            options.get(MethodCacheAdaptive),
+                            options.get(PolymorphismReport));
         }
     }
 }
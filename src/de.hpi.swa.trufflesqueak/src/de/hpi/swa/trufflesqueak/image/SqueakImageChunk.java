@@ -6,6 +6,8 @@
  */
 package de.hpi.swa.trufflesqueak.image;
 
+import java.util.Arrays;
+
 import com.oracle.truffle.api.CompilerDirectives;
 
 import de.hpi.swa.trufflesqueak.exceptions.SqueakExceptions.SqueakException;
@@ -27,6 +29,7 @@ import de.hpi.swa.trufflesqueak.model.WeakVariablePointersObject;
 import de.hpi.swa.trufflesqueak.nodes.plugins.LargeIntegers;
 import de.hpi.swa.trufflesqueak.util.LogUtils;
 import de.hpi.swa.trufflesqueak.util.MiscUtils;
+import de.hpi.swa.trufflesqueak.util.UnsafeUtils;
 import de.hpi.swa.trufflesqueak.util.VarHandleUtils;
 
 public final class SqueakImageChunk {
@@ -241,6 +244,26 @@ public final class SqueakImageChunk {
         return bytes;
     }
 
+    public byte[] getBytes(final int start) {
+        return start == 0 ? bytes : Arrays.copyOfRange(bytes, start, bytes.length);
+    }
+
+    public int getByteSize() {
+        return bytes.length;
+    }
+
+    public short[] getShorts() {
+        return UnsafeUtils.toShorts(bytes);
+    }
+
+    public int[] getInts() {
+        return UnsafeUtils.toInts(bytes);
+    }
+
+    public long[] getLongs() {
+        return UnsafeUtils.toLongs(bytes);
+    }
+
     public long getWord(final int index) {
         return VarHandleUtils.getLong(bytes, index);
     }
@@ -11,8 +11,12 @@ import java.lang.ref.ReferenceQueue;
 import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.collections.Equivalence;
 import org.graalvm.collections.UnmodifiableEconomicMap;
 
 import com.oracle.truffle.api.Assumption;
@@ -64,17 +68,21 @@ import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.PROCESS;
 import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.PROCESS_SCHEDULER;
 import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.SPECIAL_OBJECT;
 import de.hpi.swa.trufflesqueak.model.layout.SlotLocation;
+import de.hpi.swa.trufflesqueak.nodes.CacheLimits;
 import de.hpi.swa.trufflesqueak.nodes.DoItRootNode;
 import de.hpi.swa.trufflesqueak.nodes.ExecuteTopLevelContextNode;
 import de.hpi.swa.trufflesqueak.nodes.SqueakGuards;
 import de.hpi.swa.trufflesqueak.nodes.accessing.AbstractPointersObjectNodes.AbstractPointersObjectReadNode;
 import de.hpi.swa.trufflesqueak.nodes.accessing.AbstractPointersObjectNodes.AbstractPointersObjectWriteNode;
 import de.hpi.swa.trufflesqueak.nodes.accessing.SqueakObjectClassNode;
+import de.hpi.swa.trufflesqueak.nodes.dispatch.PolymorphismReport;
 import de.hpi.swa.trufflesqueak.nodes.interrupts.CheckForInterruptsState;
 import de.hpi.swa.trufflesqueak.nodes.plugins.B2D;
 import de.hpi.swa.trufflesqueak.nodes.plugins.BitBlt;
+import de.hpi.swa.trufflesqueak.nodes.plugins.DirectoryLookupCache;
 import de.hpi.swa.trufflesqueak.nodes.plugins.JPEGReader;
 import de.hpi.swa.trufflesqueak.nodes.plugins.Zip;
+import de.hpi.swa.trufflesqueak.nodes.process.RunnablePriorities;
 import de.hpi.swa.trufflesqueak.nodes.process.SignalSemaphoreNodeGen;
 import de.hpi.swa.trufflesqueak.shared.SqueakImageLocator;
 import de.hpi.swa.trufflesqueak.tools.SqueakMessageInterceptor;
@@ -85,6 +93,7 @@ import de.hpi.swa.trufflesqueak.util.LogUtils;
 import de.hpi.swa.trufflesqueak.util.MethodCacheEntry;
 import de.hpi.swa.trufflesqueak.util.MiscUtils;
 import de.hpi.swa.trufflesqueak.util.ObjectGraphUtils;
+import de.hpi.swa.trufflesqueak.util.SelectorDispatchTable;
 
 @DefaultExpression("get($node)")
 public final class SqueakImageContext {
@@ -163,11 +172,28 @@ public final class SqueakImageContext {
     public final VirtualFrame externalSenderFrame = Truffle.getRuntime().createVirtualFrame(FrameAccess.newWith(NilObject.SINGLETON, null, NilObject.SINGLETON), dummyMethod.getFrameDescriptor());
 
     /* Method Cache */
-    private static final int METHOD_CACHE_SIZE = 2 << 12;
-    private static final int METHOD_CACHE_MASK = METHOD_CACHE_SIZE - 1;
     private static final int METHOD_CACHE_REPROBES = 4;
+    private static final int METHOD_CACHE_MAX_SIZE = 1 << 20;
+    /* An adaptive cache grows if more than 1/METHOD_CACHE_GROW_MISS_RATIO of the lookups miss. */
+    private static final int METHOD_CACHE_GROW_MISS_RATIO = 8;
     private int methodCacheRandomish;
-    @CompilationFinal(dimensions = 1) private final MethodCacheEntry[] methodCache = new MethodCacheEntry[METHOD_CACHE_SIZE];
+    @CompilationFinal(dimensions = 1) private MethodCacheEntry[] methodCache;
+    @CompilationFinal private int methodCacheMask;
+    private final CyclicAssumption methodCacheStable = new CyclicAssumption("MethodCacheStable assumption");
+    private final boolean methodCacheAdaptive;
+    private final boolean methodCacheCountLookups;
+    private long methodCacheHits;
+    private long methodCacheReprobeHits;
+    private long methodCacheMisses;
+    private long methodCacheReplacements;
+    private long methodCacheEvictions;
+    private int methodCacheResizes;
+    private int methodCacheWindowLookups;
+    private int methodCacheWindowMisses;
+    /* Selector dispatch tables are never removed because send sites keep them. */
+    private final EconomicMap<NativeObject, SelectorDispatchTable> selectorDispatchTables = EconomicMap.create(Equivalence.IDENTITY);
+    private final SelectorDispatchTable.Epoch selectorDispatchEpoch = new SelectorDispatchTable.Epoch();
+    private final PolymorphismReport polymorphismReport;
 
     /* Interpreter state */
     private int primFailCode = 0;
@@ -186,6 +212,10 @@ public final class SqueakImageContext {
     /* System */
     public NativeObject clipboardTextHeadless = asByteString("");
     private boolean currentMarkingFlag;
+    private Thread pendingImageFileWrite;
+    private SqueakImageWriter.SaveState imageSaveState;
+    /* Created on first save and shut down when the context is finalized. */
+    private ExecutorService imageWriterPool;
     public final ObjectGraphUtils objectGraphUtils;
     private ArrayObject hiddenRoots;
     private int numClassTablePages = SqueakImageConstants.CLASS_TABLE_ROOT_SLOTS;
@@ -219,12 +249,14 @@ public final class SqueakImageContext {
     private PointersObject parserSharedInstance;
     private AbstractSqueakObject requestorSharedInstanceOrNil;
     @CompilationFinal private PointersObject scheduler;
+    private final RunnablePriorities runnablePriorities = new RunnablePriorities();
     @CompilationFinal private Object smalltalkScope;
 
     /* Plugins */
     public final Map<String, SymbolLookup> loadedLibraries = new HashMap<>();
     public final B2D b2d = new B2D(this);
     public final BitBlt bitblt = new BitBlt(this);
+    public final DirectoryLookupCache directoryLookupCache = new DirectoryLookupCache();
     public String[] dropPluginFileList = ArrayUtils.EMPTY_STRINGS_ARRAY;
     public final JPEGReader jpegReader = new JPEGReader();
     public final Zip zip = new Zip();
@@ -232,6 +264,14 @@ public final class SqueakImageContext {
     public SqueakImageContext(final SqueakLanguage squeakLanguage, final SqueakLanguage.Env environment) {
         language = squeakLanguage;
         options = SqueakContextOptions.create(environment.getOptions());
+        CacheLimits.initialize(environment.getOptions());
+        if (options.instanceRegistry()) {
+            ClassObject.enableInstanceRegistry();
+        }
+        if (options.imageDeltaCheckpoints()) {
+            AbstractPointersObject.enableDirtyTracking();
+        }
+        polymorphismReport = options.polymorphismReport() ? new PolymorphismReport() : null;
         isHeadless = options.isHeadless();
         maxContextStackDepth = options.maxContextStackDepth();
         patch(environment);
@@ -245,7 +285,9 @@ public final class SqueakImageContext {
             homePath = env.getInternalTruffleFile(options.imagePath()).getParent();
         }
         assert homePath != null && homePath.exists() : "Home directory does not exist: " + homePath;
-        initializeMethodCache();
+        methodCacheAdaptive = options.methodCacheAdaptive();
+        methodCacheCountLookups = methodCacheAdaptive || options.printResourceSummary();
+        initializeMethodCache(options.methodCacheSize());
 
         DebugUtils.registerContext(this);
     }
@@ -894,6 +936,10 @@ public final class SqueakImageContext {
         return scheduler;
     }
 
+    public RunnablePriorities getRunnablePriorities() {
+        return runnablePriorities;
+    }
+
     public PointersObject getActiveProcessSlow() {
         return AbstractPointersObjectReadNode.getUncached().executePointers(getScheduler(), PROCESS_SCHEDULER.ACTIVE_PROCESS);
     }
@@ -993,8 +1039,62 @@ public final class SqueakImageContext {
     }
 
     public void finalizeContext() {
+        waitForImageFileWrite();
         if (options.printResourceSummary()) {
-            MiscUtils.printResourceSummary();
+            MiscUtils.printResourceSummary(this);
+        }
+        if (polymorphismReport != null) {
+            polymorphismReport.print();
+        }
+        objectGraphUtils.shutdown();
+        if (imageWriterPool != null) {
+            imageWriterPool.shutdown();
+            imageWriterPool = null;
+        }
+    }
+
+    public PolymorphismReport getPolymorphismReport() {
+        return polymorphismReport;
+    }
+
+    public boolean isImageFileWriteInProgress() {
+        return pendingImageFileWrite != null && pendingImageFileWrite.isAlive();
+    }
+
+    public void setPendingImageFileWrite(final Thread thread) {
+        assert !isImageFileWriteInProgress();
+        pendingImageFileWrite = thread;
+    }
+
+    ExecutorService getImageWriterPool() {
+        if (imageWriterPool == null) {
+            imageWriterPool = Executors.newFixedThreadPool(SqueakImageWriter.WRITER_THREAD_COUNT, r -> {
+                final Thread thread = new Thread(r, "TruffleSqueakImageWriter");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return imageWriterPool;
+    }
+
+    SqueakImageWriter.SaveState getImageSaveState() {
+        return imageSaveState;
+    }
+
+    void setImageSaveState(final SqueakImageWriter.SaveState state) {
+        imageSaveState = state;
+    }
+
+    @TruffleBoundary
+    public void waitForImageFileWrite() {
+        if (pendingImageFileWrite != null) {
+            try {
+                pendingImageFileWrite.join();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LogUtils.IMAGE.warning("Interrupted while waiting for the image file to be written");
+            }
+            pendingImageFileWrite = null;
         }
     }
 
@@ -1023,8 +1123,11 @@ public final class SqueakImageContext {
      * METHOD CACHE
      */
 
-    private void initializeMethodCache() {
-        for (int i = 0; i < METHOD_CACHE_SIZE; i++) {
+    private void initializeMethodCache(final int requestedSize) {
+        final int size = Integer.highestOneBit(Math.clamp(requestedSize, METHOD_CACHE_REPROBES, METHOD_CACHE_MAX_SIZE) * 2 - 1);
+        methodCache = new MethodCacheEntry[size];
+        methodCacheMask = size - 1;
+        for (int i = 0; i < size; i++) {
             methodCache[i] = new MethodCacheEntry();
         }
     }
@@ -1038,23 +1141,103 @@ public final class SqueakImageContext {
      */
     @ExplodeLoop
     public MethodCacheEntry findMethodCacheEntry(final ClassObject classObject, final NativeObject selector) {
+        if (!methodCacheStable.getAssumption().isValid()) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+        }
         methodCacheRandomish = methodCacheRandomish + 1 & 3;
         final int selectorHash = System.identityHashCode(selector);
-        int firstProbe = (System.identityHashCode(classObject) ^ selectorHash) & METHOD_CACHE_MASK;
+        int firstProbe = (System.identityHashCode(classObject) ^ selectorHash) & methodCacheMask;
         final int stride = (selectorHash << 1) | 1;
 
         int probe = firstProbe;
         for (int i = 0; i < METHOD_CACHE_REPROBES; i++) {
             final MethodCacheEntry entry = methodCache[probe];
             if (entry.getClassObject() == classObject && entry.getSelector() == selector) {
+                if (methodCacheCountLookups) {
+                    countMethodCacheHit(i);
+                }
                 return entry;
             }
             if (i == methodCacheRandomish) {
                 firstProbe = probe;
             }
-            probe = probe + stride & METHOD_CACHE_MASK;
+            probe = probe + stride & methodCacheMask;
+        }
+        final MethodCacheEntry entry = methodCache[firstProbe];
+        if (methodCacheCountLookups) {
+            countMethodCacheMiss(entry);
+        }
+        return entry.reuseFor(classObject, selector);
+    }
+
+    private void countMethodCacheHit(final int reprobes) {
+        methodCacheHits++;
+        if (reprobes > 0) {
+            methodCacheReprobeHits++;
+        }
+        if (methodCacheAdaptive) {
+            methodCacheWindowLookups++;
+        }
+    }
+
+    private void countMethodCacheMiss(final MethodCacheEntry victim) {
+        methodCacheMisses++;
+        if (victim.getSelector() != null) {
+            methodCacheReplacements++;
+        }
+        if (methodCacheAdaptive) {
+            methodCacheWindowMisses++;
+            if (++methodCacheWindowLookups >= methodCache.length) {
+                if (methodCacheWindowMisses > methodCacheWindowLookups / METHOD_CACHE_GROW_MISS_RATIO && methodCache.length < METHOD_CACHE_MAX_SIZE) {
+                    growMethodCache();
+                }
+                methodCacheWindowLookups = 0;
+                methodCacheWindowMisses = 0;
+            }
         }
-        return methodCache[firstProbe].reuseFor(classObject, selector);
+    }
+
+    /*
+     * Double the size of the cache and rehash all entries in use. Entries keep their identity, so
+     * an entry that is currently being filled in by a lookup remains valid.
+     */
+    @TruffleBoundary
+    private void growMethodCache() {
+        final MethodCacheEntry[] oldCache = methodCache;
+        final MethodCacheEntry[] newCache = new MethodCacheEntry[oldCache.length * 2];
+        final int newMask = newCache.length - 1;
+        for (final MethodCacheEntry entry : oldCache) {
+            if (entry.getSelector() == null) {
+                continue;
+            }
+            final int selectorHash = System.identityHashCode(entry.getSelector());
+            final int stride = (selectorHash << 1) | 1;
+            int probe = (System.identityHashCode(entry.getClassObject()) ^ selectorHash) & newMask;
+            for (int i = 0; i < METHOD_CACHE_REPROBES; i++) {
+                if (newCache[probe] == null) {
+                    newCache[probe] = entry;
+                    break;
+                }
+                probe = probe + stride & newMask;
+            }
+        }
+        for (int i = 0; i < newCache.length; i++) {
+            if (newCache[i] == null) {
+                newCache[i] = new MethodCacheEntry();
+            }
+        }
+        methodCache = newCache;
+        methodCacheMask = newMask;
+        methodCacheResizes++;
+        methodCacheStable.invalidate("Method cache resized");
+        LogUtils.MAIN.fine(() -> "Method cache grown to " + newCache.length + " entries");
+    }
+
+    public record MethodCacheStatistics(int size, int resizes, long hits, long reprobeHits, long misses, long replacements, long evictions) {
+    }
+
+    public MethodCacheStatistics getMethodCacheStatistics() {
+        return new MethodCacheStatistics(methodCache.length, methodCacheResizes, methodCacheHits, methodCacheReprobeHits, methodCacheMisses, methodCacheReplacements, methodCacheEvictions);
     }
 
     public Object lookup(final ClassObject receiverClass, final NativeObject selector) {
@@ -1067,9 +1250,28 @@ public final class SqueakImageContext {
 
     /* Clear all cache entries (prim 89). */
     public void flushMethodCache() {
-        for (int i = 0; i < METHOD_CACHE_SIZE; i++) {
-            methodCache[i].freeAndRelease();
+        for (int i = 0; i < methodCache.length; i++) {
+            evictMethodCacheEntry(methodCache[i]);
+        }
+        flushSelectorDispatchTables();
+    }
+
+    /* Clear cache entries for classObject and its subclasses (new superclass or method dict). */
+    public void flushMethodCacheForClass(final ClassObject classObject) {
+        for (int i = 0; i < methodCache.length; i++) {
+            final MethodCacheEntry entry = methodCache[i];
+            if (entry.getSelector() != null && entry.getClassObject().includesBehavior(classObject)) {
+                evictMethodCacheEntry(entry);
+            }
         }
+        selectorDispatchEpoch.advance();
+    }
+
+    private void evictMethodCacheEntry(final MethodCacheEntry entry) {
+        if (entry.getSelector() != null) {
+            methodCacheEvictions++;
+        }
+        entry.freeAndRelease();
     }
 
     /* Clear cache entries for selector (prim 119). */
@@ -1078,20 +1280,27 @@ public final class SqueakImageContext {
             flushMethodCache();
             return;
         }
-        for (int i = 0; i < METHOD_CACHE_SIZE; i++) {
+        for (int i = 0; i < methodCache.length; i++) {
             if (methodCache[i].getSelector() == selector) {
-                methodCache[i].freeAndRelease();
+                evictMethodCacheEntry(methodCache[i]);
             }
         }
+        final SelectorDispatchTable table = getSelectorDispatchTableOrNull(selector);
+        if (table != null) {
+            table.flush();
+        }
     }
 
     /* Clear cache entries for method (prim 116). */
     public void flushMethodCacheForMethod(final CompiledCodeObject method) {
-        for (int i = 0; i < METHOD_CACHE_SIZE; i++) {
+        for (int i = 0; i < methodCache.length; i++) {
             if (methodCache[i].getResult() == method) {
-                methodCache[i].freeAndRelease();
+                evictMethodCacheEntry(methodCache[i]);
             }
         }
+        for (final SelectorDispatchTable table : getSelectorDispatchTables()) {
+            table.flushForMethod(method);
+        }
     }
 
     public void flushMethodCacheAfterBecome() {
@@ -1099,6 +1308,41 @@ public final class SqueakImageContext {
         flushMethodCache();
     }
 
+    @TruffleBoundary
+    public SelectorDispatchTable getSelectorDispatchTable(final NativeObject selector) {
+        synchronized (selectorDispatchTables) {
+            SelectorDispatchTable table = selectorDispatchTables.get(selector);
+            if (table == null) {
+                table = new SelectorDispatchTable(selector, selectorDispatchEpoch);
+                selectorDispatchTables.put(selector, table);
+            }
+            return table;
+        }
+    }
+
+    @TruffleBoundary
+    private SelectorDispatchTable getSelectorDispatchTableOrNull(final NativeObject selector) {
+        synchronized (selectorDispatchTables) {
+            return selectorDispatchTables.get(selector);
+        }
+    }
+
+    @TruffleBoundary
+    private SelectorDispatchTable[] getSelectorDispatchTables() {
+        synchronized (selectorDispatchTables) {
+            final SelectorDispatchTable[] tables = new SelectorDispatchTable[selectorDispatchTables.size()];
+            int index = 0;
+            for (final SelectorDispatchTable table : selectorDispatchTables.getValues()) {
+                tables[index++] = table;
+            }
+            return tables;
+        }
+    }
+
+    private void flushSelectorDispatchTables() {
+        selectorDispatchEpoch.advance();
+    }
+
     /*
      * CLASS CHECKS
      */
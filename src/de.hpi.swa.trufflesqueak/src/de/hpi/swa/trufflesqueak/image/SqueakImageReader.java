@@ -7,13 +7,21 @@
 package de.hpi.swa.trufflesqueak.image;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 
@@ -38,6 +46,9 @@ import de.hpi.swa.trufflesqueak.util.MiscUtils;
 import de.hpi.swa.trufflesqueak.util.UnsafeUtils;
 
 public final class SqueakImageReader {
+    private static final int TASKS_PER_THREAD = 4;
+    private static final int AVERAGE_OBJECT_SIZE = 48; /* bytes, including header */
+
     public SqueakImageChunk hiddenRootsChunk;
 
     public final AddressToChunkMap chunkMap = new AddressToChunkMap();
@@ -47,6 +58,7 @@ public final class SqueakImageReader {
     private long specialObjectsPointer;
 
     private SqueakImageChunk freePageList;
+    private ExecutorService executor;
 
     public SqueakImageReader(final SqueakImageContext image) {
         this.image = image;
@@ -65,6 +77,21 @@ public final class SqueakImageReader {
     private void run() {
         SqueakImageContext.initializeBeforeLoadingImage();
         final long start = MiscUtils.currentTimeMillis();
+        final int numThreads = image.options.imageLoadThreads();
+        if (numThreads > 1) {
+            executor = Executors.newFixedThreadPool(numThreads, r -> new Thread(r, "TruffleSqueakImageReader"));
+        }
+        try {
+            load(start);
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+    }
+
+    private void load(final long start) {
         final TruffleFile truffleFile = image.env.getPublicTruffleFile(image.getImagePath());
         if (!truffleFile.isRegularFile()) {
             throw SqueakException.create(MiscUtils.format("Image at '%s' does not exist.", image.getImagePath()));
@@ -72,8 +99,13 @@ public final class SqueakImageReader {
         try (var channel = FileChannel.open(Path.of(image.getImagePath()), StandardOpenOption.READ)) {
             final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
             buffer.order(ByteOrder.LITTLE_ENDIAN);
+            final long readStart = MiscUtils.currentTimeMillis();
             readImage(buffer);
+            logPhase("Image read", readStart);
             UnsafeUtils.invokeCleaner(buffer);
+            if (image.options.imageDeltaCheckpoints()) {
+                replayDeltaCheckpoints();
+            }
         } catch (final IOException e) {
             throw SqueakException.create("Failed to read Smalltalk image:", e.getMessage());
         }
@@ -85,6 +117,67 @@ public final class SqueakImageReader {
         image.getSqueakImage();
     }
 
+    /*
+     * Applies the delta checkpoints written by SqueakImageWriter#writeDelta in order. Each record
+     * replaces or adds the chunk at its oop, so objects that were not changed are read from the
+     * image itself.
+     */
+    private void replayDeltaCheckpoints() throws IOException {
+        final TruffleFile imageFile = image.env.getPublicTruffleFile(image.getImagePath());
+        final long imageSize = imageFile.size();
+        final long imageModified = imageFile.getLastModifiedTime().toMillis();
+        final long oldBaseAddress = image.flags.getOldBaseAddress();
+        for (int sequence = 1;; sequence++) {
+            final TruffleFile deltaFile = SqueakImageWriter.deltaFileFor(image, sequence);
+            if (!deltaFile.isRegularFile()) {
+                return;
+            }
+            final long start = MiscUtils.currentTimeMillis();
+            final ByteBuffer buffer = ByteBuffer.wrap(deltaFile.readAllBytes()).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.remaining() < SqueakImageWriter.DELTA_HEADER_SIZE || buffer.getInt() != SqueakImageWriter.DELTA_MAGIC || buffer.getInt() != SqueakImageWriter.DELTA_VERSION ||
+                            buffer.getInt() != image.imageFormat || buffer.getInt() != sequence || buffer.getLong() != imageSize || buffer.getLong() != imageModified) {
+                LogUtils.READER.warning(() -> "Ignoring outdated delta checkpoint " + deltaFile.getName() + " and all following ones.");
+                return;
+            }
+            specialObjectsPointer = buffer.getLong();
+            final long numRecords = buffer.getLong();
+            final long hiddenRootsOop = oldBaseAddress + hiddenRootsChunk.getPosition();
+            for (long i = 0; i < numRecords; i++) {
+                final long oop = buffer.getLong();
+                final int recordEnd = MiscUtils.toIntExact(buffer.position() + Long.BYTES + buffer.getLong());
+                long headerWord = buffer.getLong();
+                int numSlots = SqueakImageConstants.ObjectHeader.getNumSlots(headerWord);
+                if (numSlots == SqueakImageConstants.OVERFLOW_SLOTS) {
+                    numSlots = (int) (headerWord & ~SqueakImageConstants.SLOTS_MASK);
+                    headerWord = buffer.getLong();
+                }
+                final byte[] objectData;
+                if (numSlots == 0) {
+                    objectData = ArrayUtils.EMPTY_BYTE_ARRAY;
+                } else {
+                    final int format = SqueakImageConstants.ObjectHeader.getFormat(headerWord);
+                    objectData = new byte[numSlots * SqueakImageConstants.WORD_SIZE - calculateObjectPadding(format)];
+                    buffer.get(objectData);
+                }
+                buffer.position(recordEnd);
+                final SqueakImageChunk chunk = new SqueakImageChunk(this, headerWord, MiscUtils.toIntExact(oop - oldBaseAddress), objectData);
+                chunkMap.put(oop, chunk);
+                if (oop == hiddenRootsOop) {
+                    hiddenRootsChunk = chunk;
+                }
+            }
+            LogUtils.READER.fine(() -> "Delta checkpoint " + deltaFile.getName() + " with " + numRecords + " objects replayed in " + (MiscUtils.currentTimeMillis() - start) + "ms.");
+        }
+    }
+
+    private static int estimateNumObjects(final long dataSize) {
+        return (int) Math.min(Integer.MAX_VALUE - 8, dataSize / AVERAGE_OBJECT_SIZE);
+    }
+
+    private static void logPhase(final String phase, final long phaseStart) {
+        LogUtils.READER.fine(() -> phase + " in " + (MiscUtils.currentTimeMillis() - phaseStart) + "ms.");
+    }
+
     private static void skip(final MappedByteBuffer buffer, final int numBytes) {
         buffer.position(buffer.position() + numBytes);
     }
@@ -133,12 +226,18 @@ public final class SqueakImageReader {
         // Read body
         long segmentEnd = headerSize + firstSegmentSize;
         long currentAddressSwizzle = oldBaseAddress;
+        chunkMap.ensureCapacity(estimateNumObjects(dataSize));
+        final ObjectPositions positions = executor == null ? null : new ObjectPositions(dataSize);
         while (buffer.position() < segmentEnd) {
             while (buffer.position() < segmentEnd - SqueakImageConstants.IMAGE_BRIDGE_SIZE) {
-                final SqueakImageChunk chunk = readObject(buffer);
-                chunkMap.put(chunk.getPosition() + currentAddressSwizzle, chunk);
+                if (positions == null) {
+                    final SqueakImageChunk chunk = readObject(buffer);
+                    chunkMap.put(chunk.getPosition() + currentAddressSwizzle, chunk);
+                } else {
+                    scanObject(buffer, positions, currentAddressSwizzle);
+                }
             }
-            assert hiddenRootsChunk != null : "hiddenRootsChunk must be known from now on.";
+            assert hiddenRootsChunk != null || positions != null && positions.hiddenRootsIndex >= 0 : "hiddenRootsChunk must be known from now on.";
             final long bridge = buffer.getLong();
             long bridgeSpan = 0;
             if ((bridge & SqueakImageConstants.SLOTS_MASK) != 0) {
@@ -153,6 +252,107 @@ public final class SqueakImageReader {
             currentAddressSwizzle += bridgeSpan * SqueakImageConstants.WORD_SIZE;
         }
         assert buffer.position() == headerSize + dataSize;
+        if (positions != null) {
+            readObjectsInParallel(buffer, positions);
+        }
+    }
+
+    /**
+     * Parallel counterpart of {@link #readObject(MappedByteBuffer)}. Object boundaries can only be
+     * found by walking the segments, so this only decodes the headers and records where each object
+     * is. The object data is copied later by {@link #readObjectsInParallel}.
+     */
+    private void scanObject(final MappedByteBuffer buffer, final ObjectPositions positions, final long currentAddressSwizzle) {
+        int pos = buffer.position() - headerSize;
+        assert pos % SqueakImageConstants.WORD_SIZE == 0 : "every object must be 64-bit aligned: " + pos % SqueakImageConstants.WORD_SIZE;
+        long headerWord = buffer.getLong();
+        int numSlots = SqueakImageConstants.ObjectHeader.getNumSlots(headerWord);
+        if (numSlots == SqueakImageConstants.OVERFLOW_SLOTS) {
+            numSlots = (int) (headerWord & ~SqueakImageConstants.SLOTS_MASK);
+            assert numSlots >= SqueakImageConstants.OVERFLOW_SLOTS;
+            pos = buffer.position() - headerSize;
+            headerWord = buffer.getLong();
+            assert SqueakImageConstants.ObjectHeader.getNumSlots(headerWord) == SqueakImageConstants.OVERFLOW_SLOTS : "Objects with long header must have 255 in slot count";
+        }
+        assert numSlots >= 0 : "Negative object size";
+        final int classIndex = SqueakImageConstants.ObjectHeader.getClassIndex(headerWord);
+        final int index = positions.add(headerWord, pos, numSlots, pos + currentAddressSwizzle);
+        if (numSlots == 0 && !ignoreObjectData(headerWord, classIndex, numSlots)) {
+            skip(buffer, SqueakImageConstants.WORD_SIZE); // skip trailing alignment word
+        } else {
+            skip(buffer, numSlots * SqueakImageConstants.WORD_SIZE);
+        }
+        if (positions.hiddenRootsIndex < 0 && isHiddenObject(classIndex)) {
+            if (positions.freePageListIndex < 0) {
+                assert classIndex == SqueakImageConstants.WORD_SIZE_CLASS_INDEX_PUN && numSlots == SqueakImageConstants.NUM_FREE_LISTS;
+                positions.freePageListIndex = index; /* First hidden object. */
+            } else {
+                assert classIndex == SqueakImageConstants.ARRAY_CLASS_INDEX_PUN &&
+                                numSlots == SqueakImageConstants.CLASS_TABLE_ROOT_SLOTS + SqueakImageConstants.HIDDEN_ROOT_SLOTS : "hiddenRootsObj has unexpected size";
+                positions.hiddenRootsIndex = index; /* Second hidden object. */
+            }
+        }
+    }
+
+    /**
+     * Copies object data into chunks using all worker threads. Each task covers a consecutive range
+     * of objects and only reads from the mapped buffer with absolute offsets. Chunks are entered into
+     * the {@link #chunkMap} afterward in image order, so the result is identical to the sequential
+     * path.
+     */
+    private void readObjectsInParallel(final MappedByteBuffer buffer, final ObjectPositions positions) {
+        final int numObjects = positions.size;
+        chunkMap.ensureCapacity(numObjects);
+        final SqueakImageChunk[] chunks = new SqueakImageChunk[numObjects];
+        final int rangeSize = Math.max(1, numObjects / (image.options.imageLoadThreads() * TASKS_PER_THREAD) + 1);
+        final ArrayList<Callable<Void>> tasks = new ArrayList<>();
+        for (int rangeStart = 0; rangeStart < numObjects; rangeStart += rangeSize) {
+            final int from = rangeStart;
+            final int to = Math.min(numObjects, rangeStart + rangeSize);
+            tasks.add(() -> {
+                for (int i = from; i < to; i++) {
+                    chunks[i] = readObjectAt(buffer, positions.headers[i], positions.positions[i], positions.numSlots[i]);
+                }
+                return null;
+            });
+        }
+        invokeAll(tasks);
+        for (int i = 0; i < numObjects; i++) {
+            chunkMap.put(positions.addresses[i], chunks[i]);
+        }
+        if (positions.freePageListIndex >= 0) {
+            freePageList = chunks[positions.freePageListIndex];
+        }
+        hiddenRootsChunk = chunks[positions.hiddenRootsIndex];
+    }
+
+    private SqueakImageChunk readObjectAt(final MappedByteBuffer buffer, final long headerWord, final int pos, final int size) {
+        final int classIndex = SqueakImageConstants.ObjectHeader.getClassIndex(headerWord);
+        final byte[] objectData;
+        if (ignoreObjectData(headerWord, classIndex, size)) {
+            /* Skip some hidden objects for performance reasons. */
+            objectData = null;
+        } else if (size == 0) {
+            objectData = ArrayUtils.EMPTY_BYTE_ARRAY;
+        } else {
+            final int format = SqueakImageConstants.ObjectHeader.getFormat(headerWord);
+            objectData = new byte[size * SqueakImageConstants.WORD_SIZE - calculateObjectPadding(format)];
+            buffer.get(headerSize + pos + SqueakImageConstants.WORD_SIZE, objectData);
+        }
+        return new SqueakImageChunk(this, headerWord, pos, objectData);
+    }
+
+    private void invokeAll(final List<Callable<Void>> tasks) {
+        try {
+            for (final Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (final ExecutionException e) {
+            throw SqueakException.create("Failed to read Smalltalk image:", e.getCause());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw SqueakException.create("Image loading was interrupted:", e);
+        }
     }
 
     private SqueakImageChunk readObject(final MappedByteBuffer buffer) {
@@ -170,16 +370,15 @@ public final class SqueakImageReader {
         final int size = numSlots;
         assert size >= 0 : "Negative object size";
         final int classIndex = SqueakImageConstants.ObjectHeader.getClassIndex(headerWord);
-        final byte[] objectData;
+        final SqueakImageChunk chunk;
         if (ignoreObjectData(headerWord, classIndex, size)) {
             /* Skip some hidden objects for performance reasons. */
-            objectData = null;
+            chunk = new SqueakImageChunk(this, headerWord, pos, null);
             skip(buffer, size * SqueakImageConstants.WORD_SIZE);
         } else {
             final int format = SqueakImageConstants.ObjectHeader.getFormat(headerWord);
-            objectData = nextObjectData(buffer, size, format);
+            chunk = new SqueakImageChunk(this, headerWord, pos, nextObjectData(buffer, size, format));
         }
-        final SqueakImageChunk chunk = new SqueakImageChunk(this, headerWord, pos, objectData);
         if (hiddenRootsChunk == null && isHiddenObject(classIndex)) {
             if (freePageList == null) {
                 assert classIndex == SqueakImageConstants.WORD_SIZE_CLASS_INDEX_PUN && size == SqueakImageConstants.NUM_FREE_LISTS;
@@ -322,9 +521,17 @@ public final class SqueakImageReader {
     }
 
     private void initObjects() {
+        long phaseStart = MiscUtils.currentTimeMillis();
         initPrebuiltConstant();
         fillInClassObjects();
-        fillInObjects();
+        logPhase("Class objects filled in", phaseStart);
+        phaseStart = MiscUtils.currentTimeMillis();
+        if (executor == null) {
+            fillInObjects();
+        } else {
+            fillInObjectsInParallel();
+        }
+        logPhase("Objects filled in", phaseStart);
         fillInClassesFromCompactClassList();
     }
 
@@ -419,6 +626,45 @@ public final class SqueakImageReader {
         }
     }
 
+    /**
+     * Parallel counterpart of {@link #fillInObjects()}. Instantiating objects is lazy and filling in
+     * pointers objects migrates the shared layouts of their classes, so both happen sequentially and
+     * in image order as before. Only fillins that exclusively modify their own object (currently
+     * {@link ArrayObject}s) are deferred and then processed in parallel partitions, which does not
+     * change the result.
+     */
+    private void fillInObjectsInParallel() {
+        final ArrayList<SqueakImageChunk> deferred = new ArrayList<>();
+        for (final SqueakImageChunk chunk : chunkMap.getChunks()) {
+            if (chunk == null) {
+                continue;
+            }
+            final Object chunkObject = chunk.asObject();
+            if (chunkObject instanceof final AbstractSqueakObjectWithHash obj) {
+                assert !(obj instanceof final AbstractSqueakObjectWithClassAndHash o) || !o.needsSqueakClass() : "object is missing class";
+                assert obj.getSqueakHashInt() == chunk.getHash() : "object is missing hash";
+                if (obj instanceof ArrayObject) {
+                    deferred.add(chunk);
+                } else {
+                    obj.fillin(chunk);
+                }
+            }
+        }
+        final int numDeferred = deferred.size();
+        final int rangeSize = Math.max(1, numDeferred / (image.options.imageLoadThreads() * TASKS_PER_THREAD) + 1);
+        final ArrayList<Callable<Void>> tasks = new ArrayList<>();
+        for (int rangeStart = 0; rangeStart < numDeferred; rangeStart += rangeSize) {
+            final List<SqueakImageChunk> range = deferred.subList(rangeStart, Math.min(numDeferred, rangeStart + rangeSize));
+            tasks.add(() -> {
+                for (final SqueakImageChunk chunk : range) {
+                    ((ArrayObject) chunk.asObject()).fillin(chunk);
+                }
+                return null;
+            });
+        }
+        invokeAll(tasks);
+    }
+
     private void fillInClassesFromCompactClassList() {
         image.smallFloatClass = lookupClassInCompactClassList(SqueakImageConstants.SMALL_FLOAT_TAG);
     }
@@ -447,57 +693,135 @@ public final class SqueakImageReader {
         }
     }
 
-    public static class AddressToChunkMap {
-        private static final int INITIAL_CAPACITY = 1_000_000;
-        private static final float THRESHOLD_PERCENTAGE = 0.75f;
-        private static final float RESIZE_FACTOR = 1.5f;
-        private static final int COLLISION_OFFSET = 31;
+    /** Object positions collected by {@link #scanObject} for parallel reading. */
+    private static final class ObjectPositions {
+        private long[] headers;
+        private int[] positions;
+        private int[] numSlots;
+        private long[] addresses;
+        private int size;
+        private int freePageListIndex = -1;
+        private int hiddenRootsIndex = -1;
+
+        private ObjectPositions(final long dataSize) {
+            final int initialCapacity = Math.max(16, estimateNumObjects(dataSize));
+            headers = new long[initialCapacity];
+            positions = new int[initialCapacity];
+            numSlots = new int[initialCapacity];
+            addresses = new long[initialCapacity];
+        }
+
+        private int add(final long header, final int position, final int slots, final long address) {
+            if (size == headers.length) {
+                final int newCapacity = size + (size >> 1);
+                headers = Arrays.copyOf(headers, newCapacity);
+                positions = Arrays.copyOf(positions, newCapacity);
+                numSlots = Arrays.copyOf(numSlots, newCapacity);
+                addresses = Arrays.copyOf(addresses, newCapacity);
+            }
+            headers[size] = header;
+            positions[size] = position;
+            numSlots[size] = slots;
+            addresses[size] = address;
+            return size++;
+        }
+    }
 
-        private int capacity = INITIAL_CAPACITY;
-        private int threshold = (int) (capacity * THRESHOLD_PERCENTAGE);
-        private long[] addresses = new long[capacity];
-        private SqueakImageChunk[] chunks = new SqueakImageChunk[capacity];
+    /**
+     * Open-addressing map from object addresses to chunks. Addresses are word-aligned and mostly
+     * consecutive, so they are mixed with a Fibonacci hash before linear probing. The map should be
+     * presized with {@link #ensureCapacity(int)} to avoid rehashing while the image is read.
+     */
+    public static final class AddressToChunkMap {
+        private static final int INITIAL_CAPACITY = 1 << 10;
+        private static final float LOAD_FACTOR = 0.5f;
+        private static final long FIBONACCI_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+        private int shift;
+        private int mask;
+        private int threshold;
+        private long[] addresses;
+        private SqueakImageChunk[] chunks;
         private int size;
 
+        public AddressToChunkMap() {
+            allocate(INITIAL_CAPACITY);
+        }
+
+        /** Makes room for at least {@code expectedSize} entries without further resizing. */
+        public void ensureCapacity(final int expectedSize) {
+            final int capacity = capacityFor(expectedSize);
+            if (capacity > chunks.length) {
+                LogUtils.READER.log(Level.FINE, "Resizing chunk map to {0}", capacity);
+                rehash(capacity);
+            }
+        }
+
         public void put(final long address, final SqueakImageChunk chunk) {
-            if (size > threshold) {
-                resize();
+            assert chunk != null;
+            if (size >= threshold) {
+                ensureCapacity(size + 1);
             }
-            int slot = (int) (address % capacity);
-            while (true) {
-                if (chunks[slot] == null) {
-                    addresses[slot] = address;
+            int slot = slotFor(address);
+            while (chunks[slot] != null) {
+                if (addresses[slot] == address) {
                     chunks[slot] = chunk;
-                    size++;
                     return;
                 }
-                slot = (slot + COLLISION_OFFSET) % capacity;
+                slot = slot + 1 & mask;
             }
+            addresses[slot] = address;
+            chunks[slot] = chunk;
+            size++;
         }
 
         public SqueakImageChunk get(final long address) {
-            int slot = (int) (address % capacity);
-            while (true) {
+            int slot = slotFor(address);
+            SqueakImageChunk chunk;
+            while ((chunk = chunks[slot]) != null) {
                 if (addresses[slot] == address) {
-                    return chunks[slot];
+                    return chunk;
                 }
-                slot = (slot + COLLISION_OFFSET) % capacity;
+                slot = slot + 1 & mask;
             }
+            return null;
+        }
+
+        public int size() {
+            return size;
         }
 
         private SqueakImageChunk[] getChunks() {
             return chunks;
         }
 
-        private void resize() {
-            capacity = (int) (capacity * RESIZE_FACTOR);
-            threshold = (int) (capacity * THRESHOLD_PERCENTAGE);
-            LogUtils.READER.log(Level.FINE, "Resizing chunk map to {0}", capacity);
-            final long[] oldAddresses = addresses;
-            final SqueakImageChunk[] oldChunks = chunks;
+        private int slotFor(final long address) {
+            /* Drop the alignment bits, then take the high bits of the Fibonacci product. */
+            return (int) ((address >>> 3) * FIBONACCI_MULTIPLIER >>> shift);
+        }
+
+        private static int capacityFor(final int expectedSize) {
+            final long minCapacity = Math.max(INITIAL_CAPACITY, (long) Math.ceil(expectedSize / LOAD_FACTOR));
+            if (minCapacity > 1 << 30) {
+                throw SqueakException.create("Too many objects in image:", expectedSize);
+            }
+            return Integer.highestOneBit((int) minCapacity - 1) << 1;
+        }
+
+        private void allocate(final int capacity) {
+            assert Integer.bitCount(capacity) == 1 : "Capacity must be a power of two";
+            shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+            mask = capacity - 1;
+            threshold = (int) (capacity * LOAD_FACTOR);
             addresses = new long[capacity];
             chunks = new SqueakImageChunk[capacity];
             size = 0;
+        }
+
+        private void rehash(final int newCapacity) {
+            final long[] oldAddresses = addresses;
+            final SqueakImageChunk[] oldChunks = chunks;
+            allocate(newCapacity);
             for (int i = 0; i < oldChunks.length; i++) {
                 final SqueakImageChunk chunk = oldChunks[i];
                 if (chunk != null) {
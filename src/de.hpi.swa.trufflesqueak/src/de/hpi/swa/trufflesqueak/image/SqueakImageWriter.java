@@ -6,18 +6,27 @@
  */
 package de.hpi.swa.trufflesqueak.image;
 
-import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
-import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.collections.UnmodifiableEconomicMap;
+
+import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.TruffleFile;
 
@@ -38,21 +47,44 @@ import de.hpi.swa.trufflesqueak.nodes.plugins.LargeIntegers;
 import de.hpi.swa.trufflesqueak.util.LogUtils;
 import de.hpi.swa.trufflesqueak.util.MiscUtils;
 import de.hpi.swa.trufflesqueak.util.ObjectGraphUtils;
-import de.hpi.swa.trufflesqueak.util.VarHandleUtils;
 
+/**
+ * Writes the object graph as a Spur image. Objects are first traced and assigned oops. Afterward,
+ * consecutive ranges of objects are serialized in parallel into segment buffers, each written by a
+ * segment writer, and the buffers are appended to the file in order after each round.
+ * Boxed objects that are only allocated while writing (large integers and boxed floats) are appended
+ * after all traced objects, and their oops are patched into the segment buffers before they are
+ * written out.
+ */
 public final class SqueakImageWriter {
+    private static final int SEGMENT_SIZE = 4 * 1024 * 1024; /* bytes */
+    static final int WRITER_THREAD_COUNT = Math.min(Runtime.getRuntime().availableProcessors(), 4);
+
+    static final String DELTA_FILE_EXTENSION = ".delta";
+    static final int DELTA_MAGIC = 0x44515354; /* "TSQD" */
+    static final int DELTA_VERSION = 1;
+    static final int DELTA_HEADER_SIZE = 4 * Integer.BYTES + 4 * Long.BYTES;
+
     private final SqueakImageContext image;
+
+    /* Tracing state (root writer only). */
     private final NativeObject freeList;
-    private final BufferedOutputStream stream;
-    private final byte[] byteArrayBuffer = new byte[Long.BYTES];
-    private final HashMap<AbstractSqueakObjectWithHash, Long> oopMap = new HashMap<>(ObjectGraphUtils.getLastSeenObjects());
-    private final ArrayList<AbstractSqueakObjectWithHash> allTracedObjects = new ArrayList<>(ObjectGraphUtils.getLastSeenObjects());
-    private final ArrayDeque<AbstractSqueakObjectWithHash> traceQueue = new ArrayDeque<>();
-    private final ArrayList<AbstractSqueakObjectWithHash> additionalBoxedObjects = new ArrayList<>();
-
-    private long position;
+    private final OopMap oopMap;
+    private final ArrayList<AbstractSqueakObjectWithHash> allTracedObjects;
+    private final ArrayDeque<AbstractSqueakObjectWithHash> traceQueue;
     private long nextChunk;
+    private long nextChunkAfterFirstObjects;
     private long nextChunkAfterTracing;
+    private long nextChunkAfterWriting;
+
+    /* Delta checkpoint state (root writer only). */
+    private final SaveState previousSave;
+    private final boolean recordChecksums;
+    private boolean keepPreviousOops;
+    private long numDeltaRecords;
+    /* Oops of boxed objects by value, so that delta checkpoints do not box unchanged values again. */
+    private final EconomicMap<Object, Long> boxedOops;
+    private final UnmodifiableEconomicMap<Object, Long> previousBoxedOops;
 
     private long nilOop;
     private long falseOop;
@@ -61,11 +93,61 @@ public final class SqueakImageWriter {
     private long freeListOop;
     private long hiddenRootsOop;
 
-    private SqueakImageWriter(final SqueakImageContext image) throws IOException {
+    /* Output state (segment writers only). */
+    private final ByteBuffer buffer;
+    private final long bufferStart;
+    private final boolean isSequential;
+    private int[] objectEnds;
+    private int numObjectsWritten;
+    private final ArrayList<AbstractSqueakObjectWithHash> boxedObjects;
+    private final ArrayList<Object> boxedValues;
+    private long boxedObjectsSize;
+    private int[] boxedFixupPositions;
+    private long[] boxedFixupOffsets;
+    private int numBoxedFixups;
+
+    private SqueakImageWriter(final SqueakImageContext image, final SaveState previousSave) {
         this.image = image;
-        final TruffleFile truffleFile = image.env.getPublicTruffleFile(image.getImagePath());
-        stream = new BufferedOutputStream(truffleFile.newOutputStream());
+        this.previousSave = previousSave;
+        recordChecksums = previousSave != null || image.options.imageDeltaCheckpoints();
         freeList = NativeObject.newNativeLongs(image.nilClass /* ignored */, SqueakImageConstants.NUM_FREE_LISTS);
+        oopMap = new OopMap(ObjectGraphUtils.getLastSeenObjects());
+        allTracedObjects = new ArrayList<>(ObjectGraphUtils.getLastSeenObjects());
+        traceQueue = new ArrayDeque<>();
+        previousBoxedOops = previousSave == null ? null : previousSave.boxedOops;
+        boxedOops = previousSave == null ? EconomicMap.create() : EconomicMap.create(previousSave.boxedOops);
+        buffer = null;
+        bufferStart = 0;
+        isSequential = true;
+        boxedObjects = null;
+        boxedValues = null;
+    }
+
+    private SqueakImageWriter(final SqueakImageWriter root, final long bufferStart, final int bufferSize) {
+        image = root.image;
+        freeList = root.freeList;
+        oopMap = root.oopMap;
+        allTracedObjects = null;
+        traceQueue = null;
+        previousSave = null;
+        recordChecksums = false;
+        boxedOops = null;
+        previousBoxedOops = root.previousBoxedOops;
+        nilOop = root.nilOop;
+        falseOop = root.falseOop;
+        trueOop = root.trueOop;
+        specialObjectOop = root.specialObjectOop;
+        freeListOop = root.freeListOop;
+        hiddenRootsOop = root.hiddenRootsOop;
+        buffer = ByteBuffer.allocate(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+        this.bufferStart = bufferStart;
+        /* Oops of delta checkpoints do not follow the position of objects. */
+        isSequential = root.previousSave == null;
+        objectEnds = new int[16];
+        boxedObjects = new ArrayList<>();
+        boxedValues = new ArrayList<>();
+        boxedFixupPositions = new int[8];
+        boxedFixupOffsets = new long[8];
     }
 
     /*
@@ -73,44 +155,157 @@ public final class SqueakImageWriter {
      */
     @TruffleBoundary
     public static void write(final SqueakImageContext image, final ContextObject thisContext) {
+        /* An asynchronous file write may still be writing the same image file. */
+        image.waitForImageFileWrite();
         try {
-            new SqueakImageWriter(image).run(thisContext);
+            new SqueakImageWriter(image, null).run(thisContext);
         } catch (final IOException e) {
             LogUtils.IMAGE.log(Level.WARNING, "Failed to write image", e);
         }
     }
 
+    /**
+     * Saves the image like {@link #write}, but only the file write runs on a separate thread. The VM
+     * is stopped while the whole object graph is traced and serialized into memory, so the pause is
+     * only shorter than a regular save by the time spent on file I/O. The serialized image is held in
+     * memory until it has been written. The external semaphore with the given index (if positive) is
+     * signaled once the image file is complete. Returns false if a previous file write is still in
+     * progress.
+     */
+    @TruffleBoundary
+    public static boolean writeWithAsyncFileWrite(final SqueakImageContext image, final ContextObject thisContext, final int semaphoreIndex) {
+        if (image.isImageFileWriteInProgress()) {
+            return false;
+        }
+        final long start = MiscUtils.currentTimeMillis();
+        /* Resolve the file on the VM thread, the writer thread only writes to it. */
+        final TruffleFile imageFile = image.env.getPublicTruffleFile(image.getImagePath());
+        final ArrayList<ByteBuffer> segments = new ArrayList<>();
+        final long fileSize;
+        try {
+            /* The base of delta checkpoints must be on disk, so asynchronous writes reset it. */
+            image.setImageSaveState(null);
+            fileSize = new SqueakImageWriter(image, null).capture(thisContext, buffers -> segments.addAll(Arrays.asList(buffers)));
+        } catch (final IOException e) {
+            throw CompilerDirectives.shouldNotReachHere("In-memory capture does not perform I/O", e);
+        }
+        final ByteBuffer firstSegment = segments.get(0);
+        firstSegment.putLong(SqueakImageConstants.IMAGE_HEADER_MEMORY_SIZE_POSITION, fileSize - SqueakImageConstants.IMAGE_HEADER_SIZE);
+        firstSegment.putLong(SqueakImageConstants.IMAGE_HEADER_FIRST_FRAGMENT_SIZE_POSITION, fileSize - SqueakImageConstants.IMAGE_HEADER_SIZE);
+        LogUtils.IMAGE.fine(() -> "Image captured in " + (MiscUtils.currentTimeMillis() - start) + "ms, writing asynchronously.");
+        final Thread writerThread = new Thread(() -> {
+            try (SeekableByteChannel channel = openForWriting(imageFile)) {
+                writeFully(channel, segments.toArray(new ByteBuffer[0]));
+                LogUtils.IMAGE.fine(() -> "Image file written asynchronously in " + (MiscUtils.currentTimeMillis() - start) + "ms.");
+            } catch (final IOException e) {
+                LogUtils.IMAGE.log(Level.WARNING, "Failed to write image", e);
+            } finally {
+                if (semaphoreIndex > 0) {
+                    image.interrupt.signalSemaphoreWithIndex(semaphoreIndex);
+                }
+            }
+        }, "TruffleSqueakImageFileWriter");
+        image.setPendingImageFileWrite(writerThread);
+        writerThread.start();
+        return true;
+    }
+
+    /**
+     * Writes a delta checkpoint that only contains objects that were created or changed since the
+     * last full or delta save. Returns false if there is no full save to build upon. Objects are
+     * marked dirty when their slots are written or rewritten by a become. All objects of previous
+     * saves are strongly referenced by the {@link SaveState} and therefore pinned in memory until
+     * the next full save, even if the image no longer references them.
+     */
+    @TruffleBoundary
+    public static boolean writeDelta(final SqueakImageContext image, final ContextObject thisContext) {
+        final SaveState previousSave = image.getImageSaveState();
+        if (previousSave == null) {
+            return false;
+        }
+        try {
+            new SqueakImageWriter(image, previousSave).runDelta(thisContext);
+        } catch (final IOException e) {
+            LogUtils.IMAGE.log(Level.WARNING, "Failed to write delta checkpoint", e);
+        }
+        return true;
+    }
+
+    static TruffleFile deltaFileFor(final SqueakImageContext image, final int sequence) {
+        return image.env.getPublicTruffleFile(image.getImagePath() + DELTA_FILE_EXTENSION + sequence);
+    }
+
     public SqueakImageContext getImage() {
         return image;
     }
 
     private void run(final ContextObject thisContext) throws IOException {
         final long start = MiscUtils.currentTimeMillis();
+        final long fileSize;
+        final TruffleFile imageFile = image.env.getPublicTruffleFile(image.getImagePath());
+        try (SeekableByteChannel channel = openForWriting(imageFile)) {
+            fileSize = capture(thisContext, buffers -> writeFully(channel, buffers));
+            finalizeImageHeader(channel, fileSize);
+        }
+        /* Delta checkpoints of the previous image no longer apply. */
+        for (int sequence = 1;; sequence++) {
+            final TruffleFile deltaFile = deltaFileFor(image, sequence);
+            if (!deltaFile.exists()) {
+                break;
+            }
+            deltaFile.delete();
+            LogUtils.IMAGE.fine("Removed outdated delta checkpoint " + sequence);
+        }
+        if (recordChecksums) {
+            image.setImageSaveState(new SaveState(oopMap, boxedOops, nextChunkAfterWriting, 0, imageFile.size(), imageFile.getLastModifiedTime().toMillis()));
+        }
+        final double fileSizeMiB = Math.ceil((double) fileSize / 1024 / 1024 * 100) / 100;
+        LogUtils.IMAGE.fine(() -> "Image saved in " + (MiscUtils.currentTimeMillis() - start) + "ms (" + fileSizeMiB + "MiB).");
+    }
+
+    private void runDelta(final ContextObject thisContext) throws IOException {
+        final long start = MiscUtils.currentTimeMillis();
+        final int sequence = previousSave.deltaSequence + 1;
+        final long fileSize;
+        try (SeekableByteChannel channel = openForWriting(deltaFileFor(image, sequence))) {
+            channel.position(DELTA_HEADER_SIZE);
+            fileSize = DELTA_HEADER_SIZE + capture(thisContext, buffers -> writeFully(channel, buffers));
+            final ByteBuffer header = ByteBuffer.allocate(DELTA_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(DELTA_MAGIC).putInt(DELTA_VERSION).putInt(image.imageFormat).putInt(sequence);
+            header.putLong(previousSave.baseSize).putLong(previousSave.baseModified);
+            header.putLong(specialObjectOop).putLong(numDeltaRecords);
+            writeFully(channel.position(0), header.flip());
+        }
+        image.setImageSaveState(new SaveState(oopMap, boxedOops, nextChunkAfterWriting, sequence, previousSave.baseSize, previousSave.baseModified));
+        LogUtils.IMAGE.fine(() -> "Delta checkpoint " + sequence + " with " + numDeltaRecords + " objects saved in " + (MiscUtils.currentTimeMillis() - start) + "ms (" + fileSize + " bytes).");
+    }
+
+    private static SeekableByteChannel openForWriting(final TruffleFile file) throws IOException {
+        return file.newByteChannel(EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    /* Traces and serializes all objects into the sink and returns the size of the image file. */
+    private long capture(final ContextObject thisContext, final SegmentSink sink) throws IOException {
         nextChunk = image.flags.getOldBaseAddress();
         final PointersObject activeProcess = image.getActiveProcessSlow();
         try {
             /* Mark thisContext as suspended during tracing and writing. */
             AbstractPointersObjectWriteNode.executeUncached(activeProcess, PROCESS.SUSPENDED_CONTEXT, thisContext);
             traceObjects();
-            writeImageHeader();
-            writeBody();
+            return writeSegments(sink);
         } finally {
             /* Unmark thisContext as suspended. */
             AbstractPointersObjectWriteNode.executeUncached(activeProcess, PROCESS.SUSPENDED_CONTEXT, NilObject.SINGLETON);
-            closeStream();
-            finalizeImageHeader();
         }
-        final double fileSize = Math.ceil((double) position / 1024 / 1024 * 100) / 100;
-        LogUtils.IMAGE.fine(() -> "Image saved in " + (MiscUtils.currentTimeMillis() - start) + "ms (" + fileSize + "MiB).");
     }
 
     private void writeImageHeader() {
-        assert position == 0 && image.imageFormat != 0;
+        assert position() == 0 && image.imageFormat != 0;
         /* Write basic header. */
         writeInt(image.imageFormat);
         writeInt(SqueakImageConstants.IMAGE_HEADER_SIZE); // hdr size
-        assert position == SqueakImageConstants.IMAGE_HEADER_MEMORY_SIZE_POSITION;
-        writeLong(0); // memory size (yet unknown, see finalizeFileHeader)
+        assert position() == SqueakImageConstants.IMAGE_HEADER_MEMORY_SIZE_POSITION;
+        writeLong(0); // memory size (yet unknown, see finalizeImageHeader)
         writeLong(image.flags.getOldBaseAddress()); // oldBaseAddress
         writeLong(specialObjectOop);
         writeLong(0xffee); // last hash
@@ -121,10 +316,10 @@ public final class SqueakImageWriter {
         writeInt(0); // (num stack pages << 16) | cog code size
         writeInt(0); // eden bytes
         writeInt(0); // max ext semaphore size << 16
-        assert position == SqueakImageConstants.IMAGE_HEADER_FIRST_FRAGMENT_SIZE_POSITION;
-        writeLong(0); // first segment size (yet unknown, see finalizeFileHeader)
+        assert position() == SqueakImageConstants.IMAGE_HEADER_FIRST_FRAGMENT_SIZE_POSITION;
+        writeLong(0); // first segment size (yet unknown, see finalizeImageHeader)
         writeLong(0); // free old space in image
-        writePadding((int) (SqueakImageConstants.IMAGE_HEADER_SIZE - position)); /* Skip to body. */
+        writePadding((int) (SqueakImageConstants.IMAGE_HEADER_SIZE - position())); /* Skip to body. */
     }
 
     private void traceObjects() {
@@ -143,7 +338,16 @@ public final class SqueakImageWriter {
          * individually.
          */
         allTracedObjects.clear();
+        nextChunkAfterFirstObjects = nextChunk;
+        if (previousSave != null) {
+            /* Known objects keep their oops, new objects are allocated after all previous ones. */
+            keepPreviousOops = true;
+            nextChunk = previousSave.nextChunk;
+        }
         specialObjectOop = reserve(image.specialObjectsArray);
+        if (previousSave != null && previousSave.oops.isStillValid(nextChunkAfterFirstObjects)) {
+            reservePreviousObjects();
+        }
 
         AbstractSqueakObjectWithHash currentObject;
         while ((currentObject = traceQueue.pollFirst()) != null) {
@@ -152,6 +356,26 @@ public final class SqueakImageWriter {
         nextChunkAfterTracing = nextChunk;
     }
 
+    /*
+     * Objects only become reachable through objects that changed since the last save. Therefore,
+     * delta checkpoints start tracing from all previously saved objects that may have changed.
+     * Unmodified pointers objects (see AbstractPointersObject#markDirty) keep their oop and checksum
+     * and are neither traced nor serialized again. All other objects are compared by checksum.
+     */
+    private void reservePreviousObjects() {
+        final OopMap previousOops = previousSave.oops;
+        for (int i = 0; i < previousOops.keys.length; i++) {
+            if (previousOops.keys[i] instanceof final AbstractSqueakObjectWithHash object && previousOops.values[i] >= nextChunkAfterFirstObjects && !oopMap.containsKey(object)) {
+                if (object instanceof final PointersObject o && !o.isDirty()) {
+                    oopMap.put(object, previousOops.values[i], previousOops.numSlots[i]);
+                    oopMap.putChecksum(object, previousOops.checksums[i]);
+                } else {
+                    reserve(object);
+                }
+            }
+        }
+    }
+
     public void traceIfNecessary(final AbstractSqueakObjectWithHash object) {
         if (object != null && !oopMap.containsKey(object)) {
             reserve(object);
@@ -170,8 +394,152 @@ public final class SqueakImageWriter {
         }
     }
 
-    private void writeBody() {
-        assert position == SqueakImageConstants.IMAGE_HEADER_SIZE;
+    /*
+     * Writes all segments and returns the number of bytes written. For delta checkpoints, only
+     * records of new and changed objects are written.
+     */
+    private long writeSegments(final SegmentSink sink) throws IOException {
+        final int firstSegmentSize = SqueakImageConstants.IMAGE_HEADER_SIZE + (int) (nextChunkAfterFirstObjects - image.flags.getOldBaseAddress());
+        final SqueakImageWriter firstSegment = new SqueakImageWriter(this, 0, firstSegmentSize);
+        firstSegment.writeImageHeader();
+        firstSegment.writeFirstObjects();
+        assert firstSegment.boxedObjects.isEmpty() : "First objects must not need boxing";
+        long bytesWritten;
+        if (previousSave == null) {
+            sink.write(firstSegment.finish());
+            bytesWritten = firstSegmentSize;
+        } else {
+            /* The class table may have grown, so always record the hidden roots. */
+            final int hiddenRootsStart = (int) (SqueakImageConstants.IMAGE_HEADER_SIZE + hiddenRootsOop - SqueakImageConstants.WORD_SIZE - image.flags.getOldBaseAddress());
+            final ArrayList<ByteBuffer> records = new ArrayList<>();
+            bytesWritten = addDeltaRecord(records, hiddenRootsOop, firstSegment.buffer, hiddenRootsStart, firstSegmentSize);
+            sink.write(records.toArray(new ByteBuffer[0]));
+        }
+        long filePosition = firstSegmentSize;
+
+        final ArrayList<AbstractSqueakObjectWithHash> allBoxedObjects = new ArrayList<>();
+        final ArrayList<Object> allBoxedValues = new ArrayList<>();
+        long nextBoxedOop = nextChunkAfterTracing;
+        final ExecutorService executor = image.getImageWriterPool();
+        final int numObjects = allTracedObjects.size();
+        int index = 0;
+        while (index < numObjects) {
+            /* Serialize up to one segment per thread, then append them all at once. */
+            final SqueakImageWriter[] segments = new SqueakImageWriter[Math.min(WRITER_THREAD_COUNT, numObjects - index)];
+            final List<Callable<Void>> tasks = new ArrayList<>(segments.length);
+            int numSegments = 0;
+            while (numSegments < segments.length && index < numObjects) {
+                final int from = index;
+                long segmentSize = 0;
+                do {
+                    segmentSize += chunkSize(allTracedObjects.get(index++));
+                } while (index < numObjects && segmentSize + chunkSize(allTracedObjects.get(index)) <= SEGMENT_SIZE);
+                final int to = index;
+                final SqueakImageWriter segment = new SqueakImageWriter(this, filePosition, MiscUtils.toIntExact(segmentSize));
+                filePosition += segmentSize;
+                segments[numSegments++] = segment;
+                tasks.add(() -> {
+                    for (int i = from; i < to; i++) {
+                        segment.writeTracedObject(allTracedObjects.get(i));
+                    }
+                    return null;
+                });
+            }
+            invokeAll(executor, tasks);
+            final ArrayList<ByteBuffer> buffers = new ArrayList<>(numSegments);
+            int objectIndex = index - countObjects(segments, numSegments);
+            for (int i = 0; i < numSegments; i++) {
+                final SqueakImageWriter segment = segments[i];
+                nextBoxedOop = segment.resolveBoxedObjects(nextBoxedOop);
+                allBoxedObjects.addAll(segment.boxedObjects);
+                allBoxedValues.addAll(segment.boxedValues);
+                segment.finish();
+                if (recordChecksums) {
+                    /* Checksums must be computed after boxed oops have been patched in. */
+                    int start = 0;
+                    for (int j = 0; j < segment.numObjectsWritten; j++) {
+                        final AbstractSqueakObjectWithHash object = allTracedObjects.get(objectIndex++);
+                        final int end = segment.objectEnds[j];
+                        final long checksum = checksum(segment.buffer, start, end);
+                        if (previousSave != null && previousSave.oops.getChecksum(object) != checksum) {
+                            bytesWritten += addDeltaRecord(buffers, oopMap.get(object), segment.buffer, start, end);
+                        }
+                        oopMap.putChecksum(object, checksum);
+                        object.clearDirtyBit();
+                        start = end;
+                    }
+                }
+                if (previousSave == null) {
+                    buffers.add(segment.buffer);
+                    bytesWritten += segment.buffer.limit();
+                }
+            }
+            sink.write(buffers.toArray(new ByteBuffer[0]));
+        }
+        nextChunkAfterWriting = nextBoxedOop;
+
+        /* Write additional large integers and boxed floats, followed by the last bridge. */
+        final long boxedObjectsSize = nextBoxedOop - nextChunkAfterTracing;
+        final int bridgeSize = previousSave == null ? SqueakImageConstants.IMAGE_BRIDGE_SIZE : 0;
+        final SqueakImageWriter lastSegment = new SqueakImageWriter(this, filePosition, MiscUtils.toIntExact(boxedObjectsSize + bridgeSize));
+        for (final AbstractSqueakObjectWithHash value : allBoxedObjects) {
+            assert value.assertNotForwarded();
+            value.write(lastSegment);
+            lastSegment.addObjectEnd();
+        }
+        assert lastSegment.boxedObjects.isEmpty() && (previousSave != null || lastSegment.currentOop() == nextBoxedOop);
+        lastSegment.writePadding(bridgeSize);
+        lastSegment.finish();
+        /* Boxed objects are always new, values boxed by previous saves reuse their oops. */
+        final ArrayList<ByteBuffer> records = new ArrayList<>();
+        int start = 0;
+        for (int j = 0; j < lastSegment.numObjectsWritten; j++) {
+            final int end = lastSegment.objectEnds[j];
+            final boolean hasOverflowHeader = lastSegment.buffer.getLong(start) >>> 56 == SqueakImageConstants.OVERFLOW_SLOTS;
+            final long oop = nextChunkAfterTracing + start + (hasOverflowHeader ? SqueakImageConstants.WORD_SIZE : 0);
+            if (recordChecksums) {
+                boxedOops.put(allBoxedValues.get(j), oop);
+            }
+            if (previousSave != null) {
+                bytesWritten += addDeltaRecord(records, oop, lastSegment.buffer, start, end);
+            }
+            start = end;
+        }
+        if (previousSave == null) {
+            sink.write(lastSegment.buffer);
+            return bytesWritten + lastSegment.buffer.limit();
+        } else {
+            sink.write(records.toArray(new ByteBuffer[0]));
+            return bytesWritten;
+        }
+    }
+
+    private static int countObjects(final SqueakImageWriter[] segments, final int numSegments) {
+        int count = 0;
+        for (int i = 0; i < numSegments; i++) {
+            count += segments[i].numObjectsWritten;
+        }
+        return count;
+    }
+
+    /* A delta record consists of the oop and size of an object, followed by its Spur chunk. */
+    private long addDeltaRecord(final List<ByteBuffer> records, final long oop, final ByteBuffer segmentBuffer, final int start, final int end) {
+        records.add(ByteBuffer.allocate(2 * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(oop).putLong(end - start).flip());
+        records.add(segmentBuffer.slice(start, end - start));
+        numDeltaRecords++;
+        return 2 * Long.BYTES + end - start;
+    }
+
+    private static long checksum(final ByteBuffer buffer, final int start, final int end) {
+        long hash = end - start;
+        for (int i = start; i < end; i += Long.BYTES) {
+            hash = Long.rotateLeft(hash ^ buffer.getLong(i) * 0x9E3779B97F4A7C15L, 31) * 0xC2B2AE3D27D4EB4FL;
+        }
+        return hash;
+    }
+
+    private void writeFirstObjects() {
+        assert position() == SqueakImageConstants.IMAGE_HEADER_SIZE;
         NilObject.SINGLETON.write(this);
         assert currentOop() == falseOop;
         BooleanObject.write(this, false);
@@ -183,23 +551,20 @@ public final class SqueakImageWriter {
         assert currentOop() == hiddenRootsOop - SqueakImageConstants.WORD_SIZE;
         image.getHiddenRoots().writeAsHiddenRoots(this);
         assert currentOop() == specialObjectOop : "First objects not written correctly";
-        AbstractSqueakObjectWithHash previousObject = image.getHiddenRoots();
-        for (final AbstractSqueakObjectWithHash currentObject : allTracedObjects) {
-            assert correctPosition(currentObject) : "Previous object was not written correctly: " + previousObject;
-            assert currentObject.assertNotForwarded();
-            currentObject.write(this);
-            previousObject = currentObject;
-        }
-        assert currentOop() == nextChunkAfterTracing;
-        /* Write additional large integers and boxed floats. */
-        for (final AbstractSqueakObjectWithHash value : additionalBoxedObjects) {
-            assert value.assertNotForwarded();
-            value.write(this);
-        }
-        assert currentOop() == nextChunk;
+    }
 
-        /* Write last bridge. */
-        writePadding(SqueakImageConstants.IMAGE_BRIDGE_SIZE);
+    private void writeTracedObject(final AbstractSqueakObjectWithHash object) {
+        assert !isSequential || correctPosition(object) : "Previous object was not written correctly: " + object;
+        assert object.assertNotForwarded();
+        object.write(this);
+        addObjectEnd();
+    }
+
+    private void addObjectEnd() {
+        if (numObjectsWritten == objectEnds.length) {
+            objectEnds = Arrays.copyOf(objectEnds, numObjectsWritten * 2);
+        }
+        objectEnds[numObjectsWritten++] = buffer.position();
     }
 
     private boolean correctPosition(final AbstractSqueakObjectWithHash currentObject) {
@@ -207,28 +572,75 @@ public final class SqueakImageWriter {
         return currentOop() + offset == oopMap.get(currentObject);
     }
 
+    /* Patches the oops of boxed objects allocated by this segment and returns the next free oop. */
+    private long resolveBoxedObjects(final long firstBoxedOop) {
+        for (int i = 0; i < numBoxedFixups; i++) {
+            buffer.putLong(boxedFixupPositions[i], firstBoxedOop + boxedFixupOffsets[i]);
+        }
+        return firstBoxedOop + boxedObjectsSize;
+    }
+
+    private ByteBuffer finish() {
+        assert !buffer.hasRemaining() : "Segment not written correctly";
+        return buffer.flip();
+    }
+
+    @FunctionalInterface
+    private interface SegmentSink {
+        void write(ByteBuffer... buffers) throws IOException;
+    }
+
+    private static void invokeAll(final ExecutorService executor, final List<Callable<Void>> tasks) {
+        try {
+            for (final Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (final ExecutionException e) {
+            throw SqueakException.create("Failed to write image:", e.getCause());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw SqueakException.create("Image writing was interrupted:", e);
+        }
+    }
+
+    private static void writeFully(final SeekableByteChannel channel, final ByteBuffer... buffers) throws IOException {
+        for (final ByteBuffer b : buffers) {
+            while (b.hasRemaining()) {
+                channel.write(b);
+            }
+        }
+    }
+
     /*
      * Memory size and first fragment size (the same value in TruffleSqueak's case) are unknown when
      * the image header is written. This updates both values in the header accordingly.
      */
-    private void finalizeImageHeader() throws IOException {
-        final TruffleFile truffleFile = image.env.getPublicTruffleFile(image.getImagePath());
-        assert truffleFile.exists();
-        final EnumSet<StandardOpenOption> options = EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.READ);
-        try (SeekableByteChannel channel = truffleFile.newByteChannel(options)) {
-            VarHandleUtils.putLong(byteArrayBuffer, 0, position - SqueakImageConstants.IMAGE_HEADER_SIZE);
-            channel.position(SqueakImageConstants.IMAGE_HEADER_MEMORY_SIZE_POSITION);
-            channel.write(ByteBuffer.wrap(byteArrayBuffer));
-            channel.position(SqueakImageConstants.IMAGE_HEADER_FIRST_FRAGMENT_SIZE_POSITION);
-            channel.write(ByteBuffer.wrap(byteArrayBuffer));
-        }
+    private static void finalizeImageHeader(final SeekableByteChannel channel, final long fileSize) throws IOException {
+        final ByteBuffer sizeBuffer = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        sizeBuffer.putLong(0, fileSize - SqueakImageConstants.IMAGE_HEADER_SIZE);
+        writeFully(channel.position(SqueakImageConstants.IMAGE_HEADER_MEMORY_SIZE_POSITION), sizeBuffer);
+        writeFully(channel.position(SqueakImageConstants.IMAGE_HEADER_FIRST_FRAGMENT_SIZE_POSITION), sizeBuffer.rewind());
+    }
+
+    private long position() {
+        return bufferStart + buffer.position();
     }
 
     private long currentOop() {
-        return image.flags.getOldBaseAddress() + position - SqueakImageConstants.IMAGE_HEADER_SIZE;
+        return image.flags.getOldBaseAddress() + position() - SqueakImageConstants.IMAGE_HEADER_SIZE;
+    }
+
+    private static int chunkSize(final AbstractSqueakObjectWithHash object) {
+        final int numSlots = object.getNumSlots();
+        final int headerSlots = numSlots < SqueakImageConstants.OVERFLOW_SLOTS ? 1 : 2;
+        return (headerSlots + Math.max(numSlots, 1 /* at least an alignment word */)) * SqueakImageConstants.WORD_SIZE;
     }
 
-    public long toWord(final Object object) {
+    /*
+     * The oop of a boxed object is only known once all preceding segments are done. The returned
+     * word is therefore a placeholder that must be written next, so that it can be patched later.
+     */
+    private long toWord(final Object object) {
         assert object != null;
         if (object == NilObject.SINGLETON) {
             return nilOop;
@@ -243,8 +655,8 @@ public final class SqueakImageWriter {
         } else if (object instanceof final Double d) {
             return toTaggedSmallFloat(d);
         } else if (object instanceof final AbstractSqueakObjectWithHash aso) {
-            final Long oop = oopMap.get(aso);
-            if (oop != null) {
+            final long oop = oopMap.get(aso);
+            if (oop != OopMap.MISSING) {
                 return oop;
             } else {
                 LogUtils.IMAGE.warning(() -> "Unreserved object detected: " + aso + ". Replacing with nil.");
@@ -260,13 +672,19 @@ public final class SqueakImageWriter {
     private long reserve(final AbstractSqueakObjectWithHash object) {
         assert object.assertNotForwarded();
         final int numSlots = object.getNumSlots();
-        final int headerSlots = numSlots < SqueakImageConstants.OVERFLOW_SLOTS ? 1 : 2;
-        final int offset = (headerSlots - 1) * SqueakImageConstants.WORD_SIZE;
-        final long oop = nextChunk + offset;
-        nextChunk += (headerSlots + Math.max(numSlots, 1 /* at least an alignment word */)) * SqueakImageConstants.WORD_SIZE;
+        final long oop;
+        if (keepPreviousOops && previousSave.oops.getNumSlots(object) == numSlots) {
+            /* Objects that changed their size (e.g., due to become) cannot stay in place. */
+            oop = previousSave.oops.get(object);
+        } else {
+            final int headerSlots = numSlots < SqueakImageConstants.OVERFLOW_SLOTS ? 1 : 2;
+            final int offset = (headerSlots - 1) * SqueakImageConstants.WORD_SIZE;
+            oop = nextChunk + offset;
+            nextChunk += (headerSlots + Math.max(numSlots, 1 /* at least an alignment word */)) * SqueakImageConstants.WORD_SIZE;
+        }
 
         assert !oopMap.containsKey(object);
-        oopMap.put(object, oop);
+        oopMap.put(object, oop, numSlots);
         allTracedObjects.add(object);
         traceQueue.addLast(object);
 
@@ -274,64 +692,56 @@ public final class SqueakImageWriter {
     }
 
     private long reserveLargeInteger(final long value) {
-        return reserveBoxedObject(LargeIntegers.toNativeObject(image, BigInteger.valueOf(value)));
+        final Long boxedValue = value;
+        final long previousOop = getPreviousBoxedOop(boxedValue);
+        return previousOop != OopMap.MISSING ? previousOop : reserveBoxedObject(boxedValue, LargeIntegers.toNativeObject(image, BigInteger.valueOf(value)));
     }
 
     private long reserveBoxedFloat(final double value) {
-        return reserveBoxedObject(new FloatObject(value));
+        final Double boxedValue = value;
+        final long previousOop = getPreviousBoxedOop(boxedValue);
+        return previousOop != OopMap.MISSING ? previousOop : reserveBoxedObject(boxedValue, new FloatObject(value));
     }
 
-    private long reserveBoxedObject(final AbstractSqueakObjectWithHash object) {
-        final long oop = nextChunk;
+    private long getPreviousBoxedOop(final Object value) {
+        return previousBoxedOops == null ? OopMap.MISSING : previousBoxedOops.get(value, OopMap.MISSING);
+    }
+
+    private long reserveBoxedObject(final Object value, final AbstractSqueakObjectWithHash object) {
         final int numSlots = object.getNumSlots();
-        final int headerSlots = numSlots < 255 ? 1 : 2;
-        nextChunk += (headerSlots + numSlots) * SqueakImageConstants.WORD_SIZE /* No padding */;
-        additionalBoxedObjects.add(object);
-        return oop;
+        final int headerSlots = numSlots < SqueakImageConstants.OVERFLOW_SLOTS ? 1 : 2;
+        if (numBoxedFixups == boxedFixupPositions.length) {
+            boxedFixupPositions = Arrays.copyOf(boxedFixupPositions, numBoxedFixups * 2);
+            boxedFixupOffsets = Arrays.copyOf(boxedFixupOffsets, numBoxedFixups * 2);
+        }
+        boxedFixupPositions[numBoxedFixups] = buffer.position();
+        boxedFixupOffsets[numBoxedFixups] = boxedObjectsSize + (headerSlots - 1) * SqueakImageConstants.WORD_SIZE;
+        numBoxedFixups++;
+        boxedObjectsSize += (headerSlots + numSlots) * SqueakImageConstants.WORD_SIZE /* No padding */;
+        boxedObjects.add(object);
+        boxedValues.add(value);
+        return 0; /* Placeholder, see resolveBoxedObjects. */
     }
 
     public void writeBytes(final byte[] bytes) {
-        try {
-            stream.write(bytes);
-        } catch (final IOException e) {
-            throw SqueakException.create("Failed to write bytes:", e.getMessage());
-        }
-        position += bytes.length;
+        buffer.put(bytes);
     }
 
     public void writeShort(final short value) {
-        VarHandleUtils.putShort(byteArrayBuffer, 0, value);
-        position += writeBytesFromBuffer(Short.BYTES);
+        buffer.putShort(value);
     }
 
     public void writeInt(final int value) {
-        VarHandleUtils.putInt(byteArrayBuffer, 0, value);
-        position += writeBytesFromBuffer(Integer.BYTES);
+        buffer.putInt(value);
     }
 
     public void writeLong(final long value) {
-        VarHandleUtils.putLong(byteArrayBuffer, 0, value);
-        position += writeBytesFromBuffer(Long.BYTES);
-    }
-
-    private int writeBytesFromBuffer(final int numberOfBytes) {
-        try {
-            stream.write(byteArrayBuffer, 0, numberOfBytes);
-        } catch (final IOException e) {
-            throw SqueakException.create("Failed to write bytes:", e.getMessage());
-        }
-        return numberOfBytes;
+        buffer.putLong(value);
     }
 
     public void writePadding(final int byteLength) {
-        try {
-            for (int i = 0; i < byteLength; i++) {
-                stream.write(0);
-            }
-        } catch (final IOException e) {
-            throw SqueakException.create("Failed to write padding bytes:", e);
-        }
-        position += byteLength;
+        /* Segment buffers are zero-initialized. */
+        buffer.position(buffer.position() + byteLength);
     }
 
     public void writeObjectHeader(final long numSlots, final long identityHash, final ClassObject classObject, final long formatOffset) {
@@ -340,7 +750,6 @@ public final class SqueakImageWriter {
 
     public void writeObjectHeader(final long numSlots, final long identityHash, final long format, final long formatOffset, final long classIndex) {
         assert (format & formatOffset) == 0 : "Invalid formatOffset";
-        // TODO: turn into one operation?
         writeLong(SqueakImageConstants.ObjectHeader.getHeader(numSlots, identityHash, format | formatOffset, classIndex));
     }
 
@@ -415,11 +824,144 @@ public final class SqueakImageWriter {
         }
     }
 
-    private void closeStream() {
-        try {
-            stream.close();
-        } catch (final IOException e) {
-            throw SqueakException.create("Failed to close file:", e.getMessage());
+    /**
+     * Oops and checksums of the last full or delta save, which delta checkpoints are computed
+     * against. Also identifies the image file the delta checkpoints apply to. The oop map keeps
+     * every saved object reachable until the next full save replaces this state.
+     */
+    static final class SaveState {
+        private final OopMap oops;
+        private final UnmodifiableEconomicMap<Object, Long> boxedOops;
+        private final long nextChunk;
+        private final int deltaSequence;
+        private final long baseSize;
+        private final long baseModified;
+
+        private SaveState(final OopMap oops, final UnmodifiableEconomicMap<Object, Long> boxedOops, final long nextChunk, final int deltaSequence, final long baseSize,
+                        final long baseModified) {
+            this.oops = oops;
+            this.boxedOops = boxedOops;
+            this.nextChunk = nextChunk;
+            this.deltaSequence = deltaSequence;
+            this.baseSize = baseSize;
+            this.baseModified = baseModified;
+        }
+    }
+
+    /**
+     * Identity-keyed open-addressing map from objects to oops. It avoids boxing every oop and is
+     * only read once tracing is complete, so segment writers can share it. For delta checkpoints, it
+     * also records the size and a checksum of every serialized object.
+     */
+    private static final class OopMap {
+        private static final long MISSING = -1;
+        private static final float LOAD_FACTOR = 0.5f;
+
+        private Object[] keys;
+        private long[] values;
+        private int[] numSlots;
+        private long[] checksums;
+        private int mask;
+        private int threshold;
+        private int size;
+
+        private OopMap(final int expectedSize) {
+            allocate(Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1);
+        }
+
+        private static int hash(final Object key) {
+            final int h = System.identityHashCode(key);
+            return h ^ h >>> 16;
+        }
+
+        private boolean containsKey(final Object key) {
+            return slotOf(key) >= 0;
+        }
+
+        private long get(final Object key) {
+            final int slot = slotOf(key);
+            return slot >= 0 ? values[slot] : MISSING;
+        }
+
+        /* Returns the number of slots of the object when it was reserved, or -1 if unknown. */
+        private int getNumSlots(final Object key) {
+            final int slot = slotOf(key);
+            return slot >= 0 ? numSlots[slot] : -1;
+        }
+
+        /* Returns the checksum of the serialized object, or MISSING if unknown. */
+        private long getChecksum(final Object key) {
+            final int slot = slotOf(key);
+            return slot >= 0 ? checksums[slot] : MISSING;
+        }
+
+        private void putChecksum(final Object key, final long checksum) {
+            checksums[slotOf(key)] = checksum;
+        }
+
+        /*
+         * Returns false if a become forwarded or resized an object of the previous save. Unmodified
+         * objects may then still refer to stale oops and must be compared by checksum again.
+         */
+        private boolean isStillValid(final long firstTracedOop) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] instanceof final AbstractSqueakObjectWithHash object && values[i] >= firstTracedOop && (!object.isNotForwarded() || object.getNumSlots() != numSlots[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int slotOf(final Object key) {
+            int slot = hash(key) & mask;
+            Object current;
+            while ((current = keys[slot]) != null) {
+                if (current == key) {
+                    return slot;
+                }
+                slot = slot + 1 & mask;
+            }
+            return -1;
+        }
+
+        private void put(final Object key, final long value, final int objectNumSlots) {
+            assert value != MISSING;
+            if (size >= threshold) {
+                rehash();
+            }
+            int slot = hash(key) & mask;
+            while (keys[slot] != null) {
+                assert keys[slot] != key : "Key already present";
+                slot = slot + 1 & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            numSlots[slot] = objectNumSlots;
+            size++;
+        }
+
+        private void allocate(final int capacity) {
+            keys = new Object[capacity];
+            values = new long[capacity];
+            numSlots = new int[capacity];
+            checksums = new long[capacity];
+            mask = capacity - 1;
+            threshold = (int) (capacity * LOAD_FACTOR);
+            size = 0;
+        }
+
+        private void rehash() {
+            final Object[] oldKeys = keys;
+            final long[] oldValues = values;
+            final int[] oldNumSlots = numSlots;
+            final long[] oldChecksums = checksums;
+            allocate(oldKeys.length * 2);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    put(oldKeys[i], oldValues[i], oldNumSlots[i]);
+                    checksums[slotOf(oldKeys[i])] = oldChecksums[i];
+                }
+            }
         }
     }
 }
@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2017-2026 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2026 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.interop;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.GenerateCached;
+import com.oracle.truffle.api.dsl.GenerateInline;
+import com.oracle.truffle.api.dsl.GenerateUncached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.interop.InteropException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.InvalidArrayIndexException;
+import com.oracle.truffle.api.interop.InvalidBufferOffsetException;
+import com.oracle.truffle.api.library.Message;
+import com.oracle.truffle.api.nodes.Node;
+
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.model.AbstractSqueakObject;
+import de.hpi.swa.trufflesqueak.model.ArrayObject;
+import de.hpi.swa.trufflesqueak.model.NativeObject;
+import de.hpi.swa.trufflesqueak.model.NilObject;
+import de.hpi.swa.trufflesqueak.nodes.AbstractNode;
+import de.hpi.swa.trufflesqueak.nodes.accessing.ArrayObjectNodes.ArrayObjectReadNode;
+import de.hpi.swa.trufflesqueak.nodes.accessing.ArrayObjectNodes.ArrayObjectSizeNode;
+import de.hpi.swa.trufflesqueak.nodes.accessing.ArrayObjectNodes.ArrayObjectWriteNode;
+
+/**
+ * Answers the array messages of the {@link InteropLibrary} for {@link ArrayObject}s and the buffer
+ * and string messages for {@link NativeObject}s by accessing their storage directly, so that these
+ * messages do not need a send to the interop protocol implemented in Smalltalk. Returns
+ * {@code null} for all other messages and receivers.
+ */
+@GenerateInline
+@GenerateUncached
+@GenerateCached(false)
+public abstract class DirectInteropSendNode extends AbstractNode {
+    private static final Message HAS_ARRAY_ELEMENTS = Message.resolve(InteropLibrary.class, "hasArrayElements");
+    private static final Message GET_ARRAY_SIZE = Message.resolve(InteropLibrary.class, "getArraySize");
+    private static final Message IS_ARRAY_ELEMENT_READABLE = Message.resolve(InteropLibrary.class, "isArrayElementReadable");
+    private static final Message IS_ARRAY_ELEMENT_MODIFIABLE = Message.resolve(InteropLibrary.class, "isArrayElementModifiable");
+    private static final Message IS_ARRAY_ELEMENT_INSERTABLE = Message.resolve(InteropLibrary.class, "isArrayElementInsertable");
+    private static final Message IS_ARRAY_ELEMENT_REMOVABLE = Message.resolve(InteropLibrary.class, "isArrayElementRemovable");
+    private static final Message READ_ARRAY_ELEMENT = Message.resolve(InteropLibrary.class, "readArrayElement");
+    private static final Message WRITE_ARRAY_ELEMENT = Message.resolve(InteropLibrary.class, "writeArrayElement");
+
+    private static final Message HAS_BUFFER_ELEMENTS = Message.resolve(InteropLibrary.class, "hasBufferElements");
+    private static final Message IS_BUFFER_WRITABLE = Message.resolve(InteropLibrary.class, "isBufferWritable");
+    private static final Message GET_BUFFER_SIZE = Message.resolve(InteropLibrary.class, "getBufferSize");
+    private static final Message READ_BUFFER_BYTE = Message.resolve(InteropLibrary.class, "readBufferByte");
+    private static final Message READ_BUFFER_SHORT = Message.resolve(InteropLibrary.class, "readBufferShort");
+    private static final Message READ_BUFFER_INT = Message.resolve(InteropLibrary.class, "readBufferInt");
+    private static final Message READ_BUFFER_LONG = Message.resolve(InteropLibrary.class, "readBufferLong");
+    private static final Message READ_BUFFER_FLOAT = Message.resolve(InteropLibrary.class, "readBufferFloat");
+    private static final Message READ_BUFFER_DOUBLE = Message.resolve(InteropLibrary.class, "readBufferDouble");
+    private static final Message WRITE_BUFFER_BYTE = Message.resolve(InteropLibrary.class, "writeBufferByte");
+    private static final Message WRITE_BUFFER_SHORT = Message.resolve(InteropLibrary.class, "writeBufferShort");
+    private static final Message WRITE_BUFFER_INT = Message.resolve(InteropLibrary.class, "writeBufferInt");
+    private static final Message WRITE_BUFFER_LONG = Message.resolve(InteropLibrary.class, "writeBufferLong");
+    private static final Message WRITE_BUFFER_FLOAT = Message.resolve(InteropLibrary.class, "writeBufferFloat");
+    private static final Message WRITE_BUFFER_DOUBLE = Message.resolve(InteropLibrary.class, "writeBufferDouble");
+
+    private static final Message IS_STRING = Message.resolve(InteropLibrary.class, "isString");
+    private static final Message AS_STRING = Message.resolve(InteropLibrary.class, "asString");
+
+    private static final VarHandle SHORT_LE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT_LE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    public abstract Object execute(Node node, AbstractSqueakObject receiver, Message message, Object[] arguments) throws InteropException;
+
+    @Specialization
+    protected static final Object doArray(final Node node, final ArrayObject receiver, final Message message, final Object[] arguments,
+                    @Cached final ArrayObjectSizeNode sizeNode,
+                    @Cached final ArrayObjectReadNode readNode,
+                    @Cached final ArrayObjectWriteNode writeNode,
+                    @Cached final WrapToSqueakNode wrapNode) throws InvalidArrayIndexException {
+        if (message == HAS_ARRAY_ELEMENTS) {
+            return true;
+        } else if (message == GET_ARRAY_SIZE) {
+            return (long) sizeNode.execute(node, receiver);
+        } else if (message == IS_ARRAY_ELEMENT_READABLE || message == IS_ARRAY_ELEMENT_MODIFIABLE) {
+            final long index = (long) arguments[0];
+            return 0 <= index && index < sizeNode.execute(node, receiver);
+        } else if (message == IS_ARRAY_ELEMENT_INSERTABLE || message == IS_ARRAY_ELEMENT_REMOVABLE) {
+            return false; /* Arrays have a fixed size. */
+        } else if (message == READ_ARRAY_ELEMENT) {
+            final long index = (long) arguments[0];
+            if (!(0 <= index && index < sizeNode.execute(node, receiver))) {
+                throw InvalidArrayIndexException.create(index);
+            }
+            return readNode.execute(node, receiver, index);
+        } else if (message == WRITE_ARRAY_ELEMENT) {
+            final long index = (long) arguments[0];
+            if (!(0 <= index && index < sizeNode.execute(node, receiver))) {
+                throw InvalidArrayIndexException.create(index);
+            }
+            writeNode.execute(node, receiver, index, wrapNode.executeWrap(node, arguments[1]));
+            return NilObject.SINGLETON;
+        } else {
+            return null;
+        }
+    }
+
+    @Specialization(guards = "isString(node, receiver)")
+    protected static final Object doString(@SuppressWarnings("unused") final Node node, final NativeObject receiver, final Message message, @SuppressWarnings("unused") final Object[] arguments) {
+        if (message == IS_STRING) {
+            return true;
+        } else if (message == AS_STRING) {
+            return receiver.isByteType() ? receiver.asStringUnsafe() : receiver.asStringFromWideString();
+        } else {
+            return null;
+        }
+    }
+
+    @Specialization(guards = "isBuffer(node, receiver)")
+    protected static final Object doBuffer(@SuppressWarnings("unused") final Node node, final NativeObject receiver, final Message message, final Object[] arguments)
+                    throws InvalidBufferOffsetException {
+        if (message == HAS_BUFFER_ELEMENTS || message == IS_BUFFER_WRITABLE) {
+            return true;
+        } else if (message == GET_BUFFER_SIZE) {
+            return (long) receiver.byteSize();
+        } else if (message == READ_BUFFER_BYTE) {
+            return (byte) readBits(receiver, ByteOrder.LITTLE_ENDIAN, (long) arguments[0], Byte.BYTES);
+        } else if (message == READ_BUFFER_SHORT) {
+            return (short) readBits(receiver, (ByteOrder) arguments[0], (long) arguments[1], Short.BYTES);
+        } else if (message == READ_BUFFER_INT) {
+            return (int) readBits(receiver, (ByteOrder) arguments[0], (long) arguments[1], Integer.BYTES);
+        } else if (message == READ_BUFFER_LONG) {
+            return readBits(receiver, (ByteOrder) arguments[0], (long) arguments[1], Long.BYTES);
+        } else if (message == READ_BUFFER_FLOAT) {
+            return Float.intBitsToFloat((int) readBits(receiver, (ByteOrder) arguments[0], (long) arguments[1], Integer.BYTES));
+        } else if (message == READ_BUFFER_DOUBLE) {
+            return Double.longBitsToDouble(readBits(receiver, (ByteOrder) arguments[0], (long) arguments[1], Long.BYTES));
+        } else if (message == WRITE_BUFFER_BYTE) {
+            writeBits(receiver, ByteOrder.LITTLE_ENDIAN, (long) arguments[0], Byte.BYTES, (byte) arguments[1]);
+        } else if (message == WRITE_BUFFER_SHORT) {
+            writeBits(receiver, (ByteOrder) arguments[0], (long) arguments[1], Short.BYTES, (short) arguments[2]);
+        } else if (message == WRITE_BUFFER_INT) {
+            writeBits(receiver, (ByteOrder) arguments[0], (long) arguments[1], Integer.BYTES, (int) arguments[2]);
+        } else if (message == WRITE_BUFFER_LONG) {
+            writeBits(receiver, (ByteOrder) arguments[0], (long) arguments[1], Long.BYTES, (long) arguments[2]);
+        } else if (message == WRITE_BUFFER_FLOAT) {
+            writeBits(receiver, (ByteOrder) arguments[0], (long) arguments[1], Integer.BYTES, Float.floatToRawIntBits((float) arguments[2]));
+        } else if (message == WRITE_BUFFER_DOUBLE) {
+            writeBits(receiver, (ByteOrder) arguments[0], (long) arguments[1], Long.BYTES, Double.doubleToRawLongBits((double) arguments[2]));
+        } else {
+            return null;
+        }
+        return NilObject.SINGLETON;
+    }
+
+    @Fallback
+    protected static final Object doOther(@SuppressWarnings("unused") final AbstractSqueakObject receiver, @SuppressWarnings("unused") final Message message,
+                    @SuppressWarnings("unused") final Object[] arguments) {
+        return null;
+    }
+
+    protected static final boolean isString(final Node node, final NativeObject receiver) {
+        final SqueakImageContext image = getContext(node);
+        return receiver.isByteType() && (image.isByteString(receiver) || image.isByteSymbol(receiver)) || receiver.isIntType() && image.isWideStringClass(receiver.getSqueakClass());
+    }
+
+    protected static final boolean isBuffer(final Node node, final NativeObject receiver) {
+        /* Large integers are numbers, not buffers. */
+        return !isString(node, receiver) && !getContext(node).isLargeInteger(receiver);
+    }
+
+    /*
+     * Buffers are the storage of native objects in host byte order (like objects in the memory of
+     * the OpenSmalltalk VM). Byte storage is accessed with byte array views, other storage through
+     * memory segments.
+     */
+
+    private static long readBits(final NativeObject receiver, final ByteOrder order, final long byteOffset, final int numBytes) throws InvalidBufferOffsetException {
+        checkBufferOffset(receiver, byteOffset, numBytes);
+        final long bits;
+        if (receiver.isByteType()) {
+            final byte[] bytes = receiver.getByteStorage();
+            final int offset = (int) byteOffset;
+            bits = switch (numBytes) {
+                case Byte.BYTES -> bytes[offset];
+                case Short.BYTES -> (short) SHORT_LE.get(bytes, offset);
+                case Integer.BYTES -> (int) INT_LE.get(bytes, offset);
+                default -> (long) LONG_LE.get(bytes, offset);
+            };
+        } else {
+            bits = readBitsSlow(receiver, byteOffset, numBytes);
+        }
+        return order == ByteOrder.LITTLE_ENDIAN ? bits : reverseBytes(bits, numBytes);
+    }
+
+    private static void writeBits(final NativeObject receiver, final ByteOrder order, final long byteOffset, final int numBytes, final long value) throws InvalidBufferOffsetException {
+        checkBufferOffset(receiver, byteOffset, numBytes);
+        final long bits = order == ByteOrder.LITTLE_ENDIAN ? value : reverseBytes(value, numBytes);
+        if (receiver.isByteType()) {
+            final byte[] bytes = receiver.getByteStorage();
+            final int offset = (int) byteOffset;
+            switch (numBytes) {
+                case Byte.BYTES -> bytes[offset] = (byte) bits;
+                case Short.BYTES -> SHORT_LE.set(bytes, offset, (short) bits);
+                case Integer.BYTES -> INT_LE.set(bytes, offset, (int) bits);
+                default -> LONG_LE.set(bytes, offset, bits);
+            }
+        } else {
+            writeBitsSlow(receiver, byteOffset, numBytes, bits);
+        }
+    }
+
+    private static void checkBufferOffset(final NativeObject receiver, final long byteOffset, final int numBytes) throws InvalidBufferOffsetException {
+        if (byteOffset < 0 || byteOffset > receiver.byteSize() - numBytes) {
+            CompilerDirectives.transferToInterpreter();
+            throw InvalidBufferOffsetException.create(byteOffset, numBytes);
+        }
+    }
+
+    private static long reverseBytes(final long bits, final int numBytes) {
+        return switch (numBytes) {
+            case Byte.BYTES -> bits;
+            case Short.BYTES -> Short.reverseBytes((short) bits);
+            case Integer.BYTES -> Integer.reverseBytes((int) bits);
+            default -> Long.reverseBytes(bits);
+        };
+    }
+
+    @TruffleBoundary
+    private static long readBitsSlow(final NativeObject receiver, final long byteOffset, final int numBytes) {
+        final MemorySegment segment = toMemorySegment(receiver);
+        return switch (numBytes) {
+            case Byte.BYTES -> segment.get(ValueLayout.JAVA_BYTE, byteOffset);
+            case Short.BYTES -> segment.get(ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN), byteOffset);
+            case Integer.BYTES -> segment.get(ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN), byteOffset);
+            default -> segment.get(ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN), byteOffset);
+        };
+    }
+
+    @TruffleBoundary
+    private static void writeBitsSlow(final NativeObject receiver, final long byteOffset, final int numBytes, final long bits) {
+        final MemorySegment segment = toMemorySegment(receiver);
+        switch (numBytes) {
+            case Byte.BYTES -> segment.set(ValueLayout.JAVA_BYTE, byteOffset, (byte) bits);
+            case Short.BYTES -> segment.set(ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN), byteOffset, (short) bits);
+            case Integer.BYTES -> segment.set(ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN), byteOffset, (int) bits);
+            default -> segment.set(ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN), byteOffset, bits);
+        }
+    }
+
+    private static MemorySegment toMemorySegment(final NativeObject receiver) {
+        if (receiver.isShortType()) {
+            return MemorySegment.ofArray(receiver.getShortStorage());
+        } else if (receiver.isIntType()) {
+            return MemorySegment.ofArray(receiver.getIntStorage());
+        } else {
+            assert receiver.isLongType();
+            return MemorySegment.ofArray(receiver.getLongStorage());
+        }
+    }
+}
@@ -6,15 +6,23 @@
  */
 package de.hpi.swa.trufflesqueak.interop;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
@@ -53,7 +61,8 @@ import de.hpi.swa.trufflesqueak.util.ReflectionUtils;
 @ExportLibrary(InteropLibrary.class)
 public final class JavaObjectWrapper implements TruffleObject {
     static final int LIMIT = 2;
-    private static final WeakHashMap<Object, JavaObjectWrapper> CACHE = new WeakHashMap<>();
+    private static final WrapperCache CACHE = new WrapperCache();
+    private static final ConcurrentHashMap<Method, MethodHandle> METHODS_TO_HANDLES = new ConcurrentHashMap<>();
     private static final ClassValue<HashMap<String, Field>> CLASSES_TO_FIELDS = new ClassValue<>() {
         @Override
         @SuppressWarnings("deprecation") // isAccessible deprecated in Java 11
@@ -154,6 +163,34 @@ public final class JavaObjectWrapper implements TruffleObject {
             return false;
         }
     };
+    /* All overloads of each method name, without the methods they override. */
+    private static final ClassValue<HashMap<String, Method[]>> CLASSES_TO_OVERLOADS = new ClassValue<>() {
+        @Override
+        protected HashMap<String, Method[]> computeValue(final Class<?> type) {
+            final HashMap<String, ArrayList<Method>> overloads = new HashMap<>();
+            for (final Method method : CLASSES_TO_METHODS.get(type).values()) {
+                addOverload(overloads.computeIfAbsent(method.getName(), name -> new ArrayList<>()), method);
+            }
+            final HashMap<String, Method[]> result = new HashMap<>();
+            for (final var entry : overloads.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().toArray(new Method[0]));
+            }
+            return result;
+        }
+
+        private static void addOverload(final ArrayList<Method> methods, final Method method) {
+            for (int i = 0; i < methods.size(); i++) {
+                final Method existingMethod = methods.get(i);
+                if (Arrays.equals(existingMethod.getParameterTypes(), method.getParameterTypes())) {
+                    if (existingMethod.getDeclaringClass().isAssignableFrom(method.getDeclaringClass())) {
+                        methods.set(i, method); /* Keep the overriding method. */
+                    }
+                    return;
+                }
+            }
+            methods.add(method);
+        }
+    };
     private static final ClassValue<InteropArray> CLASSES_TO_MEMBERS = new ClassValue<>() {
         @Override
         protected InteropArray computeValue(final Class<?> type) {
@@ -187,7 +224,75 @@ public final class JavaObjectWrapper implements TruffleObject {
         } else if (object instanceof final Float o) {
             return (double) o;
         } else {
-            return CACHE.computeIfAbsent(object, JavaObjectWrapper::new);
+            return CACHE.wrap(object);
+        }
+    }
+
+    /**
+     * Concurrent cache of wrappers by the identity of their wrapped objects. Wrappers and wrapped
+     * objects are only weakly referenced, so that a wrapper does not keep its wrapped object alive
+     * through the cache.
+     */
+    private static final class WrapperCache {
+        private final ConcurrentHashMap<IdentityKey, WeakReference<JavaObjectWrapper>> wrappers = new ConcurrentHashMap<>();
+        private final ReferenceQueue<Object> staleKeys = new ReferenceQueue<>();
+
+        private JavaObjectWrapper wrap(final Object object) {
+            expungeStaleEntries();
+            final WeakReference<JavaObjectWrapper> existingReference = wrappers.get(new IdentityKey(object, null));
+            final JavaObjectWrapper existingWrapper = existingReference == null ? null : existingReference.get();
+            if (existingWrapper != null) {
+                return existingWrapper;
+            }
+            final JavaObjectWrapper wrapper = new JavaObjectWrapper(object);
+            final WeakReference<JavaObjectWrapper> reference = new WeakReference<>(wrapper);
+            while (true) {
+                final IdentityKey key = new IdentityKey(object, staleKeys);
+                final WeakReference<JavaObjectWrapper> currentReference = wrappers.putIfAbsent(key, reference);
+                if (currentReference == null) {
+                    return wrapper;
+                }
+                final JavaObjectWrapper currentWrapper = currentReference.get();
+                if (currentWrapper != null) {
+                    return currentWrapper; /* Wrapped concurrently by another thread. */
+                }
+                if (wrappers.replace(key, currentReference, reference)) {
+                    return wrapper;
+                }
+            }
+        }
+
+        private void expungeStaleEntries() {
+            Object key;
+            while ((key = staleKeys.poll()) != null) {
+                wrappers.remove(key);
+            }
+        }
+    }
+
+    private static final class IdentityKey extends WeakReference<Object> {
+        private final int hash;
+
+        private IdentityKey(final Object object, final ReferenceQueue<Object> queue) {
+            super(object, queue);
+            hash = System.identityHashCode(object);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (other instanceof final IdentityKey o) {
+                final Object object = get();
+                return object != null && object == o.get();
+            }
+            return false;
         }
     }
 
@@ -210,6 +315,10 @@ public final class JavaObjectWrapper implements TruffleObject {
         return CLASSES_TO_MEMBERS.get(wrappedObject.getClass());
     }
 
+    Class<?> getWrappedClass() {
+        return wrappedObject.getClass();
+    }
+
     boolean isClass() {
         return wrappedObject instanceof Class<?>;
     }
@@ -288,21 +397,168 @@ public final class JavaObjectWrapper implements TruffleObject {
         return lookupMethods().containsKey(member);
     }
 
+    /*
+     * Send sites cache the overloads of a member by receiver class and number of arguments. If
+     * there is more than one overload with the same number of arguments, the most specific one
+     * that accepts the converted arguments is selected on each invocation.
+     */
     @ExportMessage
+    static class InvokeMember {
+
+        @Specialization(guards = {"receiver.getWrappedClass() == cachedClass", "cachedMember.equals(member)", "arguments.length == cachedNumArguments", "cachedOverloads.length != 0"}, limit = "LIMIT")
+        static final Object doCached(final JavaObjectWrapper receiver, @SuppressWarnings("unused") final String member, final Object[] arguments,
+                        @SuppressWarnings("unused") @Cached("receiver.getWrappedClass()") final Class<?> cachedClass,
+                        @Cached("member") final String cachedMember,
+                        @Cached("arguments.length") final int cachedNumArguments,
+                        @Cached(value = "lookupOverloads(cachedClass, cachedMember, cachedNumArguments)", dimensions = 1) final Method[] cachedOverloads,
+                        @Cached(value = "toMethodHandles(cachedOverloads)", dimensions = 1) final MethodHandle[] cachedHandles) throws UnsupportedTypeException {
+            return invokeOverload(cachedOverloads, cachedHandles, receiver.wrappedObject, arguments);
+        }
+
+        @Specialization(replaces = "doCached")
+        static final Object doGeneric(final JavaObjectWrapper receiver, final String member, final Object[] arguments) throws UnknownIdentifierException, UnsupportedTypeException {
+            final Method[] overloads = lookupOverloads(receiver.getWrappedClass(), member, arguments.length);
+            if (overloads.length != 0) {
+                return invokeOverloadBoundary(overloads, toMethodHandles(overloads), receiver.wrappedObject, arguments);
+            } else {
+                throw UnknownIdentifierException.create(member);
+            }
+        }
+    }
+
+    /*
+     * Returns the overloads of member that take numArguments arguments. Members that name an
+     * overload explicitly (e.g., "indexOf_String") and members without overloads of that arity
+     * resolve to their single method.
+     */
     @TruffleBoundary
-    Object invokeMember(final String member, final Object... arguments) throws UnknownIdentifierException, UnsupportedTypeException {
-        final Method method = lookupMethods().get(member);
-        if (method != null) {
-            try {
-                return wrap(method.invoke(wrappedObject, toJavaArguments(arguments)));
-            } catch (final Exception e) {
-                throw UnsupportedTypeException.create(arguments);
+    static Method[] lookupOverloads(final Class<?> type, final String member, final int numArguments) {
+        final Method method = CLASSES_TO_METHODS.get(type).get(member);
+        if (method == null) {
+            return new Method[0];
+        } else if (!method.getName().equals(member)) {
+            return new Method[]{method};
+        }
+        final Method[] overloads = Arrays.stream(CLASSES_TO_OVERLOADS.get(type).get(member)).filter(m -> m.getParameterCount() == numArguments).toArray(Method[]::new);
+        return overloads.length != 0 ? overloads : new Method[]{method};
+    }
+
+    @TruffleBoundary
+    static MethodHandle[] toMethodHandles(final Method[] methods) {
+        final MethodHandle[] handles = new MethodHandle[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            handles[i] = METHODS_TO_HANDLES.computeIfAbsent(methods[i], JavaObjectWrapper::toMethodHandle);
+        }
+        return handles;
+    }
+
+    /* Returns the index of the most specific overload applicable to the arguments, or -1. */
+    @TruffleBoundary
+    private static int selectOverload(final Method[] overloads, final Object[] javaArguments) {
+        int selected = -1;
+        for (int i = 0; i < overloads.length; i++) {
+            final Class<?>[] types = overloads[i].getParameterTypes();
+            if (isApplicable(types, javaArguments) && (selected < 0 || isMoreSpecific(types, overloads[selected].getParameterTypes()))) {
+                selected = i;
+            }
+        }
+        return selected;
+    }
+
+    private static boolean isApplicable(final Class<?>[] types, final Object[] javaArguments) {
+        for (int i = 0; i < types.length; i++) {
+            final Object argument = javaArguments[i];
+            if (argument == null ? types[i].isPrimitive() : !(types[i].isInstance(argument) || isWideningConversion(argument.getClass(), types[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isMoreSpecific(final Class<?>[] types, final Class<?>[] otherTypes) {
+        for (int i = 0; i < types.length; i++) {
+            if (!(otherTypes[i].isAssignableFrom(types[i]) || types[i].isPrimitive() && (!otherTypes[i].isPrimitive() || isWideningConversion(types[i], otherTypes[i])))) {
+                return false;
             }
+        }
+        return true;
+    }
+
+    /* Boxed or primitive numbers can be passed as primitive numbers of the same or a higher rank. */
+    private static boolean isWideningConversion(final Class<?> from, final Class<?> to) {
+        if (to == boolean.class) {
+            return from == Boolean.class;
+        } else if (to == char.class) {
+            return from == Character.class;
         } else {
-            throw UnknownIdentifierException.create(member);
+            final int fromRank = numericRank(from);
+            return to.isPrimitive() && fromRank >= 0 && fromRank <= numericRank(to);
+        }
+    }
+
+    private static int numericRank(final Class<?> type) {
+        if (type == byte.class || type == Byte.class) {
+            return 0;
+        } else if (type == short.class || type == Short.class) {
+            return 1;
+        } else if (type == int.class || type == Integer.class) {
+            return 2;
+        } else if (type == long.class || type == Long.class) {
+            return 3;
+        } else if (type == float.class || type == Float.class) {
+            return 4;
+        } else if (type == double.class || type == Double.class) {
+            return 5;
+        } else {
+            return -1;
         }
     }
 
+    /*
+     * Adapts the method to the (Object, Object[])Object type, so that all methods can be invoked
+     * with invokeExact (receivers of static methods are ignored).
+     */
+    private static MethodHandle toMethodHandle(final Method method) {
+        final int numArguments = method.getParameterCount();
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflect(method).asFixedArity();
+        } catch (final IllegalAccessException e) {
+            throw CompilerDirectives.shouldNotReachHere("Method has been made accessible", e);
+        }
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        return handle.asType(MethodType.genericMethodType(1 + numArguments)).asSpreader(Object[].class, numArguments);
+    }
+
+    /*
+     * Not behind a boundary, so that cached handles of methods without overloads are compilation
+     * constants and the invocation can be inlined. Errors (e.g., OutOfMemoryError or cancellation)
+     * are propagated.
+     */
+    private static Object invokeOverload(final Method[] overloads, final MethodHandle[] handles, final Object receiver, final Object[] arguments) throws UnsupportedTypeException {
+        final Object[] javaArguments = toJavaArguments(arguments);
+        final int index = handles.length == 1 ? 0 : selectOverload(overloads, javaArguments);
+        if (index < 0) {
+            throw UnsupportedTypeException.create(arguments);
+        }
+        final Object result;
+        try {
+            result = (Object) handles[index].invokeExact(receiver, javaArguments);
+        } catch (final Error e) {
+            throw e;
+        } catch (final Throwable e) {
+            throw UnsupportedTypeException.create(arguments);
+        }
+        return wrap(result);
+    }
+
+    @TruffleBoundary
+    private static Object invokeOverloadBoundary(final Method[] overloads, final MethodHandle[] handles, final Object receiver, final Object[] arguments) throws UnsupportedTypeException {
+        return invokeOverload(overloads, handles, receiver, arguments);
+    }
+
     @ExportMessage
     @TruffleBoundary
     void writeMember(final String key, final Object value) {
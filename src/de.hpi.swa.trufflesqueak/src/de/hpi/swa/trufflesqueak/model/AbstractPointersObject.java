@@ -10,10 +10,12 @@ import java.util.Arrays;
 
 import org.graalvm.collections.UnmodifiableEconomicMap;
 
+import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.nodes.Node;
 
 import de.hpi.swa.trufflesqueak.image.SqueakImageChunk;
@@ -41,6 +43,9 @@ public abstract class AbstractPointersObject extends AbstractSqueakObjectWithCla
     public static final long OBJECT_1_ADDRESS = UnsafeUtils.getAddress(AbstractPointersObject.class, "object1");
     public static final long OBJECT_2_ADDRESS = UnsafeUtils.getAddress(AbstractPointersObject.class, "object2");
 
+    /* Valid as long as no context writes delta checkpoints, so that marking objects dirty folds away. */
+    private static final Assumption NO_DIRTY_TRACKING = Truffle.getRuntime().createAssumption("No dirty tracking assumption");
+
     @CompilationFinal private ObjectLayout layout;
 
     public int primitiveUsedMap;
@@ -63,17 +68,21 @@ public abstract class AbstractPointersObject extends AbstractSqueakObjectWithCla
         super(chunk);
     }
 
+    @SuppressWarnings("this-escape")
     protected AbstractPointersObject(final ClassObject classObject, final ObjectLayout layout) {
         super(classObject);
+        classObject.registerInstance(this);
         this.layout = layout;
         assert classObject.getLayout() == this.layout : "Layout mismatch";
         primitiveExtension = this.layout.getFreshPrimitiveExtension();
         objectExtension = this.layout.getFreshObjectExtension();
     }
 
+    @SuppressWarnings("this-escape")
     protected AbstractPointersObject(final AbstractPointersObject original) {
         super(original);
         layout = original.layout;
+        getSqueakClass().registerInstance(this);
 
         primitiveUsedMap = original.primitiveUsedMap;
         primitive0 = original.primitive0;
@@ -92,8 +101,21 @@ public abstract class AbstractPointersObject extends AbstractSqueakObjectWithCla
         }
     }
 
+    /** Must be called once by every context that writes delta checkpoints. */
+    public static void enableDirtyTracking() {
+        NO_DIRTY_TRACKING.invalidate();
+    }
+
+    /** Records that a slot of this object changed since the last image save. */
+    public final void markDirty() {
+        if (!NO_DIRTY_TRACKING.isValid()) {
+            setDirtyBit();
+        }
+    }
+
     public final void copyLayoutValuesFrom(final AbstractPointersObject anotherObject) {
         assert layout == anotherObject.layout;
+        markDirty();
         primitiveUsedMap = anotherObject.primitiveUsedMap;
         primitive0 = anotherObject.primitive0;
         primitive1 = anotherObject.primitive1;
@@ -111,6 +133,7 @@ public abstract class AbstractPointersObject extends AbstractSqueakObjectWithCla
 
     @Override
     public final void fillin(final SqueakImageChunk chunk) {
+        getSqueakClass().registerInstance(this);
         layout = getSqueakClass().getLayout();
         primitiveExtension = layout.getFreshPrimitiveExtension();
         objectExtension = layout.getFreshObjectExtension();
@@ -131,7 +154,9 @@ public abstract class AbstractPointersObject extends AbstractSqueakObjectWithCla
     }
 
     public final void changeClassTo(final ClassObject newClass) {
+        markDirty();
         setSqueakClass(newClass);
+        newClass.registerInstance(this);
         migrateToLayout(newClass.getLayout());
     }
 
@@ -224,7 +249,11 @@ public abstract class AbstractPointersObject extends AbstractSqueakObjectWithCla
 
     public final void becomeLayout(final AbstractPointersObject other) {
         assert getClass() == other.getClass();
+        markDirty();
+        other.markDirty();
         becomeOtherClass(other);
+        getSqueakClass().registerInstance(this);
+        other.getSqueakClass().registerInstance(other);
 
         CompilerDirectives.transferToInterpreterAndInvalidate();
 
@@ -314,21 +343,29 @@ public abstract class AbstractPointersObject extends AbstractSqueakObjectWithCla
 
     @Override
     public void pointersBecomeOneWay(final UnmodifiableEconomicMap<Object, Object> fromToMap) {
+        final ClassObject oldClass = getSqueakClass();
         super.pointersBecomeOneWay(fromToMap);
+        boolean changed = getSqueakClass() != oldClass;
         final Object migratedObject0 = fromToMap.get(object0);
         if (migratedObject0 != null) {
             object0 = migratedObject0;
+            changed = true;
         }
         final Object migratedObject1 = fromToMap.get(object1);
         if (migratedObject1 != null) {
             object1 = migratedObject1;
+            changed = true;
         }
         final Object migratedObject2 = fromToMap.get(object2);
         if (migratedObject2 != null) {
             object2 = migratedObject2;
+            changed = true;
         }
-        if (objectExtension != null) {
-            ArrayUtils.replaceAll(objectExtension, fromToMap);
+        if (objectExtension != null && ArrayUtils.replaceAll(objectExtension, fromToMap)) {
+            changed = true;
+        }
+        if (changed) {
+            markDirty();
         }
     }
 
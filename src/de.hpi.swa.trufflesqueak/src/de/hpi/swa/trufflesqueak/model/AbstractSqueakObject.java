@@ -34,6 +34,7 @@ import com.oracle.truffle.api.nodes.Node;
 
 import de.hpi.swa.trufflesqueak.exceptions.ProcessSwitch;
 import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.interop.DirectInteropSendNode;
 import de.hpi.swa.trufflesqueak.interop.WrapToSqueakNode;
 import de.hpi.swa.trufflesqueak.nodes.AbstractNode;
 import de.hpi.swa.trufflesqueak.nodes.LookupMethodNode;
@@ -66,8 +67,13 @@ public abstract class AbstractSqueakObject implements TruffleObject {
 
     @ExportMessage
     protected static final Object send(final AbstractSqueakObject receiver, final Message message, final Object[] arguments,
-                    @SuppressWarnings("unused") @Bind final Node node,
+                    @Bind final Node node,
+                    @Cached final DirectInteropSendNode directInteropSendNode,
                     @Cached final PerformInteropSendNode performInteropSendNode) throws Exception {
+        final Object directResult = directInteropSendNode.execute(node, receiver, message, arguments);
+        if (directResult != null) {
+            return directResult;
+        }
         final SqueakImageContext image = SqueakImageContext.get(node);
         final var state = image.suspendNormalExecution();
         try {
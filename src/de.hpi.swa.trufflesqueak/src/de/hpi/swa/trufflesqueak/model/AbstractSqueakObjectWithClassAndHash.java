@@ -126,7 +126,11 @@ public abstract class AbstractSqueakObjectWithClassAndHash extends AbstractSquea
     public void pointersBecomeOneWay(final UnmodifiableEconomicMap<Object, Object> fromToMap) {
         final Object replacement = fromToMap.get(getSqueakClass());
         if (replacement != null) {
-            setSqueakClass((ClassObject) replacement);
+            final ClassObject newClass = (ClassObject) replacement;
+            setSqueakClass(newClass);
+            if (this instanceof final AbstractPointersObject o) {
+                newClass.registerInstance(o); /* Class has been forwarded. */
+            }
         }
     }
 }
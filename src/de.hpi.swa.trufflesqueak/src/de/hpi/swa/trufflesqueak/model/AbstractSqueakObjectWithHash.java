@@ -60,6 +60,9 @@ public abstract class AbstractSqueakObjectWithHash extends AbstractSqueakObject
 
     private static final int BOOLEAN_BIT_MASK = BOOLEAN_A_BIT | BOOLEAN_B_BIT | BOOLEAN_C_BIT | BOOLEAN_D_BIT;
 
+    /* Set if the object was modified since the last image save (see SqueakImageWriter#writeDelta). */
+    private static final int DIRTY_BIT = 1 << 7;
+
     /* Generate new hash if hash is 0 (see SpurMemoryManager>>#hashBitsOf:). */
     protected static final int HASH_UNINITIALIZED = 0;
 
@@ -213,6 +216,18 @@ public abstract class AbstractSqueakObjectWithHash extends AbstractSqueakObject
 
     public abstract AbstractSqueakObjectWithHash resolveForwardingPointer();
 
+    protected final void setDirtyBit() {
+        squeakHashAndBits |= DIRTY_BIT;
+    }
+
+    public final void clearDirtyBit() {
+        squeakHashAndBits &= ~DIRTY_BIT;
+    }
+
+    public final boolean isDirty() {
+        return (squeakHashAndBits & DIRTY_BIT) != 0;
+    }
+
     /* General purpose boolean flags. */
 
     public final void setBooleanABit() {
@@ -13,6 +13,7 @@ import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.utilities.CyclicAssumption;
 
 import de.hpi.swa.trufflesqueak.exceptions.SqueakExceptions.SqueakException;
@@ -36,6 +37,9 @@ import de.hpi.swa.trufflesqueak.util.ObjectGraphUtils.ObjectTracer;
  */
 @SuppressWarnings("static-method")
 public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
+    /* Valid as long as no context uses the instance registry, so that registering folds away. */
+    private static final Assumption INSTANCE_REGISTRY_UNUSED = Truffle.getRuntime().createAssumption("No instance registry assumption");
+
     @CompilationFinal private CyclicAssumption classHierarchyAndMethodDictStable;
     @CompilationFinal private CyclicAssumption classFormatStable;
 
@@ -48,6 +52,7 @@ public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
     private Object[] pointers;
 
     @CompilationFinal private ObjectLayout layout;
+    private InstanceRegistry instanceRegistry;
 
     public ClassObject(final SqueakImageContext image) {
         super();
@@ -211,6 +216,50 @@ public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
         return instancesAreClasses;
     }
 
+    /** Returns whether all instances of this class are {@link AbstractPointersObject}s. */
+    public boolean instancesArePointersObjects() {
+        CompilerAsserts.neverPartOfCompilation();
+        if (isNonIndexableWithInstVars()) {
+            return !image.isMetaClass(this) && !instancesAreClasses;
+        } else if (isIndexableWithInstVars()) {
+            return !image.isMethodContextClass(this) && !image.isBlockClosureClass(this) && !image.isFullBlockClosureClass(this);
+        } else {
+            return isWeak() || isEphemeronClassType();
+        }
+    }
+
+    /** Must be called once by every context that enables the instance registry. */
+    public static void enableInstanceRegistry() {
+        INSTANCE_REGISTRY_UNUSED.invalidate();
+    }
+
+    public void registerInstance(final AbstractPointersObject instance) {
+        if (!INSTANCE_REGISTRY_UNUSED.isValid() && image.options.instanceRegistry()) {
+            registerInstanceBoundary(instance);
+        }
+    }
+
+    @TruffleBoundary
+    private synchronized void registerInstanceBoundary(final AbstractPointersObject instance) {
+        if (instanceRegistry == null) {
+            instanceRegistry = new InstanceRegistry(this);
+        }
+        instanceRegistry.add(instance);
+    }
+
+    /** Returns the registry of this class if it knows all instances, null otherwise. */
+    @TruffleBoundary
+    public synchronized InstanceRegistry getInstanceRegistryOrNull() {
+        if (image.options.instanceRegistry() && instancesArePointersObjects()) {
+            if (instanceRegistry == null) {
+                instanceRegistry = new InstanceRegistry(this);
+            }
+            return instanceRegistry;
+        } else {
+            return null;
+        }
+    }
+
     public boolean isBlockClosureClass() {
         CompilerAsserts.neverPartOfCompilation();
         return this == image.blockClosureClass;
@@ -221,7 +270,7 @@ public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
         return this == image.compiledMethodClass;
     }
 
-    private boolean includesBehavior(final ClassObject squeakClass) {
+    public boolean includesBehavior(final ClassObject squeakClass) {
         ClassObject current = this;
         while (current != null) {
             if (current == squeakClass) {
@@ -317,7 +366,7 @@ public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
         assert assertNotForwarded();
         if (!superclass.isNotForwarded()) {
             CompilerDirectives.transferToInterpreter();
-            setSuperclass((ClassObject) superclass.getForwardingPointer());
+            setSuperclassWithoutFlush((ClassObject) superclass.getForwardingPointer());
         }
         return getSuperclassOrNull();
     }
@@ -339,7 +388,7 @@ public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
         }
         if (!methodDict.isNotForwarded()) {
             CompilerDirectives.transferToInterpreter();
-            setMethodDict((VariablePointersObject) methodDict.getForwardingPointer());
+            setMethodDictWithoutFlush((VariablePointersObject) methodDict.getForwardingPointer());
         }
         return getMethodDict();
     }
@@ -365,25 +414,29 @@ public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
     }
 
     public void setSuperclass(final ClassObject superclass) {
+        setSuperclassWithoutFlush(superclass);
+        image.flushMethodCacheForClass(this);
+    }
+
+    /*
+     * Becomes flush the whole method cache afterward (see flushMethodCacheAfterBecome), so there is
+     * no need to flush it for each class they touch.
+     */
+    private void setSuperclassWithoutFlush(final ClassObject superclass) {
         assert superclass == null || superclass.assertNotForwarded();
         invalidateClassHierarchyAndMethodDictStableAssumption("new superclass");
         this.superclass = superclass;
-        /*
-         * TODO: Instead of a full global flush, this should be refined to only flush entries in
-         * image.methodCache where the entry's class is `this` class or a subclass of `this` class.
-         */
-        image.flushMethodCache();
     }
 
     public void setMethodDict(final VariablePointersObject methodDict) {
+        setMethodDictWithoutFlush(methodDict);
+        image.flushMethodCacheForClass(this);
+    }
+
+    private void setMethodDictWithoutFlush(final VariablePointersObject methodDict) {
         assert methodDict == null || methodDict.assertNotForwarded();
         invalidateClassHierarchyAndMethodDictStableAssumption("new method dict");
         this.methodDict = methodDict;
-        /*
-         * TODO: Instead of a full global flush, this should be refined to only flush entries in
-         * image.methodCache where the entry's class is `this` class or a subclass of `this` class.
-         */
-        image.flushMethodCache();
     }
 
     /**
@@ -576,13 +629,13 @@ public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
         final long otherFormat = other.format;
         final Object[] otherPointers = other.pointers;
 
-        other.setSuperclass(superclass);
-        other.setMethodDict(methodDict);
+        other.setSuperclassWithoutFlush(superclass);
+        other.setMethodDictWithoutFlush(methodDict);
         other.setFormat(format);
         other.setOtherPointers(pointers);
 
-        setSuperclass(otherSuperclass);
-        setMethodDict(otherMethodDict);
+        setSuperclassWithoutFlush(otherSuperclass);
+        setMethodDictWithoutFlush(otherMethodDict);
         setFormat(otherFormat);
         setOtherPointers(otherPointers);
     }
@@ -636,7 +689,7 @@ public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
         if (superclass != null) {
             final Object replacement = fromToMap.get(superclass);
             if (replacement != null) {
-                setSuperclass((ClassObject) replacement);
+                setSuperclassWithoutFlush((ClassObject) replacement);
             }
             assert superclass.assertNotForwarded();
         }
@@ -644,7 +697,7 @@ public final class ClassObject extends AbstractSqueakObjectWithClassAndHash {
             final Object replacement = fromToMap.get(methodDict);
             if (replacement != null) {
                 assert replacement != methodDict;
-                setMethodDict((VariablePointersObject) replacement);
+                setMethodDictWithoutFlush((VariablePointersObject) replacement);
             }
             assert methodDict.assertNotForwarded();
         }
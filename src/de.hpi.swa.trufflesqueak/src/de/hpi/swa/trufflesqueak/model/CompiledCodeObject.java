@@ -8,8 +8,6 @@ package de.hpi.swa.trufflesqueak.model;
 
 import static de.hpi.swa.trufflesqueak.nodes.interpreter.AbstractDecoder.trailerPosition;
 
-import java.util.Arrays;
-
 import org.graalvm.collections.UnmodifiableEconomicMap;
 
 import com.oracle.truffle.api.Assumption;
@@ -145,7 +143,7 @@ public final class CompiledCodeObject extends AbstractSqueakObjectWithClassAndHa
         final long headerWord = (chunk.getWord(0) >> SqueakImageConstants.NUM_TAG_BITS);
         internalHeader = CompiledCodeHeaderUtils.fromSmallIntegerValue(headerWord);
         literals = chunk.getPointers(1, getNumHeaderAndLiterals());
-        bytes = Arrays.copyOfRange(chunk.getBytes(), getBytecodeOffset(), chunk.getBytes().length);
+        bytes = chunk.getBytes(getBytecodeOffset());
     }
 
     public CompiledCodeObject(final byte[] bytes, final long headerWord, final Object[] literals, final ClassObject classObject) {
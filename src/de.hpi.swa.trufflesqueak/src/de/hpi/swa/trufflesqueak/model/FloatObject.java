@@ -13,7 +13,6 @@ import com.oracle.truffle.api.CompilerAsserts;
 import de.hpi.swa.trufflesqueak.image.SqueakImageChunk;
 import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
 import de.hpi.swa.trufflesqueak.image.SqueakImageWriter;
-import de.hpi.swa.trufflesqueak.util.VarHandleUtils;
 
 public final class FloatObject extends AbstractSqueakObjectWithHash {
     public static final int PRECISION = 53;
@@ -74,10 +73,9 @@ public final class FloatObject extends AbstractSqueakObjectWithHash {
     }
 
     public static Object newFrom(final SqueakImageChunk chunk) {
-        assert chunk.getBytes().length == 2 * Integer.BYTES;
-        final long lowValue = Integer.toUnsignedLong(VarHandleUtils.getInt(chunk.getBytes(), 0));
-        final long highValue = Integer.toUnsignedLong(VarHandleUtils.getInt(chunk.getBytes(), 1));
-        final double value = Double.longBitsToDouble(highValue << 32 | lowValue);
+        assert chunk.getByteSize() == 2 * Integer.BYTES;
+        /* Low word first, so the two 32-bit words form one little-endian 64-bit word. */
+        final double value = Double.longBitsToDouble(chunk.getWord(0));
         return Double.isFinite(value) ? value : new FloatObject(chunk, value);
     }
 
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2017-2026 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2026 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.model;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+import org.graalvm.collections.EconomicSet;
+import org.graalvm.collections.Equivalence;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+/**
+ * Weak registry of the instances of a class whose instances are all {@link AbstractPointersObject}s
+ * (see {@link ClassObject#instancesArePointersObjects()}). Instances are registered when they are
+ * created, loaded, copied, or adopted by the class. Entries are never removed eagerly: objects that
+ * changed their class or were forwarded are filtered out when the registry is queried and dropped
+ * when it grows.
+ * <p>
+ * Like on the OpenSmalltalk VM, the registry may contain unreachable instances that have not been
+ * reclaimed by the garbage collector yet.
+ */
+public final class InstanceRegistry {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final ClassObject owner;
+    private WeakReference<?>[] references;
+    private int size;
+
+    InstanceRegistry(final ClassObject owner) {
+        this.owner = owner;
+    }
+
+    @TruffleBoundary
+    synchronized void add(final AbstractPointersObject object) {
+        if (references == null) {
+            references = new WeakReference<?>[INITIAL_CAPACITY];
+        } else if (size == references.length) {
+            expungeOrGrow();
+        }
+        references[size++] = new WeakReference<>(object);
+    }
+
+    /* Drops stale entries and grows the registry if it is still more than half full. */
+    private void expungeOrGrow() {
+        int newSize = 0;
+        for (int i = 0; i < size; i++) {
+            if (instanceOrNull(references[i]) != null) {
+                references[newSize++] = references[i];
+            }
+        }
+        Arrays.fill(references, newSize, size, null);
+        size = newSize;
+        if (size > references.length / 2) {
+            references = Arrays.copyOf(references, references.length * 2);
+        }
+    }
+
+    private AbstractPointersObject instanceOrNull(final WeakReference<?> reference) {
+        final Object object = reference.get();
+        if (object instanceof final AbstractPointersObject o && o.isNotForwarded() && o.getSqueakClass() == owner) {
+            return o;
+        } else {
+            return null;
+        }
+    }
+
+    /** Returns all registered instances in registration order. */
+    @TruffleBoundary
+    public synchronized Object[] getInstances() {
+        final EconomicSet<AbstractPointersObject> instances = EconomicSet.create(Equivalence.IDENTITY, size);
+        for (int i = 0; i < size; i++) {
+            final AbstractPointersObject instance = instanceOrNull(references[i]);
+            if (instance != null) {
+                instances.add(instance);
+            }
+        }
+        return instances.toArray(new AbstractPointersObject[instances.size()]);
+    }
+
+    /** Returns the first registered instance or null if there is none. */
+    @TruffleBoundary
+    public synchronized AbstractPointersObject getSomeInstance() {
+        for (int i = 0; i < size; i++) {
+            final AbstractPointersObject instance = instanceOrNull(references[i]);
+            if (instance != null) {
+                return instance;
+            }
+        }
+        return null;
+    }
+}
@@ -74,7 +74,7 @@ public final class NativeObject extends AbstractSqueakObjectWithClassAndHash {
     }
 
     public static NativeObject newNativeInts(final SqueakImageChunk chunk) {
-        return new NativeObject(chunk, UnsafeUtils.toInts(chunk.getBytes()));
+        return new NativeObject(chunk, chunk.getInts());
     }
 
     public static NativeObject newNativeInts(final ClassObject klass, final int size) {
@@ -86,7 +86,7 @@ public final class NativeObject extends AbstractSqueakObjectWithClassAndHash {
     }
 
     public static NativeObject newNativeLongs(final SqueakImageChunk chunk) {
-        return new NativeObject(chunk, UnsafeUtils.toLongs(chunk.getBytes()));
+        return new NativeObject(chunk, chunk.getLongs());
     }
 
     public static NativeObject newNativeLongs(final ClassObject klass, final int size) {
@@ -98,7 +98,7 @@ public final class NativeObject extends AbstractSqueakObjectWithClassAndHash {
     }
 
     public static NativeObject newNativeShorts(final SqueakImageChunk chunk) {
-        return new NativeObject(chunk, UnsafeUtils.toShorts(chunk.getBytes()));
+        return new NativeObject(chunk, chunk.getShorts());
     }
 
     public static NativeObject newNativeShorts(final ClassObject klass, final int size) {
@@ -39,7 +39,9 @@ public final class VariablePointersObject extends AbstractVariablePointersObject
     @Override
     public void pointersBecomeOneWay(final UnmodifiableEconomicMap<Object, Object> fromToMap) {
         super.pointersBecomeOneWay(fromToMap);
-        ArrayUtils.replaceAll(variablePart, fromToMap);
+        if (ArrayUtils.replaceAll(variablePart, fromToMap)) {
+            markDirty();
+        }
     }
 
     @Override
@@ -83,6 +83,7 @@ public final class WeakVariablePointersObject extends AbstractVariablePointersOb
                             weakRef.get() instanceof final AbstractSqueakObjectWithClassAndHash object &&
                             fromToMap.get(object) instanceof final AbstractSqueakObjectWithClassAndHash replacement) {
                 variablePart[i] = new WeakRef(replacement, replacement.getSqueakClass().getImage().weakPointersQueue);
+                markDirty();
             }
         }
     }
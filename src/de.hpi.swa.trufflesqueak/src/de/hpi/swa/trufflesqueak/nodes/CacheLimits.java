@@ -6,13 +6,97 @@
  */
 package de.hpi.swa.trufflesqueak.nodes;
 
+import java.util.Arrays;
+
+import org.graalvm.options.OptionKey;
+import org.graalvm.options.OptionValues;
+
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+
+import de.hpi.swa.trufflesqueak.SqueakOptions;
+import de.hpi.swa.trufflesqueak.exceptions.SqueakExceptions.SqueakException;
+
+/**
+ * Limits of the inline caches of all nodes. The limits can be configured with the cache-limit-*
+ * options. As they are shared by all nodes of the process, they are initialized once, with the
+ * options of the first context. Creating a later context with different limits fails.
+ */
 public final class CacheLimits {
-    public static final int EXECUTE_METHOD_CACHE_LIMIT = 4;
-    public static final int INDIRECT_PRIMITIVE_CACHE_LIMIT = 2;
-    public static final int INLINE_BLOCK_CACHE_LIMIT = 4;
-    public static final int INLINE_METHOD_CACHE_LIMIT = 4;
-    public static final int NEW_CACHE_LIMIT = 3;
-    public static final int PERFORM_SELECTOR_CACHE_LIMIT = 4;
-    public static final int POINTERS_LAYOUT_CACHE_LIMIT = 4;
-    public static final int POINTERS_VARIABLE_PART_CACHE_LIMIT = 3;
+    @CompilationFinal private static int executeMethodCacheLimit = 4;
+    @CompilationFinal private static int indirectPrimitiveCacheLimit = 2;
+    @CompilationFinal private static int inlineBlockCacheLimit = 4;
+    @CompilationFinal private static int inlineMethodCacheLimit = 4;
+    @CompilationFinal private static int newCacheLimit = 3;
+    @CompilationFinal private static int performSelectorCacheLimit = 4;
+    @CompilationFinal private static int pointersLayoutCacheLimit = 4;
+    @CompilationFinal private static int pointersVariablePartCacheLimit = 3;
+
+    private static int[] initializedLimits;
+
+    private CacheLimits() {
+    }
+
+    public static synchronized void initialize(final OptionValues options) {
+        final int[] limits = {
+                        get(options, SqueakOptions.CacheLimitExecuteMethod),
+                        get(options, SqueakOptions.CacheLimitIndirectPrimitive),
+                        get(options, SqueakOptions.CacheLimitInlineBlock),
+                        get(options, SqueakOptions.CacheLimitInlineMethod),
+                        get(options, SqueakOptions.CacheLimitNew),
+                        get(options, SqueakOptions.CacheLimitPerformSelector),
+                        get(options, SqueakOptions.CacheLimitPointersLayout),
+                        get(options, SqueakOptions.CacheLimitPointersVariablePart)};
+        if (initializedLimits != null) {
+            if (!Arrays.equals(initializedLimits, limits)) {
+                throw SqueakException.create("The cache-limit-* options " + Arrays.toString(limits) + " conflict with the cache limits of another context " + Arrays.toString(initializedLimits) +
+                                " in this process");
+            }
+            return;
+        }
+        initializedLimits = limits;
+        executeMethodCacheLimit = limits[0];
+        indirectPrimitiveCacheLimit = limits[1];
+        inlineBlockCacheLimit = limits[2];
+        inlineMethodCacheLimit = limits[3];
+        newCacheLimit = limits[4];
+        performSelectorCacheLimit = limits[5];
+        pointersLayoutCacheLimit = limits[6];
+        pointersVariablePartCacheLimit = limits[7];
+    }
+
+    public static int getExecuteMethodCacheLimit() {
+        return executeMethodCacheLimit;
+    }
+
+    public static int getIndirectPrimitiveCacheLimit() {
+        return indirectPrimitiveCacheLimit;
+    }
+
+    public static int getInlineBlockCacheLimit() {
+        return inlineBlockCacheLimit;
+    }
+
+    public static int getInlineMethodCacheLimit() {
+        return inlineMethodCacheLimit;
+    }
+
+    public static int getNewCacheLimit() {
+        return newCacheLimit;
+    }
+
+    public static int getPerformSelectorCacheLimit() {
+        return performSelectorCacheLimit;
+    }
+
+    public static int getPointersLayoutCacheLimit() {
+        return pointersLayoutCacheLimit;
+    }
+
+    public static int getPointersVariablePartCacheLimit() {
+        return pointersVariablePartCacheLimit;
+    }
+
+    private static int get(final OptionValues options, final OptionKey<Integer> key) {
+        return Math.max(1, options.get(key));
+    }
 }
@@ -65,7 +65,7 @@ public class AbstractPointersObjectNodes {
         }
 
         @SuppressWarnings("unused")
-        @Specialization(guards = {"cachedIndex == index", "object.getLayout() == cachedLayout"}, assumptions = "cachedLayout.getValidAssumption()", limit = "POINTERS_LAYOUT_CACHE_LIMIT")
+        @Specialization(guards = {"cachedIndex == index", "object.getLayout() == cachedLayout"}, assumptions = "cachedLayout.getValidAssumption()", limit = "getPointersLayoutCacheLimit()")
         protected static final Object doReadCached(final AbstractPointersObject object, final long index,
                         @Cached("index") final long cachedIndex,
                         @Cached("object.getLayout()") final ObjectLayout cachedLayout,
@@ -108,12 +108,13 @@ public class AbstractPointersObjectNodes {
         }
 
         @SuppressWarnings("unused")
-        @Specialization(guards = {"cachedIndex == index", "object.getLayout() == cachedLayout"}, assumptions = "cachedLayout.getValidAssumption()", limit = "POINTERS_LAYOUT_CACHE_LIMIT")
+        @Specialization(guards = {"cachedIndex == index", "object.getLayout() == cachedLayout"}, assumptions = "cachedLayout.getValidAssumption()", limit = "getPointersLayoutCacheLimit()")
         protected static final void doWriteCached(final AbstractPointersObject object, final long index,
                         final Object value,
                         @Cached("index") final long cachedIndex,
                         @Cached("object.getLayout()") final ObjectLayout cachedLayout,
                         @Cached("create(cachedLayout.getLocation(index), false)") final AbstractSlotLocationAccessorNode accessorNode) {
+            object.markDirty();
             if (accessorNode.canStore(value)) {
                 try {
                     accessorNode.executeWrite(object, value);
@@ -141,6 +142,7 @@ public class AbstractPointersObjectNodes {
         @ReportPolymorphism.Megamorphic
         @Specialization(replaces = {"doWriteCached", "doWriteInvalid"})
         protected static final void doWriteGeneric(final AbstractPointersObject object, final long index, final Object value) {
+            object.markDirty();
             try {
                 object.getLayout().getLocation(index).write(object, value);
             } catch (final IllegalWriteException e) {
@@ -165,7 +167,7 @@ public class AbstractPointersObjectNodes {
     public abstract static class AbstractPointersObjectInstSizeNode extends AbstractNode {
         public abstract int execute(Node node, AbstractPointersObject obj);
 
-        @Specialization(guards = {"object.getLayout() == cachedLayout"}, assumptions = "cachedLayout.getValidAssumption()", limit = "POINTERS_LAYOUT_CACHE_LIMIT")
+        @Specialization(guards = {"object.getLayout() == cachedLayout"}, assumptions = "cachedLayout.getValidAssumption()", limit = "getPointersLayoutCacheLimit()")
         protected static final int doSizeCached(@SuppressWarnings("unused") final AbstractPointersObject object,
                         @Cached("object.getLayout()") final ObjectLayout cachedLayout) {
             return cachedLayout.getInstSize();
@@ -193,7 +195,7 @@ public class AbstractPointersObjectNodes {
         public abstract Object execute(VariablePointersObject object, long index);
 
         @Specialization(guards = {"cachedIndex < cachedLayout.getInstSize()", "cachedIndex == index", "object.getLayout() == cachedLayout"}, //
-                        assumptions = "cachedLayout.getValidAssumption()", limit = "POINTERS_LAYOUT_CACHE_LIMIT")
+                        assumptions = "cachedLayout.getValidAssumption()", limit = "getPointersLayoutCacheLimit()")
         protected static final Object doReadCached(final VariablePointersObject object, @SuppressWarnings("unused") final long index,
                         @Cached("index") final long cachedIndex,
                         @SuppressWarnings("unused") @Cached("object.getLayout()") final ObjectLayout cachedLayout,
@@ -217,7 +219,7 @@ public class AbstractPointersObjectNodes {
         }
 
         @Specialization(guards = {"cachedIndex >= cachedLayout.getInstSize()", "cachedIndex == index", "object.getLayout() == cachedLayout"}, //
-                        assumptions = "cachedLayout.getValidAssumption()", limit = "POINTERS_VARIABLE_PART_CACHE_LIMIT")
+                        assumptions = "cachedLayout.getValidAssumption()", limit = "getPointersVariablePartCacheLimit()")
         protected static final Object doReadFromVariablePartCached(final VariablePointersObject object, @SuppressWarnings("unused") final long index,
                         @Cached("index") final long cachedIndex,
                         @Cached("object.getLayout()") final ObjectLayout cachedLayout) {
@@ -245,7 +247,7 @@ public class AbstractPointersObjectNodes {
         public abstract void execute(VariablePointersObject object, long index, Object value);
 
         @Specialization(guards = {"cachedIndex < cachedLayout.getInstSize()", "cachedIndex == index", "object.getLayout() == cachedLayout"}, //
-                        assumptions = "cachedLayout.getValidAssumption()", limit = "POINTERS_LAYOUT_CACHE_LIMIT")
+                        assumptions = "cachedLayout.getValidAssumption()", limit = "getPointersLayoutCacheLimit()")
         protected static final void doWriteCached(final VariablePointersObject object, @SuppressWarnings("unused") final long index, final Object value,
                         @Cached("index") final long cachedIndex,
                         @SuppressWarnings("unused") @Cached("object.getLayout()") final ObjectLayout cachedLayout,
@@ -269,7 +271,7 @@ public class AbstractPointersObjectNodes {
         }
 
         @Specialization(guards = {"cachedIndex >= cachedLayout.getInstSize()", "cachedIndex == index", "object.getLayout() == cachedLayout"}, //
-                        assumptions = "cachedLayout.getValidAssumption()", limit = "POINTERS_VARIABLE_PART_CACHE_LIMIT")
+                        assumptions = "cachedLayout.getValidAssumption()", limit = "getPointersVariablePartCacheLimit()")
         protected static final void doWriteIntoVariablePartCached(final VariablePointersObject object, @SuppressWarnings("unused") final long index, final Object value,
                         @Cached("index") final long cachedIndex,
                         @Cached("object.getLayout()") final ObjectLayout cachedLayout) {
@@ -297,7 +299,7 @@ public class AbstractPointersObjectNodes {
         public abstract Object execute(WeakVariablePointersObject object, long index);
 
         @Specialization(guards = {"cachedIndex < cachedLayout.getInstSize()", "cachedIndex == index", "object.getLayout() == cachedLayout"}, //
-                        assumptions = "cachedLayout.getValidAssumption()", limit = "POINTERS_LAYOUT_CACHE_LIMIT")
+                        assumptions = "cachedLayout.getValidAssumption()", limit = "getPointersLayoutCacheLimit()")
         protected static final Object doReadCached(final WeakVariablePointersObject object, @SuppressWarnings("unused") final long index,
                         @Cached("index") final long cachedIndex,
                         @SuppressWarnings("unused") @Cached("object.getLayout()") final ObjectLayout cachedLayout,
@@ -321,7 +323,7 @@ public class AbstractPointersObjectNodes {
         }
 
         @Specialization(guards = {"cachedIndex >= cachedLayout.getInstSize()", "cachedIndex == index", "object.getLayout() == cachedLayout"}, //
-                        assumptions = "cachedLayout.getValidAssumption()", limit = "POINTERS_VARIABLE_PART_CACHE_LIMIT")
+                        assumptions = "cachedLayout.getValidAssumption()", limit = "getPointersVariablePartCacheLimit()")
         protected static final Object doReadFromVariablePartCached(final WeakVariablePointersObject object, @SuppressWarnings("unused") final long index,
                         @Bind final Node node,
                         @Cached("index") final long cachedIndex,
@@ -355,7 +357,7 @@ public class AbstractPointersObjectNodes {
         public abstract void execute(WeakVariablePointersObject object, long index, Object value);
 
         @Specialization(guards = {"cachedIndex < cachedLayout.getInstSize()", "cachedIndex == index", "object.getLayout() == cachedLayout"}, //
-                        assumptions = "cachedLayout.getValidAssumption()", limit = "POINTERS_LAYOUT_CACHE_LIMIT")
+                        assumptions = "cachedLayout.getValidAssumption()", limit = "getPointersLayoutCacheLimit()")
         protected static final void doWriteCached(final WeakVariablePointersObject object, @SuppressWarnings("unused") final long index, final Object value,
                         @Cached("index") final long cachedIndex,
                         @SuppressWarnings("unused") @Cached("object.getLayout()") final ObjectLayout cachedLayout,
@@ -379,7 +381,7 @@ public class AbstractPointersObjectNodes {
         }
 
         @Specialization(guards = {"cachedIndex >= cachedLayout.getInstSize()", "cachedIndex == index", "object.getLayout() == cachedLayout"}, //
-                        assumptions = "cachedLayout.getValidAssumption()", limit = "POINTERS_VARIABLE_PART_CACHE_LIMIT")
+                        assumptions = "cachedLayout.getValidAssumption()", limit = "getPointersVariablePartCacheLimit()")
         protected static final void doWriteIntoVariablePartCached(final WeakVariablePointersObject object, @SuppressWarnings("unused") final long index, final Object value,
                         @Bind final Node node,
                         @Bind final SqueakImageContext image,
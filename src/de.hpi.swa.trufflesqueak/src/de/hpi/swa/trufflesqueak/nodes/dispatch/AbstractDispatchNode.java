@@ -16,6 +16,15 @@ public abstract class AbstractDispatchNode extends AbstractNode {
         this.selector = selector;
     }
 
+    /* Records the receiver class of a new inline cache entry for the polymorphism report. */
+    protected final LookupClassGuard observe(final LookupClassGuard guard) {
+        final PolymorphismReport report = getContext().getPolymorphismReport();
+        if (report != null) {
+            report.addReceiverClass(this, guard.getSqueakClassInternal(null));
+        }
+        return guard;
+    }
+
     @Override
     public final String toString() {
         return "send: " + selector.toString();
@@ -16,6 +16,7 @@ import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.GenerateCached;
 import com.oracle.truffle.api.dsl.GenerateInline;
 import com.oracle.truffle.api.dsl.ImportStatic;
+import com.oracle.truffle.api.dsl.Introspectable;
 import com.oracle.truffle.api.dsl.NeverDefault;
 import com.oracle.truffle.api.dsl.ReportPolymorphism;
 import com.oracle.truffle.api.dsl.Specialization;
@@ -48,6 +49,7 @@ import de.hpi.swa.trufflesqueak.util.ArrayUtils;
 import de.hpi.swa.trufflesqueak.util.FrameAccess;
 
 public final class DispatchSelector0Node extends DispatchSelectorNode {
+    @Introspectable
     public abstract static class Dispatch0Node extends AbstractDispatchNode {
         Dispatch0Node(final NativeObject selector) {
             super(selector);
@@ -55,10 +57,10 @@ public final class DispatchSelector0Node extends DispatchSelectorNode {
 
         public abstract Object execute(VirtualFrame frame, Object receiver);
 
-        @Specialization(guards = "guard.check(receiver)", assumptions = "dispatchDirectNode.getAssumptions()", limit = "INLINE_METHOD_CACHE_LIMIT")
+        @Specialization(guards = "guard.check(receiver)", assumptions = "dispatchDirectNode.getAssumptions()", limit = "getInlineMethodCacheLimit()")
         protected static final Object doDirect(final VirtualFrame frame, final Object receiver,
                         @SuppressWarnings("unused") @Cached("create(receiver)") final LookupClassGuard guard,
-                        @Cached("create(selector, guard)") final DispatchDirect0Node dispatchDirectNode) {
+                        @Cached("create(selector, observe(guard))") final DispatchDirect0Node dispatchDirectNode) {
             return dispatchDirectNode.execute(frame, receiver);
         }
 
@@ -263,6 +265,7 @@ public final class DispatchSelector0Node extends DispatchSelectorNode {
         protected static final Object doIndirect(final VirtualFrame frame, final boolean canPrimFail, final NativeObject selector, final Object receiver,
                         @Bind final Node node,
                         @Cached(inline = true) final SqueakObjectClassNode classNode,
+                        @Cached final LookupIndirectNode lookupNode,
                         @Cached final ResolveMethodNode methodNode,
                         @Cached final TryPrimitive0Node tryPrimitiveNode,
                         @Cached(inline = true) final GetOrCreateContextWithoutFrameNode senderNode,
@@ -270,7 +273,7 @@ public final class DispatchSelector0Node extends DispatchSelectorNode {
                         @Cached final IndirectCallNode callNode) {
             CompilerAsserts.partialEvaluationConstant(canPrimFail);
             final ClassObject receiverClass = classNode.executeLookup(node, receiver);
-            final Object lookupResult = getContext(node).lookup(receiverClass, selector);
+            final Object lookupResult = lookupNode.execute(node, receiverClass, selector);
             final CompiledCodeObject method = methodNode.execute(node, getContext(node), 0, canPrimFail, selector, receiverClass, lookupResult);
             final Object result = tryPrimitiveNode.execute(frame, method, receiver);
             if (result != null) {
@@ -291,7 +294,7 @@ public final class DispatchSelector0Node extends DispatchSelectorNode {
                 return null;
             }
 
-            @Specialization(guards = {"method == cachedMethod", "primitiveNode != null"}, limit = "INDIRECT_PRIMITIVE_CACHE_LIMIT")
+            @Specialization(guards = {"method == cachedMethod", "primitiveNode != null"}, limit = "getIndirectPrimitiveCacheLimit()")
             protected static final Object doCached(final VirtualFrame frame, @SuppressWarnings("unused") final CompiledCodeObject method, final Object receiver,
                             @Bind final Node node,
                             @SuppressWarnings("unused") @Cached("method") final CompiledCodeObject cachedMethod,
@@ -16,6 +16,7 @@ import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.GenerateCached;
 import com.oracle.truffle.api.dsl.GenerateInline;
 import com.oracle.truffle.api.dsl.ImportStatic;
+import com.oracle.truffle.api.dsl.Introspectable;
 import com.oracle.truffle.api.dsl.NeverDefault;
 import com.oracle.truffle.api.dsl.ReportPolymorphism;
 import com.oracle.truffle.api.dsl.Specialization;
@@ -47,6 +48,7 @@ import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveNodeFactory;
 import de.hpi.swa.trufflesqueak.util.FrameAccess;
 
 public final class DispatchSelector2Node extends DispatchSelectorNode {
+    @Introspectable
     public abstract static class Dispatch2Node extends AbstractDispatchNode {
         Dispatch2Node(final NativeObject selector) {
             super(selector);
@@ -54,10 +56,10 @@ public final class DispatchSelector2Node extends DispatchSelectorNode {
 
         public abstract Object execute(VirtualFrame frame, Object receiver, Object arg1, Object arg2);
 
-        @Specialization(guards = "guard.check(receiver)", assumptions = "dispatchDirectNode.getAssumptions()", limit = "INLINE_METHOD_CACHE_LIMIT")
+        @Specialization(guards = "guard.check(receiver)", assumptions = "dispatchDirectNode.getAssumptions()", limit = "getInlineMethodCacheLimit()")
         protected static final Object doDirect(final VirtualFrame frame, final Object receiver, final Object arg1, final Object arg2,
                         @SuppressWarnings("unused") @Cached("create(receiver)") final LookupClassGuard guard,
-                        @Cached("create(selector, guard)") final DispatchDirect2Node dispatchDirectNode) {
+                        @Cached("create(selector, observe(guard))") final DispatchDirect2Node dispatchDirectNode) {
             return dispatchDirectNode.execute(frame, receiver, arg1, arg2);
         }
 
@@ -262,6 +264,7 @@ public final class DispatchSelector2Node extends DispatchSelectorNode {
         protected static final Object doIndirect(final VirtualFrame frame, final boolean canPrimFail, final NativeObject selector, final Object receiver, final Object arg1, final Object arg2,
                         @Bind final Node node,
                         @Cached(inline = true) final SqueakObjectClassNode classNode,
+                        @Cached final LookupIndirectNode lookupNode,
                         @Cached final ResolveMethodNode methodNode,
                         @Cached final TryPrimitive2Node tryPrimitiveNode,
                         @Cached(inline = true) final GetOrCreateContextWithoutFrameNode senderNode,
@@ -269,7 +272,7 @@ public final class DispatchSelector2Node extends DispatchSelectorNode {
                         @Cached final IndirectCallNode callNode) {
             CompilerAsserts.partialEvaluationConstant(canPrimFail);
             final ClassObject receiverClass = classNode.executeLookup(node, receiver);
-            final Object lookupResult = getContext(node).lookup(receiverClass, selector);
+            final Object lookupResult = lookupNode.execute(node, receiverClass, selector);
             final CompiledCodeObject method = methodNode.execute(node, getContext(node), 2, canPrimFail, selector, receiverClass, lookupResult);
             final Object result = tryPrimitiveNode.execute(frame, method, receiver, arg1, arg2);
             if (result != null) {
@@ -290,7 +293,7 @@ public final class DispatchSelector2Node extends DispatchSelectorNode {
                 return null;
             }
 
-            @Specialization(guards = {"method == cachedMethod", "primitiveNode != null"}, limit = "INDIRECT_PRIMITIVE_CACHE_LIMIT")
+            @Specialization(guards = {"method == cachedMethod", "primitiveNode != null"}, limit = "getIndirectPrimitiveCacheLimit()")
             protected static final Object doCached(final VirtualFrame frame, @SuppressWarnings("unused") final CompiledCodeObject method, final Object receiver, final Object arg1, final Object arg2,
                             @Bind final Node node,
                             @SuppressWarnings("unused") @Cached("method") final CompiledCodeObject cachedMethod,
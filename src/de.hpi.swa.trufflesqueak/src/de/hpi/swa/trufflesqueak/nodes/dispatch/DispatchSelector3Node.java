@@ -232,6 +232,7 @@ public final class DispatchSelector3Node extends DispatchSelectorNode {
                         final Object arg3,
                         @Bind final Node node,
                         @Cached(inline = true) final SqueakObjectClassNode classNode,
+                        @Cached final LookupIndirectNode lookupNode,
                         @Cached final ResolveMethodNode methodNode,
                         @Cached final TryPrimitive3Node tryPrimitiveNode,
                         @Cached(inline = true) final GetOrCreateContextWithoutFrameNode senderNode,
@@ -239,7 +240,7 @@ public final class DispatchSelector3Node extends DispatchSelectorNode {
                         @Cached final IndirectCallNode callNode) {
             CompilerAsserts.partialEvaluationConstant(canPrimFail);
             final ClassObject receiverClass = classNode.executeLookup(node, receiver);
-            final Object lookupResult = getContext(node).lookup(receiverClass, selector);
+            final Object lookupResult = lookupNode.execute(node, receiverClass, selector);
             final CompiledCodeObject method = methodNode.execute(node, getContext(node), 3, canPrimFail, selector, receiverClass, lookupResult);
             final Object result = tryPrimitiveNode.execute(frame, method, receiver, arg1, arg2, arg3);
             if (result != null) {
@@ -260,7 +261,7 @@ public final class DispatchSelector3Node extends DispatchSelectorNode {
                 return null;
             }
 
-            @Specialization(guards = {"method == cachedMethod", "primitiveNode != null"}, limit = "INDIRECT_PRIMITIVE_CACHE_LIMIT")
+            @Specialization(guards = {"method == cachedMethod", "primitiveNode != null"}, limit = "getIndirectPrimitiveCacheLimit()")
             protected static final Object doCached(final VirtualFrame frame, @SuppressWarnings("unused") final CompiledCodeObject method, final Object receiver, final Object arg1, final Object arg2,
                             final Object arg3,
                             @Bind final Node node,
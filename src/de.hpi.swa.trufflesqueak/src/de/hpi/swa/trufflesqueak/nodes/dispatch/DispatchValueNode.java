@@ -40,7 +40,7 @@ public abstract class DispatchValueNode extends AbstractNode {
     @Specialization(guards = {
                     "closure.getCompiledBlock() == cachedBlock",
                     "cachedBlock.getNumArgs() == 0"
-    }, limit = "INLINE_BLOCK_CACHE_LIMIT", assumptions = "cachedBlock.getCallTargetStable()")
+    }, limit = "getInlineBlockCacheLimit()", assumptions = "cachedBlock.getCallTargetStable()")
     protected static final Object doBlock(final VirtualFrame frame, final BlockClosureObject closure,
                     @Bind final Node node,
                     @Cached(inline = true) @Shared("contextNode") final GetOrCreateContextWithoutFrameNode getOrCreateContextNode,
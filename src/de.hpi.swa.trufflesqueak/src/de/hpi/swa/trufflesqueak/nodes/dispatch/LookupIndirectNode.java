@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2017-2026 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2026 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.nodes.dispatch;
+
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateCached;
+import com.oracle.truffle.api.dsl.GenerateInline;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.Node;
+
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.model.ClassObject;
+import de.hpi.swa.trufflesqueak.model.NativeObject;
+import de.hpi.swa.trufflesqueak.nodes.AbstractNode;
+import de.hpi.swa.trufflesqueak.util.SelectorDispatchTable;
+
+/**
+ * Method lookup for indirect sends. Send sites always dispatch the same selector and use the
+ * {@link SelectorDispatchTable} of that selector, which is shared with all other megamorphic send
+ * sites of the selector. Sites with varying selectors (e.g., perform primitives) use the global
+ * method cache.
+ */
+@GenerateInline
+@GenerateCached(false)
+public abstract class LookupIndirectNode extends AbstractNode {
+
+    public abstract Object execute(Node node, ClassObject receiverClass, NativeObject selector);
+
+    @SuppressWarnings("unused")
+    @Specialization(guards = "selector == cachedSelector", limit = "1")
+    protected static final Object doSelectorTable(final ClassObject receiverClass, final NativeObject selector,
+                    @Cached("selector") final NativeObject cachedSelector,
+                    @Cached("getSelectorDispatchTable(cachedSelector)") final SelectorDispatchTable table) {
+        return table.lookup(receiverClass);
+    }
+
+    @Specialization(replaces = "doSelectorTable")
+    protected static final Object doMethodCache(final Node node, final ClassObject receiverClass, final NativeObject selector) {
+        return getContext(node).lookup(receiverClass, selector);
+    }
+
+    protected static final SelectorDispatchTable getSelectorDispatchTable(final NativeObject selector) {
+        return SqueakImageContext.getSlow().getSelectorDispatchTable(selector);
+    }
+}
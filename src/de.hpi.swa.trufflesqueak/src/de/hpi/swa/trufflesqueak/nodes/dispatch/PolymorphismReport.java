@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2025-2026 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2025-2026 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.nodes.dispatch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.graalvm.collections.EconomicSet;
+import org.graalvm.collections.Equivalence;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleLogger;
+import com.oracle.truffle.api.dsl.Introspection;
+import com.oracle.truffle.api.dsl.Introspection.SpecializationInfo;
+import com.oracle.truffle.api.nodes.RootNode;
+
+import de.hpi.swa.trufflesqueak.model.ClassObject;
+import de.hpi.swa.trufflesqueak.nodes.CacheLimits;
+import de.hpi.swa.trufflesqueak.util.LogUtils;
+
+/**
+ * Receiver classes observed by the inline caches of send sites (see
+ * {@link AbstractDispatchNode#observe}). Send sites are held weakly, so that the report does not
+ * keep the nodes of discarded methods alive. Sites that are collected before the report is printed
+ * on context exit are not reported.
+ */
+public final class PolymorphismReport {
+    /* Dispatch nodes do not override equals and hashCode, so they are compared by identity. */
+    private final Map<AbstractDispatchNode, EconomicSet<ClassObject>> sites = new WeakHashMap<>();
+
+    @TruffleBoundary
+    synchronized void addReceiverClass(final AbstractDispatchNode site, final ClassObject receiverClass) {
+        EconomicSet<ClassObject> receiverClasses = sites.get(site);
+        if (receiverClasses == null) {
+            receiverClasses = EconomicSet.create(Equivalence.IDENTITY);
+            sites.put(site, receiverClasses);
+        }
+        receiverClasses.add(receiverClass);
+    }
+
+    private record SiteInfo(String location, String selector, boolean isMegamorphic, List<String> receiverClassNames) {
+    }
+
+    @TruffleBoundary
+    public synchronized void print() {
+        final List<SiteInfo> infos = new ArrayList<>();
+        int numMegamorphic = 0;
+        for (final Map.Entry<AbstractDispatchNode, EconomicSet<ClassObject>> entry : sites.entrySet()) {
+            final AbstractDispatchNode site = entry.getKey();
+            final boolean isMegamorphic = isMegamorphic(site);
+            if (isMegamorphic) {
+                numMegamorphic++;
+            } else if (entry.getValue().size() < 2) {
+                continue; /* Only report polymorphic and megamorphic send sites. */
+            }
+            final List<String> receiverClassNames = new ArrayList<>(entry.getValue().size());
+            for (final ClassObject receiverClass : entry.getValue()) {
+                receiverClassNames.add(receiverClass == null ? "nil" : receiverClass.getClassName());
+            }
+            final RootNode rootNode = site.getRootNode();
+            infos.add(new SiteInfo(rootNode == null ? "<removed>" : rootNode.getName(), site.selector.asStringUnsafe(), isMegamorphic, receiverClassNames));
+        }
+        infos.sort(Comparator.comparing(SiteInfo::isMegamorphic).thenComparingInt(i -> i.receiverClassNames().size()).reversed().thenComparing(SiteInfo::location));
+
+        final TruffleLogger log = LogUtils.MAIN;
+        log.info("# Polymorphism Report");
+        log.info("- %d send sites with inline caches, %d polymorphic, %d megamorphic (limit: %d)".formatted(sites.size(), infos.size() - numMegamorphic, numMegamorphic,
+                        CacheLimits.getInlineMethodCacheLimit()));
+        for (final SiteInfo info : infos) {
+            log.info("- %s sends #%s%s to %d classes: %s".formatted(info.location(), info.selector(), info.isMegamorphic() ? " (megamorphic)" : "", info.receiverClassNames().size(),
+                            String.join(", ", info.receiverClassNames())));
+        }
+    }
+
+    private static boolean isMegamorphic(final AbstractDispatchNode site) {
+        if (!(site instanceof Introspection.Provider)) {
+            return false;
+        }
+        final SpecializationInfo indirect = Introspection.getSpecialization(site, "doIndirect");
+        return indirect != null && indirect.isActive();
+    }
+}
@@ -63,8 +63,8 @@ public abstract class CheckForInterruptsNode extends AbstractNode {
             final ArrayObject externalObjects = (ArrayObject) specialObjects[SPECIAL_OBJECT.EXTERNAL_OBJECTS_ARRAY];
             if (!externalObjects.isEmptyType()) {
                 final Object[] semaphores = externalObjects.getObjectStorage();
-                Integer semaIndex;
-                while ((semaIndex = istate.nextSemaphoreToSignal()) != null) {
+                int semaIndex;
+                while ((semaIndex = istate.nextSemaphoreToSignal()) != 0) {
                     final PointersObject result = signalNode.executeSignal(semaphores[semaIndex - 1], nextActiveProcess, nextActiveProcessYields);
                     if (result != nextActiveProcess) {
                         nextActiveProcessYields = true;
@@ -106,8 +106,8 @@ public abstract class CheckForInterruptsNode extends AbstractNode {
             final ArrayObject externalObjects = (ArrayObject) specialObjects[SPECIAL_OBJECT.EXTERNAL_OBJECTS_ARRAY];
             if (!externalObjects.isEmptyType()) {
                 final Object[] semaphores = externalObjects.getObjectStorage();
-                Integer semaIndex;
-                while ((semaIndex = istate.nextSemaphoreToSignal()) != null) {
+                int semaIndex;
+                while ((semaIndex = istate.nextSemaphoreToSignal()) != 0) {
                     final PointersObject result = SignalSemaphoreForInterruptNode.executeUncached(image, semaphores[semaIndex - 1], nextActiveProcess, nextActiveProcessYields);
                     if (result != nextActiveProcess) {
                         nextActiveProcessYields = true;
@@ -8,7 +8,6 @@ package de.hpi.swa.trufflesqueak.nodes.interrupts;
 
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
-import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.locks.LockSupport;
 
 import com.oracle.truffle.api.CompilerAsserts;
@@ -42,11 +41,13 @@ public final class CheckForInterruptsState {
     }
 
     private final SqueakImageContext image;
-    private final ConcurrentLinkedDeque<Integer> semaphoresToSignal = new ConcurrentLinkedDeque<>();
+    private final SemaphoreSignalQueue semaphoresToSignal = new SemaphoreSignalQueue();
 
     /**
-     * `interruptCheckNanos` is the interval between updates to 'shouldTrigger'. This controls the
-     * timing accuracy of Smalltalk Delays.
+     * `interruptCheckNanos` is the interval in which a timer interrupt that has not been handled yet
+     * (e.g., because interrupts are deactivated) is signaled again. The timer thread otherwise parks
+     * until `nextWakeupTick` is reached, so this no longer limits the timing accuracy of Smalltalk
+     * Delays.
      */
     private long interruptCheckNanos = DEFAULT_INTERRUPT_CHECK_NANOS;
 
@@ -56,7 +57,7 @@ public final class CheckForInterruptsState {
     private volatile boolean hasPendingFinalizations;
     @SuppressWarnings("unused") private boolean shouldTrigger;
 
-    private Thread thread;
+    private volatile Thread thread;
     private volatile Thread vmThread;
 
     public CheckForInterruptsState(final SqueakImageContext image) {
@@ -86,13 +87,20 @@ public final class CheckForInterruptsState {
             try {
                 while (!Thread.interrupted()) {
                     /*
-                     * Check for wake up interrupts; all other interrupt sources signal immediately.
+                     * Only wake up interrupts are signaled by this thread; all other interrupt
+                     * sources signal immediately. Park until the next wakeup tick is reached or
+                     * changed (see setNextWakeupTick), or indefinitely if there is none.
                      */
-                    if (nextWakeUpTickTrigger()) {
+                    final long wakeupTick = nextWakeupTick;
+                    if (wakeupTick == 0) {
+                        LockSupport.park(this);
+                    } else if (MiscUtils.currentTimeMillis() >= wakeupTick) {
                         SHOULD_TRIGGER.setOpaque(CheckForInterruptsState.this, true);
                         wakeupVM();
+                        LockSupport.parkNanos(this, interruptCheckNanos);
+                    } else {
+                        LockSupport.parkUntil(this, wakeupTick);
                     }
-                    LockSupport.parkNanos(interruptCheckNanos);
                 }
             } catch (Throwable t) {
                 LogUtils.severe("CheckForInterruptsThread FATAL CRASH", t);
@@ -213,6 +221,10 @@ public final class CheckForInterruptsState {
             }
         });
         nextWakeupTick = msTime;
+        if (msTime != 0) {
+            /* Let the timer thread park until the new wakeup tick. */
+            LockSupport.unpark(thread);
+        }
     }
 
     /* Finalization interrupt */
@@ -248,15 +260,23 @@ public final class CheckForInterruptsState {
         }
     }
 
-    public Integer nextSemaphoreToSignal() {
-        return semaphoresToSignal.pollFirst();
+    /** Returns the (one-based) index of the next semaphore to signal, or zero if there is none. */
+    public int nextSemaphoreToSignal() {
+        return semaphoresToSignal.poll();
     }
 
     @TruffleBoundary
     public void signalSemaphoreWithIndex(final int index) {
-        semaphoresToSignal.addLast(index);
-        SHOULD_TRIGGER.setOpaque(this, true);
-        wakeupVM();
+        if (semaphoresToSignal.offer(index)) {
+            SHOULD_TRIGGER.setOpaque(this, true);
+            wakeupVM();
+        } else {
+            LogUtils.INTERRUPTS.fine(() -> "Dropped signal for semaphore with index " + index);
+        }
+    }
+
+    public long getSemaphoreSignalOverflows() {
+        return semaphoresToSignal.getOverflows();
     }
 
     /*
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2017-2026 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2026 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.nodes.interrupts;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded multi-producer, single-consumer ring buffer of the indices of external semaphores to
+ * signal. Like the external semaphore table of the OpenSmalltalk VM, signals of a semaphore that is
+ * already pending are coalesced into one, so the queue cannot overflow for indices up to its
+ * capacity. Signals that do not fit are dropped and counted. Indices are stored as ints, so
+ * signaling does not allocate. Semaphore indices are one-based, so zero marks empty slots.
+ */
+public final class SemaphoreSignalQueue {
+    public static final int CAPACITY = 4096;
+    private static final int MASK = CAPACITY - 1;
+
+    private final AtomicIntegerArray slots = new AtomicIntegerArray(CAPACITY);
+    /* Pending flags for indices up to CAPACITY (signals of higher indices are not coalesced). */
+    private final AtomicIntegerArray pending = new AtomicIntegerArray(CAPACITY + 1);
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+    private volatile long head;
+
+    /** Returns false if index is invalid or the signal was dropped because the queue is full. */
+    public boolean offer(final int index) {
+        if (index <= 0) {
+            return false;
+        }
+        final boolean isCoalescing = index <= CAPACITY;
+        if (isCoalescing && !pending.compareAndSet(index, 0, 1)) {
+            return true; /* Already pending, the upcoming signal covers this one. */
+        }
+        long currentTail;
+        do {
+            currentTail = tail.get();
+            if (currentTail - head >= CAPACITY) {
+                if (isCoalescing) {
+                    pending.set(index, 0);
+                }
+                overflows.incrementAndGet();
+                return false;
+            }
+        } while (!tail.compareAndSet(currentTail, currentTail + 1));
+        slots.setRelease((int) currentTail & MASK, index);
+        return true;
+    }
+
+    /**
+     * Returns the next index to signal, or zero if there is none. Must only be called by the
+     * consumer thread.
+     */
+    public int poll() {
+        final long currentHead = head;
+        final int slot = (int) currentHead & MASK;
+        final int index = slots.getAcquire(slot);
+        if (index == 0) {
+            return 0; /* Empty or not published yet. */
+        }
+        slots.set(slot, 0);
+        head = currentHead + 1;
+        if (index <= CAPACITY) {
+            /* Clear before the semaphore is signaled, so that later signals are not lost. */
+            pending.set(index, 0);
+        }
+        return index;
+    }
+
+    public boolean isEmpty() {
+        return head == tail.get();
+    }
+
+    public long getOverflows() {
+        return overflows.get();
+    }
+
+    public void clear() {
+        while (poll() != 0) {
+            // Poll until empty.
+        }
+    }
+}
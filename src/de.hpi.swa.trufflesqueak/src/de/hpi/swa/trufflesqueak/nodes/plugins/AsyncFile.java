@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2017-2026 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2026 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.nodes.plugins;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import de.hpi.swa.trufflesqueak.nodes.interrupts.CheckForInterruptsState;
+import de.hpi.swa.trufflesqueak.util.LogUtils;
+
+/**
+ * A file opened by the {@link AsynchFilePlugin}. Reads and writes run on a pool of I/O threads and
+ * copy from and to a private buffer, so that no Smalltalk object is touched outside of the VM
+ * thread. When an operation completes, the semaphore of the file is signaled through
+ * {@link CheckForInterruptsState} and the result can be fetched with the corresponding result
+ * primitive. Only one operation can be in progress at a time.
+ */
+public final class AsyncFile implements Closeable {
+    public static final int BUSY = -1;
+    public static final int ERROR = -2;
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        final Thread thread = new Thread(r, "TruffleSqueakAsyncFile");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final SeekableByteChannel channel;
+    private final CheckForInterruptsState interrupt;
+    private final int semaphoreIndex;
+
+    private byte[] buffer = new byte[0];
+    /* Whether the last operation was a read, so that results are only answered for their kind. */
+    private boolean isReading;
+    /* Number of bytes transferred by the last operation, BUSY, or ERROR. */
+    private volatile int status;
+    private volatile boolean isClosed;
+
+    public AsyncFile(final SeekableByteChannel channel, final CheckForInterruptsState interrupt, final int semaphoreIndex) {
+        this.channel = channel;
+        this.interrupt = interrupt;
+        this.semaphoreIndex = semaphoreIndex;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public boolean isBusy() {
+        return status == BUSY;
+    }
+
+    /** Starts reading up to count bytes at position. Returns false if an operation is in progress. */
+    @TruffleBoundary
+    public boolean startRead(final long position, final int count) {
+        if (!tryStart()) {
+            return false;
+        }
+        final byte[] bytes = new byte[count];
+        buffer = bytes;
+        isReading = true;
+        return submit(() -> {
+            final ByteBuffer dst = ByteBuffer.wrap(bytes);
+            channel.position(position);
+            while (dst.hasRemaining() && channel.read(dst) >= 0) {
+                // Read until count bytes are read or the end of the file is reached.
+            }
+            return dst.position();
+        });
+    }
+
+    /**
+     * Copies the bytes of the last completed read into target (0-based startIndex) and returns
+     * their number, or returns BUSY or ERROR (also if the last operation was not a read).
+     */
+    @TruffleBoundary
+    public int readResult(final byte[] target, final int startIndex, final int count) {
+        if (!isReading) {
+            return ERROR;
+        }
+        final int currentStatus = status;
+        if (currentStatus < 0) {
+            return currentStatus;
+        }
+        final int length = Math.min(Math.min(currentStatus, buffer.length), count);
+        System.arraycopy(buffer, 0, target, startIndex, length);
+        return length;
+    }
+
+    /**
+     * Starts writing count bytes of source (0-based startIndex) at position. Returns false if an
+     * operation is in progress.
+     */
+    @TruffleBoundary
+    public boolean startWrite(final long position, final byte[] source, final int startIndex, final int count) {
+        if (!tryStart()) {
+            return false;
+        }
+        final byte[] bytes = new byte[count];
+        System.arraycopy(source, startIndex, bytes, 0, count);
+        buffer = bytes;
+        isReading = false;
+        return submit(() -> {
+            final ByteBuffer src = ByteBuffer.wrap(bytes);
+            channel.position(position);
+            while (src.hasRemaining()) {
+                channel.write(src);
+            }
+            return src.position();
+        });
+    }
+
+    /**
+     * Returns the number of bytes written by the last completed write, or BUSY or ERROR (also if
+     * the last operation was a read).
+     */
+    public int writeResult() {
+        return isReading ? ERROR : status;
+    }
+
+    @Override
+    @TruffleBoundary
+    public void close() {
+        isClosed = true;
+        try {
+            channel.close(); /* An operation in progress completes with an error. */
+        } catch (final IOException e) {
+            LogUtils.IO.log(Level.WARNING, "Failed to close async file", e);
+        }
+    }
+
+    private boolean tryStart() {
+        if (isClosed || status == BUSY) {
+            return false;
+        }
+        status = BUSY;
+        return true;
+    }
+
+    @FunctionalInterface
+    private interface IOOperation {
+        int run() throws IOException;
+    }
+
+    private boolean submit(final IOOperation operation) {
+        try {
+            EXECUTOR.execute(() -> complete(operation));
+            return true;
+        } catch (final RejectedExecutionException e) {
+            status = ERROR;
+            return false;
+        }
+    }
+
+    /* Runs on an I/O thread. */
+    private void complete(final IOOperation operation) {
+        int result;
+        try {
+            result = operation.run();
+        } catch (final IOException | RuntimeException e) {
+            if (!isClosed) {
+                LogUtils.IO.log(Level.WARNING, "Async file operation failed", e);
+            }
+            result = ERROR;
+        }
+        status = result;
+        interrupt.signalSemaphoreWithIndex(semaphoreIndex);
+    }
+}
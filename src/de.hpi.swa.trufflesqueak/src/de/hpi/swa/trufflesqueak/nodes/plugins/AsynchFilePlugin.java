@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2017-2026 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2026 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.nodes.plugins;
+
+import java.util.List;
+
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+
+import de.hpi.swa.trufflesqueak.exceptions.PrimitiveFailed;
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.model.NativeObject;
+import de.hpi.swa.trufflesqueak.model.PointersObject;
+import de.hpi.swa.trufflesqueak.nodes.plugins.FilePlugin.AbstractFilePluginPrimitiveNode;
+import de.hpi.swa.trufflesqueak.nodes.primitives.AbstractPrimitiveFactoryHolder;
+import de.hpi.swa.trufflesqueak.nodes.primitives.AbstractPrimitiveNode;
+import de.hpi.swa.trufflesqueak.nodes.primitives.Primitive.Primitive1WithFallback;
+import de.hpi.swa.trufflesqueak.nodes.primitives.Primitive.Primitive3WithFallback;
+import de.hpi.swa.trufflesqueak.nodes.primitives.Primitive.Primitive4WithFallback;
+import de.hpi.swa.trufflesqueak.nodes.primitives.Primitive.Primitive5WithFallback;
+import de.hpi.swa.trufflesqueak.nodes.primitives.SqueakPrimitive;
+
+/**
+ * Asynchronous file I/O compatible with the AsynchFilePlugin of the OpenSmalltalk VM. Reads and
+ * writes are started by one primitive and run on an I/O thread (see {@link AsyncFile}), so that
+ * other Smalltalk processes can run while waiting on the semaphore of the file. The result
+ * primitives answer the number of bytes transferred, or -1 (busy) or -2 (error).
+ */
+public final class AsynchFilePlugin extends AbstractPrimitiveFactoryHolder {
+
+    @Override
+    public List<? extends NodeFactory<? extends AbstractPrimitiveNode>> getFactories() {
+        return AsynchFilePluginFactory.getFactories();
+    }
+
+    protected abstract static class AbstractAsynchFilePluginPrimitiveNode extends AbstractFilePluginPrimitiveNode {
+        protected static final AsyncFile getAsyncFileOrPrimFail(final PointersObject handle) {
+            if (handle.getHiddenObject() instanceof final AsyncFile o) {
+                return o;
+            } else {
+                throw PrimitiveFailed.andTransferToInterpreter();
+            }
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveAsyncFileClose")
+    protected abstract static class PrimAsyncFileCloseNode extends AbstractAsynchFilePluginPrimitiveNode implements Primitive1WithFallback {
+        @Specialization
+        protected static final Object doClose(final Object receiver, final PointersObject fh) {
+            getAsyncFileOrPrimFail(fh).close();
+            return receiver;
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveAsyncFileOpen")
+    protected abstract static class PrimAsyncFileOpenNode extends AbstractAsynchFilePluginPrimitiveNode implements Primitive3WithFallback {
+        @Specialization(guards = {"fileName.isByteType()", "semaIndex > 0"})
+        protected static final PointersObject doOpen(@SuppressWarnings("unused") final Object receiver, final NativeObject fileName, final boolean writeFlag, final long semaIndex,
+                        @Bind final SqueakImageContext image) {
+            final AsyncFile asyncFile = new AsyncFile(FilePlugin.createChannelOrPrimFail(image, asPublicTruffleFile(image, fileName), writeFlag), image.interrupt, (int) semaIndex);
+            image.env.registerOnDispose(asyncFile);
+            return PointersObject.newHandleWithHiddenObject(image, asyncFile);
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveAsyncFileReadResult")
+    protected abstract static class PrimAsyncFileReadResultNode extends AbstractAsynchFilePluginPrimitiveNode implements Primitive4WithFallback {
+        @Specialization(guards = {"buffer.isByteType()", "inBounds(start, num, buffer.getByteLength())"})
+        protected static final long doReadResult(@SuppressWarnings("unused") final Object receiver, final PointersObject fh, final NativeObject buffer, final long start, final long num) {
+            return getAsyncFileOrPrimFail(fh).readResult(buffer.getByteStorage(), (int) start - 1, (int) num);
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveAsyncFileReadStart")
+    protected abstract static class PrimAsyncFileReadStartNode extends AbstractAsynchFilePluginPrimitiveNode implements Primitive3WithFallback {
+        @Specialization(guards = {"fPosition >= 0", "count >= 0", "fitsIntoInt(count)"})
+        protected static final Object doReadStart(final Object receiver, final PointersObject fh, final long fPosition, final long count) {
+            if (!getAsyncFileOrPrimFail(fh).startRead(fPosition, (int) count)) {
+                throw PrimitiveFailed.andTransferToInterpreter();
+            }
+            return receiver;
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveAsyncFileWriteResult")
+    protected abstract static class PrimAsyncFileWriteResultNode extends AbstractAsynchFilePluginPrimitiveNode implements Primitive1WithFallback {
+        @Specialization
+        protected static final long doWriteResult(@SuppressWarnings("unused") final Object receiver, final PointersObject fh) {
+            return getAsyncFileOrPrimFail(fh).writeResult();
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveAsyncFileWriteStart")
+    protected abstract static class PrimAsyncFileWriteStartNode extends AbstractAsynchFilePluginPrimitiveNode implements Primitive5WithFallback {
+        @Specialization(guards = {"fPosition >= 0", "buffer.isByteType()", "inBounds(start, num, buffer.getByteLength())"})
+        protected static final Object doWriteStart(final Object receiver, final PointersObject fh, final long fPosition, final NativeObject buffer, final long start, final long num) {
+            if (!getAsyncFileOrPrimFail(fh).startWrite(fPosition, buffer.getByteStorage(), (int) start - 1, (int) num)) {
+                throw PrimitiveFailed.andTransferToInterpreter();
+            }
+            return receiver;
+        }
+    }
+}
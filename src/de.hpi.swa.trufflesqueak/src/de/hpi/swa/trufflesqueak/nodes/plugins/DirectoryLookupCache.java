@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017-2026 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2026 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.nodes.plugins;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.TruffleFile;
+
+import de.hpi.swa.trufflesqueak.util.MiscUtils;
+
+/**
+ * Snapshots of directory listings for the {@link FilePlugin}, so that enumerating a directory entry
+ * by entry (primitiveDirectoryLookup) lists the directory only once instead of once per entry. A
+ * snapshot is taken when the first entry of a directory is looked up or when there is no recent
+ * snapshot of the directory. All snapshots are dropped when the FilePlugin modifies the file
+ * system.
+ */
+public final class DirectoryLookupCache {
+    private static final int MAX_SNAPSHOTS = 8;
+    private static final long TIMEOUT_MILLIS = 2_000;
+
+    private record Snapshot(TruffleFile[] files, long timestamp) {
+    }
+
+    private final LinkedHashMap<String, Snapshot> snapshots = new LinkedHashMap<>(MAX_SNAPSHOTS, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Snapshot> eldest) {
+            return size() > MAX_SNAPSHOTS;
+        }
+    };
+
+    /** Returns the files in directory, listing it again if refresh is set. */
+    @TruffleBoundary
+    public synchronized TruffleFile[] getFiles(final String path, final TruffleFile directory, final boolean refresh) throws IOException {
+        final long now = MiscUtils.currentTimeMillis();
+        Snapshot snapshot = refresh ? null : snapshots.get(path);
+        if (snapshot == null || now - snapshot.timestamp() > TIMEOUT_MILLIS) {
+            snapshot = new Snapshot(listFiles(directory), now);
+            snapshots.put(path, snapshot);
+        }
+        return snapshot.files();
+    }
+
+    @TruffleBoundary
+    public static TruffleFile[] listFiles(final TruffleFile directory) throws IOException {
+        final ArrayList<TruffleFile> files = new ArrayList<>();
+        try (DirectoryStream<TruffleFile> stream = directory.newDirectoryStream()) {
+            for (final TruffleFile file : stream) {
+                files.add(file);
+            }
+        }
+        return files.toArray(new TruffleFile[0]);
+    }
+
+    @TruffleBoundary
+    public synchronized void invalidate() {
+        snapshots.clear();
+    }
+}
@@ -9,8 +9,11 @@ package de.hpi.swa.trufflesqueak.nodes.plugins;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonReadableChannelException;
+import java.nio.channels.NonWritableChannelException;
 import java.nio.channels.SeekableByteChannel;
-import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystems;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
@@ -46,17 +49,23 @@ import de.hpi.swa.trufflesqueak.nodes.primitives.Primitive.Primitive1WithFallbac
 import de.hpi.swa.trufflesqueak.nodes.primitives.Primitive.Primitive2WithFallback;
 import de.hpi.swa.trufflesqueak.nodes.primitives.Primitive.Primitive3WithFallback;
 import de.hpi.swa.trufflesqueak.nodes.primitives.Primitive.Primitive4WithFallback;
+import de.hpi.swa.trufflesqueak.nodes.primitives.Primitive.Primitive5WithFallback;
 import de.hpi.swa.trufflesqueak.nodes.primitives.SqueakPrimitive;
 import de.hpi.swa.trufflesqueak.util.LogUtils;
 import de.hpi.swa.trufflesqueak.util.MiscUtils;
 import de.hpi.swa.trufflesqueak.util.OS;
-import de.hpi.swa.trufflesqueak.util.VarHandleUtils;
 
 public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
     private static final List<AttributeDescriptor<? extends Comparable<?>>> ENTRY_ATTRIBUTES = List.of(
                     TruffleFile.LAST_MODIFIED_TIME, TruffleFile.CREATION_TIME, TruffleFile.IS_DIRECTORY, TruffleFile.SIZE);
     private static final EnumSet<StandardOpenOption> OPTIONS_DEFAULT = EnumSet.of(StandardOpenOption.READ);
     private static final EnumSet<StandardOpenOption> OPTIONS_WRITEABLE = EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.READ, StandardOpenOption.CREATE);
+    /*
+     * Direct buffer for reading and writing short, int, and long storage in chunks. Channels transfer
+     * directly from and to it, and views of it copy whole chunks from and to the storage arrays.
+     */
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<ByteBuffer> TRANSFER_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(TRANSFER_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN));
 
     public static final class STDIO_HANDLES {
         public static final byte IN = 0;
@@ -81,6 +90,14 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
             }
         }
 
+        protected static final MappedFileRegion getMappedFileRegionOrPrimFail(final PointersObject handle) {
+            if (handle.getHiddenObject() instanceof final MappedFileRegion o) {
+                return o;
+            } else {
+                throw PrimitiveFailed.andTransferToInterpreter();
+            }
+        }
+
         protected static final Object getChannelOrNil(final PointersObject handle) {
             return handle.getHiddenObject();
         }
@@ -93,10 +110,39 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
             return image.env.getPublicTruffleFile(obj);
         }
 
+        protected static final String toDirectoryPathName(final NativeObject nativePathName) {
+            final String pathName = nativePathName.asStringUnsafe();
+            if (OS.isWindows() && !pathName.endsWith("\\")) {
+                return pathName + "\\"; // new File("C:") will fail, we need to add a trailing backslash.
+            }
+            return pathName;
+        }
+
+        protected static final TruffleFile asReadableDirectoryOrPrimFail(final SqueakImageContext image, final String pathName) {
+            final TruffleFile directory = asPublicTruffleFile(image, pathName);
+            if (!(directory.isDirectory() && directory.isReadable())) {
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+            return directory;
+        }
+
         protected static final boolean inBounds(final long startIndex, final long count, final int slotSize) {
             return startIndex >= 1 && count >= 0 && count <= slotSize - startIndex + 1;
         }
 
+        protected static final int elementLength(final NativeObject object) {
+            if (object.isByteType()) {
+                return object.getByteLength();
+            } else if (object.isShortType()) {
+                return object.getShortLength();
+            } else if (object.isIntType()) {
+                return object.getIntLength();
+            } else {
+                assert object.isLongType();
+                return object.getLongLength();
+            }
+        }
+
         protected static final boolean isStdioFileDescriptor(final PointersObject fd) {
             return fd.getHiddenObject() instanceof Byte;
         }
@@ -119,11 +165,14 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
-    private static SeekableByteChannel createChannelOrPrimFail(final SqueakImageContext image, final TruffleFile truffleFile, final boolean writableFlag) {
+    static SeekableByteChannel createChannelOrPrimFail(final SqueakImageContext image, final TruffleFile truffleFile, final boolean writableFlag) {
         final TruffleFile parent = truffleFile.getParent();
         if (parent == null || !parent.exists() || !writableFlag && !truffleFile.exists()) {
             throw PrimitiveFailed.GENERIC_ERROR;
         }
+        if (writableFlag && !truffleFile.exists()) {
+            image.directoryLookupCache.invalidate(); /* File is about to be created. */
+        }
         try {
             final SeekableByteChannel channel = truffleFile.newByteChannel(writableFlag ? OPTIONS_WRITEABLE : OPTIONS_DEFAULT);
             image.env.registerOnDispose(channel);
@@ -158,6 +207,87 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
         LogUtils.IO.log(Level.WARNING, message, e);
     }
 
+    /**
+     * Reads up to count elements into storage (a short[], int[], or long[], 0-based startIndex) and
+     * returns the number of elements read. Stops after the first short read, like a single read
+     * into a byte array would. Trailing bytes of an incomplete element are dropped.
+     */
+    @TruffleBoundary(transferToInterpreterOnException = false)
+    private static long readElements(final SeekableByteChannel channel, final Object storage, final int startIndex, final int count, final int elementSize) {
+        final ByteBuffer buffer = TRANSFER_BUFFER.get();
+        final int elementsPerChunk = TRANSFER_BUFFER_SIZE / elementSize;
+        int elementsRead = 0;
+        try {
+            while (elementsRead < count) {
+                final int chunkLength = Math.min(count - elementsRead, elementsPerChunk) * elementSize;
+                buffer.clear().limit(chunkLength);
+                final int readBytes = channel.read(buffer);
+                if (readBytes <= 0) {
+                    break;
+                }
+                buffer.flip();
+                final int elements = readBytes / elementSize;
+                copyFromBuffer(buffer, storage, startIndex + elementsRead, elements);
+                elementsRead += elements;
+                if (readBytes < chunkLength) {
+                    break;
+                }
+            }
+        } catch (final IOException e) {
+            log("Failed to read from channel", e);
+            throw PrimitiveFailed.GENERIC_ERROR;
+        }
+        return elementsRead;
+    }
+
+    /**
+     * Writes count elements of storage (a short[], int[], or long[], 0-based startIndex) and returns
+     * the number of elements written. Stops after the first short write.
+     */
+    @TruffleBoundary(transferToInterpreterOnException = false)
+    private static long writeElements(final SeekableByteChannel channel, final Object storage, final int startIndex, final int count, final int elementSize) {
+        final ByteBuffer buffer = TRANSFER_BUFFER.get();
+        final int elementsPerChunk = TRANSFER_BUFFER_SIZE / elementSize;
+        int elementsWritten = 0;
+        try {
+            while (elementsWritten < count) {
+                final int elements = Math.min(count - elementsWritten, elementsPerChunk);
+                buffer.clear();
+                copyToBuffer(storage, startIndex + elementsWritten, elements, buffer);
+                buffer.limit(elements * elementSize);
+                final int writtenBytes = channel.write(buffer);
+                elementsWritten += writtenBytes / elementSize;
+                if (writtenBytes < elements * elementSize) {
+                    break;
+                }
+            }
+        } catch (final IOException e) {
+            log("Failed to write to file", e);
+            throw PrimitiveFailed.GENERIC_ERROR;
+        }
+        return elementsWritten;
+    }
+
+    private static void copyFromBuffer(final ByteBuffer buffer, final Object storage, final int offset, final int length) {
+        if (storage instanceof final int[] ints) {
+            buffer.asIntBuffer().get(ints, offset, length);
+        } else if (storage instanceof final long[] longs) {
+            buffer.asLongBuffer().get(longs, offset, length);
+        } else {
+            buffer.asShortBuffer().get((short[]) storage, offset, length);
+        }
+    }
+
+    private static void copyToBuffer(final Object storage, final int offset, final int length, final ByteBuffer buffer) {
+        if (storage instanceof final int[] ints) {
+            buffer.asIntBuffer().put(ints, offset, length);
+        } else if (storage instanceof final long[] longs) {
+            buffer.asLongBuffer().put(longs, offset, length);
+        } else {
+            buffer.asShortBuffer().put((short[]) storage, offset, length);
+        }
+    }
+
     @GenerateNodeFactory
     @SqueakPrimitive(names = "primitiveDirectoryCreate")
     protected abstract static class PrimDirectoryCreateNode extends AbstractFilePluginPrimitiveNode implements Primitive1WithFallback {
@@ -175,6 +305,7 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
             }
             try {
                 file.createDirectory();
+                image.directoryLookupCache.invalidate();
             } catch (IOException | UnsupportedOperationException | SecurityException e) {
                 log("Failed to create directory", e);
                 throw PrimitiveFailed.andTransferToInterpreter();
@@ -192,6 +323,7 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
                         @Bind final SqueakImageContext image) {
             try {
                 asPublicTruffleFile(image, fullPath).delete();
+                image.directoryLookupCache.invalidate();
             } catch (IOException | UnsupportedOperationException | SecurityException e) {
                 log("Failed to delete directory", e);
                 throw PrimitiveFailed.andTransferToInterpreter();
@@ -268,29 +400,30 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
             }
         }
 
+        /*
+         * Directories are enumerated by looking up entries with increasing indices, so the files
+         * of a directory are listed when its first entry is looked up and then served from the
+         * directory lookup cache.
+         */
         @Specialization(guards = {"index > 0", "nativePathName.isByteType()", "nativePathName.getByteLength() > 0"})
         @TruffleBoundary(transferToInterpreterOnException = false)
         protected static final Object doLookup(@SuppressWarnings("unused") final Object receiver, final NativeObject nativePathName, final long index,
                         @Bind final SqueakImageContext image) {
-            String pathName = nativePathName.asStringUnsafe();
-            if (OS.isWindows() && !pathName.endsWith("\\")) {
-                pathName += "\\"; // new File("C:") will fail, we need to add a trailing backslash.
-            }
-            final TruffleFile directory = asPublicTruffleFile(image, pathName);
-            if (!(directory.isDirectory() && directory.isReadable())) {
-                throw PrimitiveFailed.GENERIC_ERROR;
-            }
-            long count = index;
-            try (DirectoryStream<TruffleFile> stream = directory.newDirectoryStream()) {
-                for (final TruffleFile file : stream) {
-                    if (count-- <= 1 && file.exists()) {
-                        return newFileEntry(image, file);
-                    }
-                }
+            final String pathName = toDirectoryPathName(nativePathName);
+            final TruffleFile directory = asReadableDirectoryOrPrimFail(image, pathName);
+            final TruffleFile[] files;
+            try {
+                files = image.directoryLookupCache.getFiles(pathName, directory, index == 1);
             } catch (final IOException e) {
                 log("Failed to access directory", e);
                 throw PrimitiveFailed.GENERIC_ERROR;
             }
+            for (long i = index - 1; i < files.length; i++) {
+                final TruffleFile file = files[(int) i];
+                if (file.exists()) {
+                    return newFileEntry(image, file);
+                }
+            }
             return NilObject.SINGLETON;
         }
 
@@ -301,6 +434,36 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
         }
     }
 
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveDirectoryEntries")
+    protected abstract static class PrimDirectoryEntriesNode extends AbstractFilePluginPrimitiveNode implements Primitive1WithFallback {
+
+        /* Answers the entries of a directory (as answered by primitiveDirectoryLookup) at once. */
+        @Specialization(guards = {"nativePathName.isByteType()", "nativePathName.getByteLength() > 0"})
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final Object doEntries(@SuppressWarnings("unused") final Object receiver, final NativeObject nativePathName,
+                        @Bind final SqueakImageContext image) {
+            final TruffleFile directory = asReadableDirectoryOrPrimFail(image, toDirectoryPathName(nativePathName));
+            final TruffleFile[] files;
+            try {
+                files = DirectoryLookupCache.listFiles(directory);
+            } catch (final IOException e) {
+                log("Failed to access directory", e);
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+            final ArrayList<Object> entries = new ArrayList<>(files.length);
+            for (final TruffleFile file : files) {
+                if (file.exists()) {
+                    final Object entry = newFileEntry(image, file);
+                    if (entry != NilObject.SINGLETON) {
+                        entries.add(entry);
+                    }
+                }
+            }
+            return image.asArrayOfObjects(entries.toArray());
+        }
+    }
+
     @GenerateNodeFactory
     @SqueakPrimitive(names = "primitiveDirectoryGetMacTypeAndCreator")
     protected abstract static class PrimDirectoryGetMacTypeAndCreatorNode extends AbstractPrimitiveNode implements Primitive3WithFallback {
@@ -401,6 +564,7 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
             }
             try {
                 file.delete();
+                image.directoryLookupCache.invalidate();
             } catch (final IOException e) {
                 log("Failed to delete file", e);
                 throw PrimitiveFailed.andTransferToInterpreter();
@@ -467,6 +631,30 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
         }
     }
 
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveFileMap")
+    protected abstract static class PrimFileMapNode extends AbstractFilePluginPrimitiveNode implements Primitive4WithFallback {
+
+        /* Maps size bytes at position of the file into memory (see MappedFileRegion). */
+        @Specialization(guards = {"!isStdioFileDescriptor(fd)", "position >= 0", "size >= 0"})
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final PointersObject doMap(@SuppressWarnings("unused") final Object receiver, final PointersObject fd, final long position, final long size, final boolean writableFlag,
+                        @Bind final SqueakImageContext image) {
+            if (!(getChannelOrPrimFail(fd) instanceof final FileChannel channel)) {
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+            final MappedFileRegion region;
+            try {
+                region = MappedFileRegion.map(channel, position, size, writableFlag);
+            } catch (IOException | UnsupportedOperationException | IllegalArgumentException | NonReadableChannelException | NonWritableChannelException e) {
+                log("Failed to map file", e);
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+            image.env.registerOnDispose(region);
+            return PointersObject.newHandleWithHiddenObject(image, region);
+        }
+    }
+
     @GenerateNodeFactory
     @SqueakPrimitive(names = "primitiveFileOpen")
     protected abstract static class PrimFileOpenNode extends AbstractFilePluginPrimitiveNode implements Primitive2WithFallback {
@@ -498,38 +686,19 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
             }
         }
 
-        @Specialization(guards = {"!isStdioFileDescriptor(fd)", "target.isIntType()", "inBounds(startIndex, count, target.getIntLength())"})
-        protected static final long doReadInts(@SuppressWarnings("unused") final Object receiver, final PointersObject fd, final NativeObject target, final long startIndex, final long count) {
-            final ByteBuffer dst = allocate((int) count * Integer.BYTES);
-            final long readBytes = readFrom(getChannelOrPrimFail(fd), dst);
-            final long actualReadBytes = Math.max(readBytes, 0L);
-            final byte[] bytes = getBytes(dst);
-            final long readInts = actualReadBytes / Integer.BYTES;
-            // TODO: could use UnsafeUtils.copyMemory here?
-            for (int index = 0; index < readInts; index++) {
-                target.setInt(startIndex - 1 + index, VarHandleUtils.getInt(bytes, index));
-            }
-            return readInts;
-        }
-
-        @TruffleBoundary
-        private static ByteBuffer allocate(final int count) {
-            return ByteBuffer.allocate(count);
+        @Specialization(guards = {"!isStdioFileDescriptor(fd)", "target.isShortType()", "inBounds(startIndex, count, target.getShortLength())"})
+        protected static final long doReadShorts(@SuppressWarnings("unused") final Object receiver, final PointersObject fd, final NativeObject target, final long startIndex, final long count) {
+            return readElements(getChannelOrPrimFail(fd), target.getShortStorage(), (int) startIndex - 1, (int) count, Short.BYTES);
         }
 
-        @TruffleBoundary(transferToInterpreterOnException = false)
-        private static int readFrom(final SeekableByteChannel channel, final ByteBuffer dst) {
-            try {
-                return channel.read(dst);
-            } catch (final IOException e) {
-                log("Failed to read from channel", e);
-                throw PrimitiveFailed.GENERIC_ERROR;
-            }
+        @Specialization(guards = {"!isStdioFileDescriptor(fd)", "target.isIntType()", "inBounds(startIndex, count, target.getIntLength())"})
+        protected static final long doReadInts(@SuppressWarnings("unused") final Object receiver, final PointersObject fd, final NativeObject target, final long startIndex, final long count) {
+            return readElements(getChannelOrPrimFail(fd), target.getIntStorage(), (int) startIndex - 1, (int) count, Integer.BYTES);
         }
 
-        @TruffleBoundary
-        private static byte[] getBytes(final ByteBuffer dst) {
-            return dst.array();
+        @Specialization(guards = {"!isStdioFileDescriptor(fd)", "target.isLongType()", "inBounds(startIndex, count, target.getLongLength())"})
+        protected static final long doReadLongs(@SuppressWarnings("unused") final Object receiver, final PointersObject fd, final NativeObject target, final long startIndex, final long count) {
+            return readElements(getChannelOrPrimFail(fd), target.getLongStorage(), (int) startIndex - 1, (int) count, Long.BYTES);
         }
 
         @SuppressWarnings("unused")
@@ -548,6 +717,7 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
                         @Bind final SqueakImageContext image) {
             try {
                 asPublicTruffleFile(image, oldName).move(asPublicTruffleFile(image, newName));
+                image.directoryLookupCache.invalidate();
             } catch (final IOException e) {
                 log("Failed to move file", e);
                 throw PrimitiveFailed.andTransferToInterpreter();
@@ -676,16 +846,19 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
             return count;
         }
 
+        @Specialization(guards = {"!isStdioFileDescriptor(fd)", "content.isShortType()", "inBounds(startIndex, count, content.getShortLength())"})
+        protected static final long doWriteShort(@SuppressWarnings("unused") final Object receiver, final PointersObject fd, final NativeObject content, final long startIndex, final long count) {
+            return writeElements(getChannelOrPrimFail(fd), content.getShortStorage(), (int) startIndex - 1, (int) count, Short.BYTES);
+        }
+
         @Specialization(guards = {"!isStdioFileDescriptor(fd)", "content.isIntType()", "inBounds(startIndex, count, content.getIntLength())"})
-        @TruffleBoundary(transferToInterpreterOnException = false)
         protected static final long doWriteInt(@SuppressWarnings("unused") final Object receiver, final PointersObject fd, final NativeObject content, final long startIndex, final long count) {
-            // TODO: use ByteBuffer or UnsafeUtils here?
-            final int[] ints = content.getIntStorage();
-            final byte[] bytes = new byte[(int) count * Integer.BYTES];
-            for (int i = 0; i < count; i++) {
-                VarHandleUtils.putInt(bytes, i, ints[(int) (startIndex - 1 + i)]);
-            }
-            return fileWriteFromAt(fd, count, bytes, 1, 4);
+            return writeElements(getChannelOrPrimFail(fd), content.getIntStorage(), (int) startIndex - 1, (int) count, Integer.BYTES);
+        }
+
+        @Specialization(guards = {"!isStdioFileDescriptor(fd)", "content.isLongType()", "inBounds(startIndex, count, content.getLongLength())"})
+        protected static final long doWriteLong(@SuppressWarnings("unused") final Object receiver, final PointersObject fd, final NativeObject content, final long startIndex, final long count) {
+            return writeElements(getChannelOrPrimFail(fd), content.getLongStorage(), (int) startIndex - 1, (int) count, Long.BYTES);
         }
 
         @Specialization(guards = {"!isStdioFileDescriptor(fd)", "inBounds(startIndex, count, WORD_LENGTH)"})
@@ -746,6 +919,64 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
         }
     }
 
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveMappedFileFlush")
+    protected abstract static class PrimMappedFileFlushNode extends AbstractFilePluginPrimitiveNode implements Primitive1WithFallback {
+
+        @Specialization
+        protected static final Object doFlush(final Object receiver, final PointersObject regionHandle) {
+            getMappedFileRegionOrPrimFail(regionHandle).flush();
+            return receiver;
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveMappedFileRead")
+    protected abstract static class PrimMappedFileReadNode extends AbstractFilePluginPrimitiveNode implements Primitive5WithFallback {
+
+        /* Reads count elements of target (of any storage type) starting at the byte position. */
+        @Specialization(guards = "inBounds(startIndex, count, elementLength(target))")
+        protected static final long doRead(@SuppressWarnings("unused") final Object receiver, final PointersObject regionHandle, final long position, final NativeObject target,
+                        final long startIndex, final long count) {
+            getMappedFileRegionOrPrimFail(regionHandle).read(position, target, (int) startIndex - 1, (int) count);
+            return count;
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveMappedFileSize")
+    protected abstract static class PrimMappedFileSizeNode extends AbstractFilePluginPrimitiveNode implements Primitive1WithFallback {
+
+        @Specialization
+        protected static final long doSize(@SuppressWarnings("unused") final Object receiver, final PointersObject regionHandle) {
+            return getMappedFileRegionOrPrimFail(regionHandle).size();
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveMappedFileUnmap")
+    protected abstract static class PrimMappedFileUnmapNode extends AbstractFilePluginPrimitiveNode implements Primitive1WithFallback {
+
+        @Specialization
+        protected static final Object doUnmap(final Object receiver, final PointersObject regionHandle) {
+            getMappedFileRegionOrPrimFail(regionHandle).close();
+            return receiver;
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveMappedFileWrite")
+    protected abstract static class PrimMappedFileWriteNode extends AbstractFilePluginPrimitiveNode implements Primitive5WithFallback {
+
+        /* Writes count elements of source (of any storage type) starting at the byte position. */
+        @Specialization(guards = "inBounds(startIndex, count, elementLength(source))")
+        protected static final long doWrite(@SuppressWarnings("unused") final Object receiver, final PointersObject regionHandle, final long position, final NativeObject source,
+                        final long startIndex, final long count) {
+            getMappedFileRegionOrPrimFail(regionHandle).write(position, source, (int) startIndex - 1, (int) count);
+            return count;
+        }
+    }
+
     @GenerateNodeFactory
     @SqueakPrimitive(names = "primitiveSetWorkingDirectory")
     protected abstract static class PrimSetWorkingDirectoryNode extends AbstractPrimitiveNode implements Primitive1WithFallback {
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2017-2026 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2026 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.nodes.plugins;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.reflect.Array;
+import java.nio.channels.FileChannel;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import de.hpi.swa.trufflesqueak.exceptions.PrimitiveFailed;
+import de.hpi.swa.trufflesqueak.model.NativeObject;
+
+/**
+ * A region of a file that is mapped into memory by the {@link FilePlugin}. Regions can be larger
+ * than 2GB and are copied from and to the storage of {@link NativeObject}s without going through
+ * the file channel. Regions are unmapped explicitly or when the context is disposed.
+ */
+public final class MappedFileRegion implements Closeable {
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final boolean isWritable;
+    private boolean isUnmapped;
+
+    private MappedFileRegion(final Arena arena, final MemorySegment segment, final boolean isWritable) {
+        this.arena = arena;
+        this.segment = segment;
+        this.isWritable = isWritable;
+    }
+
+    @TruffleBoundary
+    public static MappedFileRegion map(final FileChannel channel, final long position, final long size, final boolean isWritable) throws IOException {
+        final Arena arena = Arena.ofShared();
+        try {
+            return new MappedFileRegion(arena, channel.map(isWritable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, position, size, arena), isWritable);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    public long size() {
+        checkMapped();
+        return segment.byteSize();
+    }
+
+    /* Copies count elements of target's storage type from the region at position into target (0-based startIndex). */
+    @TruffleBoundary
+    public void read(final long position, final NativeObject target, final int startIndex, final int count) {
+        checkMapped();
+        final Object storage = storageOf(target);
+        checkBounds(position, storage, startIndex, count, elementLayout(target));
+        MemorySegment.copy(segment, elementLayout(target), position, storage, startIndex, count);
+    }
+
+    /* Copies count elements of source's storage type from source into the region at position. */
+    @TruffleBoundary
+    public void write(final long position, final NativeObject source, final int startIndex, final int count) {
+        checkMapped();
+        if (!isWritable) {
+            throw PrimitiveFailed.GENERIC_ERROR;
+        }
+        final Object storage = storageOf(source);
+        checkBounds(position, storage, startIndex, count, elementLayout(source));
+        MemorySegment.copy(storage, startIndex, segment, elementLayout(source), position, count);
+    }
+
+    @TruffleBoundary
+    public void flush() {
+        checkMapped();
+        if (isWritable) {
+            segment.force();
+        }
+    }
+
+    @Override
+    @TruffleBoundary
+    public synchronized void close() {
+        if (!isUnmapped) {
+            isUnmapped = true;
+            arena.close();
+        }
+    }
+
+    private void checkMapped() {
+        if (isUnmapped) {
+            throw PrimitiveFailed.GENERIC_ERROR;
+        }
+    }
+
+    private void checkBounds(final long position, final Object storage, final int startIndex, final int count, final ValueLayout layout) {
+        if (startIndex < 0 || count < 0 || count > Array.getLength(storage) - startIndex || position < 0 || position > segment.byteSize() - count * layout.byteSize()) {
+            throw PrimitiveFailed.BAD_INDEX;
+        }
+    }
+
+    private static Object storageOf(final NativeObject object) {
+        if (object.isByteType()) {
+            return object.getByteStorage();
+        } else if (object.isShortType()) {
+            return object.getShortStorage();
+        } else if (object.isIntType()) {
+            return object.getIntStorage();
+        } else {
+            assert object.isLongType();
+            return object.getLongStorage();
+        }
+    }
+
+    /* Unaligned layouts in native byte order, so that positions can be arbitrary byte offsets. */
+    private static ValueLayout elementLayout(final NativeObject object) {
+        if (object.isByteType()) {
+            return ValueLayout.JAVA_BYTE;
+        } else if (object.isShortType()) {
+            return ValueLayout.JAVA_SHORT_UNALIGNED;
+        } else if (object.isIntType()) {
+            return ValueLayout.JAVA_INT_UNALIGNED;
+        } else {
+            assert object.isLongType();
+            return ValueLayout.JAVA_LONG_UNALIGNED;
+        }
+    }
+}
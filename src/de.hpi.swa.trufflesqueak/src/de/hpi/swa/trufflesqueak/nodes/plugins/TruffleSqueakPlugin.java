@@ -10,24 +10,39 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.NodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.DirectCallNode;
+import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.RootNode;
 
 import de.hpi.swa.trufflesqueak.exceptions.PrimitiveFailed;
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.image.SqueakImageWriter;
 import de.hpi.swa.trufflesqueak.interop.JavaObjectWrapper;
+import de.hpi.swa.trufflesqueak.model.ArrayObject;
+import de.hpi.swa.trufflesqueak.model.BooleanObject;
+import de.hpi.swa.trufflesqueak.model.ContextObject;
 import de.hpi.swa.trufflesqueak.model.NativeObject;
+import de.hpi.swa.trufflesqueak.nodes.context.GetOrCreateContextWithFrameNode;
 import de.hpi.swa.trufflesqueak.nodes.interpreter.AbstractInterpreterNode;
 import de.hpi.swa.trufflesqueak.nodes.primitives.AbstractPrimitiveFactoryHolder;
 import de.hpi.swa.trufflesqueak.nodes.primitives.AbstractPrimitiveNode;
+import de.hpi.swa.trufflesqueak.nodes.primitives.AbstractPrimitiveNode.AbstractPrimitiveWithFrameNode;
 import de.hpi.swa.trufflesqueak.nodes.primitives.Primitive.Primitive0;
+import de.hpi.swa.trufflesqueak.nodes.primitives.Primitive.Primitive0WithFallback;
 import de.hpi.swa.trufflesqueak.nodes.primitives.Primitive.Primitive1;
 import de.hpi.swa.trufflesqueak.nodes.primitives.Primitive.Primitive1WithFallback;
+import de.hpi.swa.trufflesqueak.nodes.primitives.Primitive.Primitive3WithFallback;
 import de.hpi.swa.trufflesqueak.nodes.primitives.SqueakPrimitive;
 import de.hpi.swa.trufflesqueak.util.LogUtils;
+import de.hpi.swa.trufflesqueak.util.MiscUtils;
 
 public final class TruffleSqueakPlugin extends AbstractPrimitiveFactoryHolder {
 
@@ -50,6 +65,99 @@ public final class TruffleSqueakPlugin extends AbstractPrimitiveFactoryHolder {
         }
     }
 
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveSnapshotWithAsyncWrite")
+    protected abstract static class PrimSnapshotWithAsyncWriteNode extends AbstractPrimitiveWithFrameNode implements Primitive1WithFallback {
+        @Specialization(guards = "semaphoreIndex >= 0")
+        public final boolean doSnapshot(final VirtualFrame frame, @SuppressWarnings("unused") final Object receiver, final long semaphoreIndex,
+                        @Bind final Node node,
+                        @Bind final SqueakImageContext image,
+                        @Cached(inline = true) final GetOrCreateContextWithFrameNode getOrCreateContextNode) {
+            if (!writeImageWithAsyncWrite(image, getOrCreateContextNode.executeGet(frame, node), MiscUtils.toIntExact(semaphoreIndex))) {
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+            /* Return false to signal that the image is not resuming. */
+            return BooleanObject.FALSE;
+        }
+
+        @TruffleBoundary
+        private static boolean writeImageWithAsyncWrite(final SqueakImageContext image, final ContextObject thisContext, final int semaphoreIndex) {
+            if (image.isImageFileWriteInProgress()) {
+                return false;
+            }
+            /* Ensure all forwarded objects are removed. */
+            image.objectGraphUtils.unfollow();
+            /* Push true on stack for saved snapshot. */
+            thisContext.push(BooleanObject.TRUE);
+            try {
+                return SqueakImageWriter.writeWithAsyncFileWrite(image, thisContext, semaphoreIndex);
+            } finally {
+                /* Pop true again. */
+                thisContext.pop();
+            }
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveSnapshotDelta")
+    protected abstract static class PrimSnapshotDeltaNode extends AbstractPrimitiveWithFrameNode implements Primitive0WithFallback {
+        @Specialization
+        public final boolean doSnapshot(final VirtualFrame frame, @SuppressWarnings("unused") final Object receiver,
+                        @Bind final Node node,
+                        @Bind final SqueakImageContext image,
+                        @Cached(inline = true) final GetOrCreateContextWithFrameNode getOrCreateContextNode) {
+            if (!writeDelta(image, getOrCreateContextNode.executeGet(frame, node))) {
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+            /* Return false to signal that the image is not resuming. */
+            return BooleanObject.FALSE;
+        }
+
+        @TruffleBoundary
+        private static boolean writeDelta(final SqueakImageContext image, final ContextObject thisContext) {
+            if (image.isImageFileWriteInProgress()) {
+                return false;
+            }
+            /* Ensure all forwarded objects are removed. */
+            image.objectGraphUtils.unfollow();
+            /* Push true on stack for saved snapshot. */
+            thisContext.push(BooleanObject.TRUE);
+            try {
+                return SqueakImageWriter.writeDelta(image, thisContext);
+            } finally {
+                /* Pop true again. */
+                thisContext.pop();
+            }
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveArrayBecomeOneWayBatch")
+    protected abstract static class PrimArrayBecomeOneWayBatchNode extends AbstractPrimitiveNode implements Primitive3WithFallback {
+        @Specialization(guards = {"fromArrays.isObjectType()", "toArrays.isObjectType()", "fromArrays.getObjectLength() == toArrays.getObjectLength()"})
+        protected final Object doBecome(final Object receiver, final ArrayObject fromArrays, final ArrayObject toArrays, final boolean copyHash) {
+            becomeBatched(getContext(), fromArrays.getObjectStorage(), toArrays.getObjectStorage(), copyHash);
+            return receiver;
+        }
+
+        @TruffleBoundary
+        private static void becomeBatched(final SqueakImageContext image, final Object[] fromArrays, final Object[] toArrays, final boolean copyHash) {
+            final int numBatches = fromArrays.length;
+            final Object[][] fromPointersBatches = new Object[numBatches][];
+            final Object[][] toPointersBatches = new Object[numBatches][];
+            for (int i = 0; i < numBatches; i++) {
+                if (!(fromArrays[i] instanceof final ArrayObject fromArray && toArrays[i] instanceof final ArrayObject toArray) || !fromArray.isObjectType() || !toArray.isObjectType() ||
+                                fromArray.getObjectLength() != toArray.getObjectLength()) {
+                    throw PrimitiveFailed.BAD_ARGUMENT;
+                }
+                fromPointersBatches[i] = fromArray.getObjectStorage();
+                toPointersBatches[i] = toArray.getObjectStorage();
+            }
+            image.objectGraphUtils.pointersBecomeOneWayBatched(fromPointersBatches, toPointersBatches, copyHash);
+            image.flushMethodCacheAfterBecome();
+        }
+    }
+
     @GenerateNodeFactory
     @SqueakPrimitive(names = "primitiveGetTruffleRuntime")
     protected abstract static class PrimGetTruffleRuntimeNode extends AbstractPrimitiveNode implements Primitive0 {
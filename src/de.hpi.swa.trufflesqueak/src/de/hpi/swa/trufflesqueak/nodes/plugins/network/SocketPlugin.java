@@ -614,7 +614,9 @@ public final class SocketPlugin extends AbstractPrimitiveFactoryHolder {
             } catch (final IOException e) {
                 throw PrimitiveFailed.andTransferToInterpreter();
             }
-            return PointersObject.newHandleWithHiddenObject(getContext(node), socket);
+            final SqueakImageContext image = getContext(node);
+            setSemaphores(socket, image, semaphoreIndex, aReadSemaphore, aWriteSemaphore);
+            return PointersObject.newHandleWithHiddenObject(image, socket);
         }
 
         @TruffleBoundary(transferToInterpreterOnException = false)
@@ -622,8 +624,8 @@ public final class SocketPlugin extends AbstractPrimitiveFactoryHolder {
             return new SqueakUDPSocket();
         }
 
-        @TruffleBoundary(transferToInterpreterOnException = false)
-        private static SqueakTCPSocket createSqueakTCPSocket() throws IOException {
+        @TruffleBoundary
+        private static SqueakTCPSocket createSqueakTCPSocket() {
             return new SqueakTCPSocket();
         }
     }
@@ -640,12 +642,19 @@ public final class SocketPlugin extends AbstractPrimitiveFactoryHolder {
                         final long semaphoreIndex,
                         final long readSemaphoreIndex,
                         final long writeSemaphoreIndex) {
+            final SqueakSocket socket;
             try {
-                return PointersObject.newHandleWithHiddenObject(getContext(), accept(sd));
+                socket = accept(sd);
             } catch (final IOException e) {
                 LogUtils.SOCKET.log(Level.FINE, "Accepting socket failed", e);
                 throw PrimitiveFailed.andTransferToInterpreter();
             }
+            if (socket == null) {
+                throw PrimitiveFailed.andTransferToInterpreter();
+            }
+            final SqueakImageContext image = getContext();
+            setSemaphores(socket, image, semaphoreIndex, readSemaphoreIndex, writeSemaphoreIndex);
+            return PointersObject.newHandleWithHiddenObject(image, socket);
         }
 
         @TruffleBoundary(transferToInterpreterOnException = false)
@@ -670,6 +679,11 @@ public final class SocketPlugin extends AbstractPrimitiveFactoryHolder {
         }
     }
 
+    @TruffleBoundary
+    private static void setSemaphores(final SqueakSocket socket, final SqueakImageContext image, final long semaphoreIndex, final long readSemaphoreIndex, final long writeSemaphoreIndex) {
+        socket.setSemaphores(new SqueakSocket.Semaphores(image.interrupt, (int) semaphoreIndex, (int) readSemaphoreIndex, (int) writeSemaphoreIndex));
+    }
+
     @TruffleBoundary(transferToInterpreterOnException = false)
     private static void close(final PointersObject sd) throws IOException {
         getSocketOrPrimFail(sd).close();
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2017-2026 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2026 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.nodes.plugins.network;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+
+import de.hpi.swa.trufflesqueak.util.LogUtils;
+
+/**
+ * A single selector thread that watches the channels of all {@link SqueakSocket}s. Interest in an
+ * operation is one-shot: when a channel becomes ready, the ready operations are removed from the
+ * interest set and the socket is notified, which signals the corresponding Smalltalk semaphore.
+ * Sockets re-arm an operation when a non-blocking attempt finds nothing to do, so the selector does
+ * not spin on level-triggered readiness and Smalltalk processes can wait on their semaphores
+ * instead of polling.
+ */
+final class SocketSelector extends Thread {
+    private static SocketSelector instance;
+
+    private final Selector selector;
+    /* Registrations, which are performed on the selector thread. */
+    private final ConcurrentLinkedQueue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+
+    private SocketSelector() throws IOException {
+        super("TruffleSqueakSocketSelector");
+        setDaemon(true);
+        selector = Selector.open();
+    }
+
+    static synchronized SocketSelector getInstance() throws IOException {
+        if (instance == null) {
+            instance = new SocketSelector();
+            instance.start();
+        }
+        return instance;
+    }
+
+    /** Adds ops to the interest set of channel, registering it for socket if needed. */
+    void arm(final SqueakSocket socket, final SelectableChannel channel, final int ops) {
+        final SelectionKey key = channel.keyFor(selector);
+        if (key != null) {
+            try {
+                if (key.attachment() != socket) {
+                    key.attach(socket); /* Channel has been accepted by socket. */
+                }
+                if ((key.interestOpsOr(ops) & ops) != ops) {
+                    selector.wakeup();
+                }
+            } catch (final CancelledKeyException e) {
+                // Channel has been closed.
+            }
+        } else {
+            pendingTasks.add(() -> register(socket, channel, ops));
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Makes socket the receiver of notifications for channel, e.g. after an accept. Channels without
+     * a key are registered by the first {@link #arm} of the socket.
+     */
+    void transfer(final SelectableChannel channel, final SqueakSocket socket) {
+        final SelectionKey key = channel.keyFor(selector);
+        if (key != null) {
+            key.attach(socket);
+        }
+    }
+
+    /** Wakes up the selector, so that keys of closed channels are flushed promptly. */
+    void wakeup() {
+        selector.wakeup();
+    }
+
+    private void register(final SqueakSocket socket, final SelectableChannel channel, final int ops) {
+        final SelectionKey key = channel.keyFor(selector);
+        try {
+            if (key != null) {
+                key.attach(socket);
+                key.interestOpsOr(ops);
+            } else if (channel.isOpen()) {
+                channel.register(selector, ops, socket);
+            }
+        } catch (final CancelledKeyException | ClosedChannelException e) {
+            // Channel has been closed in the meantime.
+        }
+    }
+
+    /* A failure for one socket must not stop the selector thread shared by all sockets. */
+    private static void runSafely(final Runnable action) {
+        try {
+            action.run();
+        } catch (final CancelledKeyException e) {
+            // Channel has been closed.
+        } catch (final RuntimeException e) {
+            LogUtils.SOCKET.log(Level.WARNING, "Socket selector task failed", e);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                selector.select();
+                /* Only run the tasks queued so far, tasks must not re-queue themselves. */
+                for (int i = pendingTasks.size(); i > 0; i--) {
+                    final Runnable task = pendingTasks.poll();
+                    if (task == null) {
+                        break;
+                    }
+                    runSafely(task);
+                }
+                final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    runSafely(() -> {
+                        final int readyOps = key.readyOps();
+                        key.interestOpsAnd(~readyOps);
+                        ((SqueakSocket) key.attachment()).onReady(readyOps);
+                    });
+                }
+            }
+        } catch (final IOException e) {
+            LogUtils.SOCKET.log(Level.WARNING, "Socket selector failed", e);
+        } finally {
+            synchronized (SocketSelector.class) {
+                instance = null;
+            }
+        }
+    }
+}
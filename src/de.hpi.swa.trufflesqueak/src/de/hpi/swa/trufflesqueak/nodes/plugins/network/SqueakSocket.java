@@ -12,12 +12,11 @@ import java.net.SocketAddress;
 import java.net.SocketOption;
 import java.nio.ByteBuffer;
 import java.nio.channels.NetworkChannel;
+import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
-import java.util.Iterator;
-import java.util.Set;
 
 import de.hpi.swa.trufflesqueak.exceptions.SqueakExceptions.SqueakException;
+import de.hpi.swa.trufflesqueak.nodes.interrupts.CheckForInterruptsState;
 import de.hpi.swa.trufflesqueak.util.LogUtils;
 
 public abstract class SqueakSocket {
@@ -41,17 +40,76 @@ public abstract class SqueakSocket {
         }
     }
 
-    protected final Selector selector;
+    /** External semaphores of the socket, see primitiveSocketCreate3Semaphores. */
+    record Semaphores(CheckForInterruptsState interrupt, int connection, int read, int write) {
+        void signal(final int index) {
+            if (index > 0) {
+                interrupt.signalSemaphoreWithIndex(index);
+            }
+        }
+    }
 
     protected boolean listening;
 
-    protected SqueakSocket() throws IOException {
-        selector = Selector.open();
+    private volatile Semaphores semaphores;
+    /* Readiness as reported by the SocketSelector, reset when an operation finds nothing to do. */
+    private volatile boolean readable;
+    private volatile boolean writable = true;
+
+    protected SqueakSocket() {
         listening = false;
     }
 
+    final void setSemaphores(final Semaphores semaphores) {
+        this.semaphores = semaphores;
+    }
+
+    /* Called on the selector thread. */
+    final void onReady(final int readyOps) {
+        final Semaphores currentSemaphores = semaphores;
+        if ((readyOps & SelectionKey.OP_READ) != 0) {
+            readable = true;
+        }
+        if ((readyOps & SelectionKey.OP_WRITE) != 0) {
+            writable = true;
+        }
+        LogUtils.SOCKET.finer(() -> this + " ready: " + readyOps);
+        if (currentSemaphores != null) {
+            if ((readyOps & (SelectionKey.OP_ACCEPT | SelectionKey.OP_CONNECT)) != 0) {
+                currentSemaphores.signal(currentSemaphores.connection());
+            }
+            if ((readyOps & SelectionKey.OP_READ) != 0) {
+                currentSemaphores.signal(currentSemaphores.read());
+            }
+            if ((readyOps & SelectionKey.OP_WRITE) != 0) {
+                currentSemaphores.signal(currentSemaphores.write());
+            }
+        }
+    }
+
+    private void signalConnection() {
+        final Semaphores currentSemaphores = semaphores;
+        if (currentSemaphores != null) {
+            currentSemaphores.signal(currentSemaphores.connection());
+        }
+    }
+
+    protected final void arm(final SelectableChannel channel, final int ops) throws IOException {
+        SocketSelector.getInstance().arm(this, channel, ops);
+    }
+
+    private void armData(final int ops) throws IOException {
+        final SelectableChannel channel = dataChannel();
+        if (channel != null) {
+            arm(channel, ops);
+        }
+    }
+
     protected abstract NetworkChannel asNetworkChannel();
 
+    /** Returns the channel data is sent and received on, or null if there is none (yet). */
+    protected abstract SelectableChannel dataChannel();
+
     protected abstract byte[] getLocalAddress() throws IOException;
 
     protected abstract long getLocalPort() throws IOException;
@@ -70,57 +128,56 @@ public abstract class SqueakSocket {
 
     protected abstract boolean isSendDone() throws IOException;
 
+    /** Returns whether the last send completed, re-arming write readiness if it did not. */
+    protected final boolean isWritable() throws IOException {
+        if (writable) {
+            return true;
+        }
+        armData(SelectionKey.OP_WRITE);
+        return false;
+    }
+
     protected final long sendData(final byte[] data, final int start, final int count) throws IOException {
         final ByteBuffer buffer = ByteBuffer.wrap(data, start, count);
-        selector.selectNow();
-        final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
-        while (keys.hasNext()) {
-            final SelectionKey key = keys.next();
-            if (key.isWritable()) {
-                final long written = sendDataTo(buffer, key);
-                LogUtils.SOCKET.finer(() -> this + " written: " + written);
-                keys.remove();
-                return written;
-            }
+        final long written = sendDataTo(buffer);
+        if (buffer.hasRemaining()) {
+            writable = false; /* Send buffer is full. */
+            armData(SelectionKey.OP_WRITE);
         }
-
-        throw new IOException("No writable key found");
+        LogUtils.SOCKET.finer(() -> this + " written: " + written);
+        return written;
     }
 
-    protected abstract long sendDataTo(ByteBuffer data, SelectionKey key) throws IOException;
+    protected abstract long sendDataTo(ByteBuffer data) throws IOException;
 
     protected final boolean isDataAvailable() throws IOException {
-        selector.selectNow();
-        final Set<SelectionKey> keys = selector.selectedKeys();
-        for (final SelectionKey key : keys) {
-            if (key.isReadable()) {
-                LogUtils.SOCKET.finer(() -> this + " data available");
-                return true;
-            }
+        if (readable) {
+            LogUtils.SOCKET.finer(() -> this + " data available");
+            return true;
         }
-
+        armData(SelectionKey.OP_READ);
         LogUtils.SOCKET.finer(() -> this + " no data available");
         return false;
     }
 
     protected final long receiveData(final byte[] data, final int start, final int count) throws IOException {
         final ByteBuffer buffer = ByteBuffer.wrap(data, start, count);
-        selector.selectNow();
-        final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
-        while (keys.hasNext()) {
-            final SelectionKey key = keys.next();
-
-            if (key.isReadable()) {
-                final long received = receiveDataFrom(key, buffer);
-                LogUtils.SOCKET.finer(() -> this + " received: " + received);
-                keys.remove();
-                return received;
-            }
+        final long received = receiveDataFrom(buffer);
+        if (received < 0) {
+            readable = false;
+            signalConnection(); /* Other end closed. */
+            return 0;
+        }
+        if (buffer.hasRemaining()) {
+            readable = false; /* Everything available has been received. */
+            armData(SelectionKey.OP_READ);
         }
-        return 0;
+        LogUtils.SOCKET.finer(() -> this + " received: " + received);
+        return received;
     }
 
-    protected abstract long receiveDataFrom(SelectionKey key, ByteBuffer data) throws IOException;
+    /** Returns the number of bytes received, or -1 if the other end has closed the connection. */
+    protected abstract long receiveDataFrom(ByteBuffer data) throws IOException;
 
     protected final boolean supportsOption(final String name) {
         return asNetworkChannel().supportedOptions().stream().anyMatch(o -> o.name().equals(name));
@@ -151,7 +208,7 @@ public abstract class SqueakSocket {
     }
 
     protected void close() throws IOException {
-        selector.close();
+        SocketSelector.getInstance().wakeup(); /* Flush the keys of closed channels. */
     }
 
     protected static InetSocketAddress castAddress(final SocketAddress address) {
@@ -12,10 +12,10 @@ import java.net.Socket;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.NetworkChannel;
+import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
-import java.util.Iterator;
 
 import de.hpi.swa.trufflesqueak.util.LogUtils;
 
@@ -23,15 +23,13 @@ final class SqueakTCPSocket extends SqueakSocket {
     private SocketChannel clientChannel;
     private ServerSocketChannel serverChannel;
 
-    protected SqueakTCPSocket() throws IOException {
+    protected SqueakTCPSocket() {
         super();
     }
 
-    private SqueakTCPSocket(final SocketChannel clientChannel) throws IOException {
+    private SqueakTCPSocket(final SocketChannel clientChannel) {
         super();
         this.clientChannel = clientChannel;
-        this.clientChannel.configureBlocking(false);
-        this.clientChannel.register(selector, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
     }
 
     @Override
@@ -39,6 +37,11 @@ final class SqueakTCPSocket extends SqueakSocket {
         return listening ? serverChannel : clientChannel;
     }
 
+    @Override
+    protected SelectableChannel dataChannel() {
+        return clientChannel;
+    }
+
     @Override
     protected byte[] getLocalAddress() throws IOException {
         if (listening) {
@@ -82,10 +85,6 @@ final class SqueakTCPSocket extends SqueakSocket {
 
     @Override
     protected Status getStatus() throws IOException {
-        if (selector.isOpen()) {
-            selector.selectNow();
-        }
-
         final Status status = listening ? serverStatus() : clientStatus();
         LogUtils.SOCKET.finer(() -> this + " " + status);
         return status;
@@ -96,17 +95,14 @@ final class SqueakTCPSocket extends SqueakSocket {
             return Status.Connected;
         }
 
-        final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
-        while (keys.hasNext()) {
-            if (keys.next().isAcceptable()) {
-                clientChannel = serverChannel.accept();
-                clientChannel.configureBlocking(false);
-                clientChannel.register(selector, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
-                keys.remove();
-                return Status.Connected;
-            }
+        final SocketChannel accepted = serverChannel.accept();
+        if (accepted != null) {
+            accepted.configureBlocking(false);
+            clientChannel = accepted;
+            return Status.Connected;
         }
 
+        arm(serverChannel, SelectionKey.OP_ACCEPT);
         return Status.WaitingForConnection;
     }
 
@@ -115,7 +111,10 @@ final class SqueakTCPSocket extends SqueakSocket {
             return Status.Unconnected;
         }
 
-        maybeCompleteConnection();
+        if (clientChannel.isConnectionPending() && !clientChannel.finishConnect()) {
+            arm(clientChannel, SelectionKey.OP_CONNECT);
+            return Status.WaitingForConnection;
+        }
         final Socket socket = clientChannel.socket();
 
         if (socket.isInputShutdown()) {
@@ -137,18 +136,12 @@ final class SqueakTCPSocket extends SqueakSocket {
         return Status.Connected;
     }
 
-    private void maybeCompleteConnection() throws IOException {
-        while (clientChannel.isConnectionPending()) {
-            clientChannel.finishConnect();
-        }
-    }
-
     @Override
     protected void connectTo(final String address, final long port) throws IOException {
         clientChannel = SocketChannel.open();
         clientChannel.configureBlocking(false);
-        clientChannel.register(selector, SelectionKey.OP_CONNECT | SelectionKey.OP_WRITE | SelectionKey.OP_READ);
-        clientChannel.connect(new InetSocketAddress(address, (int) port));
+        final boolean isConnected = clientChannel.connect(new InetSocketAddress(address, (int) port));
+        arm(clientChannel, isConnected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT | SelectionKey.OP_READ);
     }
 
     @Override
@@ -157,14 +150,14 @@ final class SqueakTCPSocket extends SqueakSocket {
         serverChannel = ServerSocketChannel.open();
         serverChannel.configureBlocking(false);
         serverChannel.bind(new InetSocketAddress((int) port), (int) backlogSize);
-        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        arm(serverChannel, SelectionKey.OP_ACCEPT);
     }
 
     @Override
     protected SqueakSocket accept() throws IOException {
         if (listening && clientChannel != null) {
-            clientChannel.keyFor(selector).cancel();
             final SqueakSocket created = new SqueakTCPSocket(clientChannel);
+            SocketSelector.getInstance().transfer(clientChannel, created);
             clientChannel = null;
             return created;
         }
@@ -174,28 +167,26 @@ final class SqueakTCPSocket extends SqueakSocket {
 
     @Override
     protected boolean isSendDone() throws IOException {
-        selector.selectNow();
-        return selector.selectedKeys().stream().anyMatch(SelectionKey::isWritable);
+        return clientChannel != null && clientChannel.isConnected() && isWritable();
     }
 
     @Override
-    protected long sendDataTo(final ByteBuffer data, final SelectionKey key) throws IOException {
-        final SocketChannel channel = (SocketChannel) key.channel();
-        if (!channel.isConnected()) {
+    protected long sendDataTo(final ByteBuffer data) throws IOException {
+        if (clientChannel == null || !clientChannel.isConnected()) {
             throw new IOException("Client not connected");
         }
-        return channel.write(data);
+        return clientChannel.write(data);
     }
 
     @Override
-    protected long receiveDataFrom(final SelectionKey key, final ByteBuffer data) throws IOException {
-        final SocketChannel channel = (SocketChannel) key.channel();
-        final long read = channel.read(data);
+    protected long receiveDataFrom(final ByteBuffer data) throws IOException {
+        if (clientChannel == null || !clientChannel.isConnected()) {
+            return 0;
+        }
+        final long read = clientChannel.read(data);
 
         if (read == -1) {
-            channel.shutdownInput();
-            key.cancel();
-            return 0;
+            clientChannel.shutdownInput();
         }
 
         return read;
@@ -203,12 +194,12 @@ final class SqueakTCPSocket extends SqueakSocket {
 
     @Override
     protected void close() throws IOException {
-        super.close();
         if (serverChannel != null) {
             serverChannel.close();
         }
         if (clientChannel != null) {
             clientChannel.close();
         }
+        super.close();
     }
 }
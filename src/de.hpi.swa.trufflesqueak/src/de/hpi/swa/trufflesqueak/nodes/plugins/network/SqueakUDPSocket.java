@@ -12,6 +12,7 @@ import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.NetworkChannel;
+import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 
 final class SqueakUDPSocket extends SqueakSocket {
@@ -29,6 +30,11 @@ final class SqueakUDPSocket extends SqueakSocket {
         return channel;
     }
 
+    @Override
+    protected SelectableChannel dataChannel() {
+        return channel;
+    }
+
     @Override
     protected byte[] getLocalAddress() throws IOException {
         if (listening) {
@@ -81,15 +87,15 @@ final class SqueakUDPSocket extends SqueakSocket {
 
     @Override
     protected void connectTo(final String address, final long port) throws IOException {
-        channel.register(selector, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
         channel.connect(new InetSocketAddress(address, (int) port));
+        arm(channel, SelectionKey.OP_READ);
     }
 
     @Override
     protected void listenOn(final long port, final long backlogSize) throws IOException {
         listening = true;
         channel.bind(new InetSocketAddress((int) port));
-        channel.register(selector, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        arm(channel, SelectionKey.OP_READ);
     }
 
     @Override
@@ -103,21 +109,20 @@ final class SqueakUDPSocket extends SqueakSocket {
     }
 
     @Override
-    protected long sendDataTo(final ByteBuffer data, final SelectionKey key) throws IOException {
-        final DatagramChannel to = (DatagramChannel) key.channel();
-        return to.send(data, to.getRemoteAddress());
+    protected long sendDataTo(final ByteBuffer data) throws IOException {
+        return channel.send(data, channel.getRemoteAddress());
     }
 
     @Override
-    protected long receiveDataFrom(final SelectionKey key, final ByteBuffer data) throws IOException {
-        final DatagramChannel from = (DatagramChannel) key.channel();
-        from.receive(data);
-        return data.position();
+    protected long receiveDataFrom(final ByteBuffer data) throws IOException {
+        final int start = data.position();
+        channel.receive(data);
+        return data.position() - start;
     }
 
     @Override
     protected void close() throws IOException {
-        super.close();
         channel.close();
+        super.close();
     }
 }
@@ -19,6 +19,7 @@ import de.hpi.swa.trufflesqueak.model.ArrayObject;
 import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
 import de.hpi.swa.trufflesqueak.model.NativeObject;
 import de.hpi.swa.trufflesqueak.model.NilObject;
+import de.hpi.swa.trufflesqueak.nodes.plugins.AsynchFilePlugin;
 import de.hpi.swa.trufflesqueak.nodes.plugins.B2DPlugin;
 import de.hpi.swa.trufflesqueak.nodes.plugins.BMPReadWriterPlugin;
 import de.hpi.swa.trufflesqueak.nodes.plugins.BitBltPlugin;
@@ -85,6 +86,7 @@ public final class PrimitiveNodeFactory {
         fillPrimitiveTable(indexPrimitives);
 
         final AbstractPrimitiveFactoryHolder[] plugins = {
+                        new AsynchFilePlugin(),
                         new B2DPlugin(),
                         new BitBltPlugin(),
                         new BMPReadWriterPlugin(),
@@ -110,7 +110,7 @@ public final class StoragePrimitives extends AbstractPrimitiveFactoryHolder {
     @GenerateNodeFactory
     @SqueakPrimitive(indices = 70)
     public abstract static class PrimNewNode extends AbstractPrimitiveNode implements Primitive0WithFallback {
-        @Specialization(guards = {"receiver == cachedReceiver"}, assumptions = {"cachedReceiver.getClassFormatStable()"}, limit = "NEW_CACHE_LIMIT")
+        @Specialization(guards = {"receiver == cachedReceiver"}, assumptions = {"cachedReceiver.getClassFormatStable()"}, limit = "getNewCacheLimit()")
         protected static final AbstractSqueakObjectWithHash newDirect(@SuppressWarnings("unused") final ClassObject receiver,
                         @Bind final Node node,
                         @Cached("receiver.withEnsuredBehaviorHash()") final ClassObject cachedReceiver,
@@ -141,7 +141,7 @@ public final class StoragePrimitives extends AbstractPrimitiveFactoryHolder {
     @GenerateNodeFactory
     @SqueakPrimitive(indices = 71)
     protected abstract static class PrimNewWithArgNode extends AbstractPrimitiveNode implements Primitive1 {
-        @Specialization(guards = {"receiver == cachedReceiver", "isInstantiable(cachedReceiver, size)"}, assumptions = {"cachedReceiver.getClassFormatStable()"}, limit = "NEW_CACHE_LIMIT")
+        @Specialization(guards = {"receiver == cachedReceiver", "isInstantiable(cachedReceiver, size)"}, assumptions = {"cachedReceiver.getClassFormatStable()"}, limit = "getNewCacheLimit()")
         protected static final AbstractSqueakObjectWithHash newWithArgDirect(@SuppressWarnings("unused") final ClassObject receiver, final long size,
                         @Bind final Node node,
                         @Cached(value = "createIdentityProfile()", inline = true) final InlinedIntValueProfile sizeProfile,
@@ -34,6 +34,7 @@ public abstract class PutToSleepNode extends AbstractNode {
         final ArrayObject processLists = (ArrayObject) image.getScheduler().instVarAt0Slow(PROCESS_SCHEDULER.PROCESS_LISTS);
         final PointersObject processList = (PointersObject) processLists.getObject(priority - 1);
         AddLinkToListNode.executeUncached(process, processList, addLast);
+        image.getRunnablePriorities().mark(priority - 1);
     }
 
     public abstract void executePutToSleep(PointersObject process, boolean addLast);
@@ -45,8 +46,10 @@ public abstract class PutToSleepNode extends AbstractNode {
                     @Cached final AbstractPointersObjectReadNode pointersReadNode,
                     @Cached final AddLinkToListNode addLinkToListNode) {
         final long priority = pointersReadNode.executeLong(process, PROCESS.PRIORITY);
-        final ArrayObject processLists = pointersReadNode.executeArray(getContext(node).getScheduler(), PROCESS_SCHEDULER.PROCESS_LISTS);
+        final SqueakImageContext image = getContext(node);
+        final ArrayObject processLists = pointersReadNode.executeArray(image.getScheduler(), PROCESS_SCHEDULER.PROCESS_LISTS);
         final PointersObject processList = (PointersObject) arrayReadNode.execute(node, processLists, priority - 1);
         addLinkToListNode.execute(process, processList, addLast);
+        image.getRunnablePriorities().mark(priority - 1);
     }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2017-2026 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2026 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.nodes.process;
+
+import java.util.Arrays;
+
+import com.oracle.truffle.api.CompilerDirectives;
+
+/**
+ * Bitmap of the indices of the process lists of the scheduler that may contain runnable processes,
+ * so that {@link WakeHighestPriorityNode} does not have to check every list below the highest
+ * priority. Bits are set whenever a process is put to sleep and cleared when a list is found
+ * empty. Processes are only added to the process lists by the VM, so the bitmap is always a
+ * superset of the non-empty lists. Unknown lists (e.g., right after loading an image) are
+ * considered to be non-empty.
+ */
+public final class RunnablePriorities {
+    private long[] words = new long[0];
+
+    public void mark(final long index) {
+        ensureCapacity(index);
+        words[(int) (index >>> 6)] |= 1L << index;
+    }
+
+    public void clear(final long index) {
+        ensureCapacity(index);
+        words[(int) (index >>> 6)] &= ~(1L << index);
+    }
+
+    /** Returns the highest marked index at or below index, or -1 if there is none. */
+    public long highestAtOrBelow(final long index) {
+        if (index < 0) {
+            return -1;
+        }
+        ensureCapacity(index);
+        int wordIndex = (int) (index >>> 6);
+        long word = words[wordIndex] & -1L >>> 63 - (index & 63);
+        while (true) {
+            if (word != 0) {
+                return ((long) wordIndex << 6) + 63 - Long.numberOfLeadingZeros(word);
+            }
+            if (--wordIndex < 0) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+    }
+
+    private void ensureCapacity(final long index) {
+        final int wordIndex = (int) (index >>> 6);
+        if (wordIndex >= words.length) {
+            CompilerDirectives.transferToInterpreter();
+            final int oldLength = words.length;
+            words = Arrays.copyOf(words, wordIndex + 1);
+            Arrays.fill(words, oldLength, words.length, -1L);
+        }
+    }
+}
@@ -43,15 +43,24 @@ public abstract class WakeHighestPriorityNode extends AbstractNode {
 
         // Note: It is a fatal VM error if there is no runnable process.
         final ArrayObject schedLists = pointersReadNode.executeArray(image.getScheduler(), PROCESS_SCHEDULER.PROCESS_LISTS);
-        long p = arraySizeNode.execute(null, schedLists) - 1;  // index of last indexable field
+        final RunnablePriorities runnablePriorities = image.getRunnablePriorities();
+        long p = runnablePriorities.highestAtOrBelow(arraySizeNode.execute(null, schedLists) - 1);  // index of last indexable field
         PointersObject processList;
-        do {
+        while (true) {
             if (p < 0) {
                 throw CompilerDirectives.shouldNotReachHere("scheduler could not find a runnable process");
             }
-            processList = (PointersObject) arrayReadNode.execute(null, schedLists, p--);
-        } while (processList.isEmptyList(pointersReadNode));
+            processList = (PointersObject) arrayReadNode.execute(null, schedLists, p);
+            if (!processList.isEmptyList(pointersReadNode)) {
+                break;
+            }
+            runnablePriorities.clear(p);
+            p = runnablePriorities.highestAtOrBelow(p - 1);
+        }
         final PointersObject newProcess = processList.removeFirstLinkOfList(pointersReadNode, pointersWriteNode);
+        if (processList.isEmptyList(pointersReadNode)) {
+            runnablePriorities.clear(p);
+        }
         TransferToNode.executeUncached(frame, newProcess);
         throw ProcessSwitch.SINGLETON;
     }
@@ -67,16 +76,26 @@ public abstract class WakeHighestPriorityNode extends AbstractNode {
                     @Cached final AbstractPointersObjectWriteNode pointersWriteNode,
                     @Cached final TransferToNode transferToNode) {
         // Note: It is a fatal VM error if there is no runnable process.
-        final ArrayObject schedLists = pointersReadNode.executeArray(getContext(node).getScheduler(), PROCESS_SCHEDULER.PROCESS_LISTS);
-        long p = arraySizeNode.execute(node, schedLists) - 1;  // index of last indexable field
+        final SqueakImageContext image = getContext(node);
+        final ArrayObject schedLists = pointersReadNode.executeArray(image.getScheduler(), PROCESS_SCHEDULER.PROCESS_LISTS);
+        final RunnablePriorities runnablePriorities = image.getRunnablePriorities();
+        long p = runnablePriorities.highestAtOrBelow(arraySizeNode.execute(node, schedLists) - 1);  // index of last indexable field
         PointersObject processList;
-        do {
+        while (true) {
             if (p < 0) {
                 throw SqueakException.create("scheduler could not find a runnable process");
             }
-            processList = (PointersObject) arrayReadNode.execute(node, schedLists, p--);
-        } while (processList.isEmptyList(pointersReadNode));
+            processList = (PointersObject) arrayReadNode.execute(node, schedLists, p);
+            if (!processList.isEmptyList(pointersReadNode)) {
+                break;
+            }
+            runnablePriorities.clear(p);
+            p = runnablePriorities.highestAtOrBelow(p - 1);
+        }
         final PointersObject newProcess = processList.removeFirstLinkOfList(pointersReadNode, pointersWriteNode);
+        if (processList.isEmptyList(pointersReadNode)) {
+            runnablePriorities.clear(p);
+        }
         transferToNode.execute(frame, newProcess);
     }
 }
@@ -189,13 +189,17 @@ public final class ArrayUtils {
         return -1;
     }
 
-    public static void replaceAll(final Object[] array, final UnmodifiableEconomicMap<Object, Object> objectsToReplacements) {
+    /* Returns true if any element was replaced. */
+    public static boolean replaceAll(final Object[] array, final UnmodifiableEconomicMap<Object, Object> objectsToReplacements) {
+        boolean replacedAny = false;
         for (int i = 0; i < array.length; i++) {
             final Object replacement = objectsToReplacements.get(array[i]);
             if (replacement != null) {
                 array[i] = replacement;
+                replacedAny = true;
             }
         }
+        return replacedAny;
     }
 
     @TruffleBoundary
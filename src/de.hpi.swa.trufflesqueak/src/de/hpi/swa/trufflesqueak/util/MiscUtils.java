@@ -30,6 +30,8 @@ import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.TruffleLogger;
 
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext.MethodCacheStatistics;
 import de.hpi.swa.trufflesqueak.util.ObjectGraphUtils.ObjectGraphOperations;
 
 public final class MiscUtils {
@@ -235,7 +237,7 @@ public final class MiscUtils {
     }
 
     @TruffleBoundary
-    public static void printResourceSummary() {
+    public static void printResourceSummary(final SqueakImageContext image) {
         final TruffleLogger log = LogUtils.MAIN;
         log.info("# Resource Summary");
         final double totalProcessTimeSeconds = millisToSeconds(System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime());
@@ -261,6 +263,17 @@ public final class MiscUtils {
             final double timeSeconds = millisToSeconds(operation.getMillis());
             log.info("- %10.4fs (%5.2f%% of total time) for %4s '%s'".formatted(timeSeconds, timeSeconds / totalProcessTimeSeconds * 100, operation.getCount(), operation.getName()));
         }
+        log.info("- %d full traces saved by batched becomes".formatted(ObjectGraphOperations.getTracesSaved()));
+        log.info("");
+        log.info("## Method Cache Statistics");
+        final MethodCacheStatistics stats = image.getMethodCacheStatistics();
+        final long lookups = stats.hits() + stats.misses();
+        log.info("- %d entries (%d resizes)".formatted(stats.size(), stats.resizes()));
+        log.info("- %d lookups: %d hits (%.2f%%, %d after reprobing), %d misses".formatted(lookups, stats.hits(), lookups == 0 ? 0.0 : stats.hits() * 100.0 / lookups, stats.reprobeHits(), stats.misses()));
+        log.info("- %d entries replaced, %d entries evicted".formatted(stats.replacements(), stats.evictions()));
+        log.info("");
+        log.info("## Interrupt Statistics");
+        log.info("- %d external semaphore signals dropped due to queue overflows".formatted(image.interrupt.getSemaphoreSignalOverflows()));
     }
 
     @TruffleBoundary
@@ -7,14 +7,12 @@
 package de.hpi.swa.trufflesqueak.util;
 
 import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 
@@ -38,16 +36,18 @@ import de.hpi.swa.trufflesqueak.model.ClassObject;
 import de.hpi.swa.trufflesqueak.model.ContextObject;
 import de.hpi.swa.trufflesqueak.model.ContextObject.FrameHandling;
 import de.hpi.swa.trufflesqueak.model.EphemeronObject;
+import de.hpi.swa.trufflesqueak.model.InstanceRegistry;
 import de.hpi.swa.trufflesqueak.model.NilObject;
 
 public final class ObjectGraphUtils {
-    private static final int ADDITIONAL_SPACE = 10_000;
+    /* Minimum number of pending objects before a tracer hands off half of them to idle threads. */
+    private static final int SPLIT_THRESHOLD = 64;
     private static int lastSeenObjects = 500_000;
-    private static final int USABLE_THREAD_COUNT = Math.min(Runtime.getRuntime().availableProcessors(), 4);
-    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(USABLE_THREAD_COUNT, r -> new Thread(r, "TruffleSqueakObjectGraphUtils"));
 
     private final SqueakImageContext image;
     private final boolean trackOperations;
+    /* Created on first use and shut down when the context is finalized. */
+    private ForkJoinPool tracerPool;
 
     private final EconomicMap<Object, Object> becomeMap = EconomicMap.create(Equivalence.IDENTITY);
 
@@ -56,6 +56,25 @@ public final class ObjectGraphUtils {
         this.trackOperations = image.options.printResourceSummary() || LogUtils.OBJECT_GRAPH.isLoggable(Level.FINE);
     }
 
+    private ForkJoinPool getTracerPool() {
+        if (tracerPool == null) {
+            tracerPool = new ForkJoinPool(image.options.objectGraphThreads(), pool -> {
+                final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("TruffleSqueakObjectGraphUtils-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+        }
+        return tracerPool;
+    }
+
+    /** Stops the tracer threads, so that they do not outlive the context. */
+    public void shutdown() {
+        if (tracerPool != null) {
+            tracerPool.shutdown();
+            tracerPool = null;
+        }
+    }
+
     public static int getLastSeenObjects() {
         return lastSeenObjects;
     }
@@ -76,52 +95,21 @@ public final class ObjectGraphUtils {
         }
     }
 
-    private record AllInstancesTask(ObjectTracer roots, ArrayDeque<AbstractSqueakObjectWithHash> objects,
-                    UnmodifiableEconomicMap<Object, Object> fromToMap) implements Runnable {
-        public void run() {
-            final ObjectTracer tracer = roots.copyEmpty();
-            AbstractSqueakObjectWithHash root;
-            while ((root = roots.getNextWithLock()) != null) {
-                AbstractSqueakObjectWithHash currentObject = root;
-                do {
-                    currentObject.pointersBecomeOneWay(fromToMap);
-                    objects.add(currentObject);
-                    tracer.tracePointers(currentObject);
-                } while ((currentObject = tracer.getNext()) != null);
-            }
-        }
-    }
-
     @TruffleBoundary
     public Object[] allInstances() {
         final long startTime = System.nanoTime();
 
         final ObjectTracer roots = ObjectTracer.fromRoots(image, true, FrameHandling.SCAN);
-
-        final Runnable[] tasks = new Runnable[USABLE_THREAD_COUNT];
-        final List<ArrayDeque<AbstractSqueakObjectWithHash>> objectsList = new ArrayList<>(USABLE_THREAD_COUNT);
-        final int initialSize = (lastSeenObjects + ADDITIONAL_SPACE) / USABLE_THREAD_COUNT;
-        for (int i = 0; i < USABLE_THREAD_COUNT; i++) {
-            final ArrayDeque<AbstractSqueakObjectWithHash> objects = new ArrayDeque<>(initialSize);
-            objectsList.add(objects);
-            tasks[i] = new AllInstancesTask(roots, objects, becomeMap);
-        }
-        runTasks(tasks);
+        final UnmodifiableEconomicMap<Object, Object> fromToMap = becomeMap;
+        final ConcurrentLinkedQueue<ArrayDeque<AbstractSqueakObjectWithHash>> objectsList = trace(roots, (currentObject, objects) -> {
+            currentObject.pointersBecomeOneWay(fromToMap);
+            objects.add(currentObject);
+            return true;
+        });
         postProcessBecomeMap(null);
 
-        int totalSize = 0;
-        for (ArrayDeque<AbstractSqueakObjectWithHash> deque : objectsList) {
-            totalSize += deque.size();
-        }
-        lastSeenObjects = totalSize;
-
-        final AbstractSqueakObjectWithHash[] result = new AbstractSqueakObjectWithHash[totalSize];
-        int i = 0;
-        for (final ArrayDeque<AbstractSqueakObjectWithHash> deque : objectsList) {
-            for (final AbstractSqueakObjectWithHash value : deque) {
-                result[i++] = value;
-            }
-        }
+        final AbstractSqueakObjectWithHash[] result = toArray(objectsList);
+        lastSeenObjects = result.length;
 
         if (trackOperations) {
             ObjectGraphOperations.ALL_INSTANCES.addNanos(System.nanoTime() - startTime);
@@ -129,48 +117,44 @@ public final class ObjectGraphUtils {
         return result;
     }
 
-    private record AllInstancesOfTask(ClassObject targetClass, ObjectTracer roots,
-                    ArrayDeque<AbstractSqueakObjectWithHash> objects,
-                    UnmodifiableEconomicMap<Object, Object> fromToMap) implements Runnable {
-        public void run() {
-            final ObjectTracer tracer = roots.copyEmpty();
-            final SqueakImageContext image = tracer.image;
-            AbstractSqueakObjectWithHash root;
-            while ((root = roots.getNextWithLock()) != null) {
-                AbstractSqueakObjectWithHash currentObject = root;
-                do {
-                    currentObject.pointersBecomeOneWay(fromToMap);
-                    if (targetClass == currentObject.getSqueakClass(image)) {
-                        objects.add(currentObject);
-                    }
-                    tracer.tracePointers(currentObject);
-                } while ((currentObject = tracer.getNext()) != null);
-            }
-        }
-    }
-
     @TruffleBoundary
     public Object[] allInstancesOf(final ClassObject targetClass) {
         final long startTime = System.nanoTime();
 
+        final InstanceRegistry registry = getInstanceRegistryOrNull(targetClass);
+        if (registry != null) {
+            final Object[] result = registry.getInstances();
+            if (trackOperations) {
+                ObjectGraphOperations.ALL_INSTANCES_OF.addNanos(System.nanoTime() - startTime);
+            }
+            return result;
+        }
+
         // Scrub the stack frames if targetClass is null.
         final ObjectTracer roots = ObjectTracer.fromRoots(image, true, targetClass == null ? FrameHandling.SCRUB : FrameHandling.SCAN);
+        final UnmodifiableEconomicMap<Object, Object> fromToMap = becomeMap;
+        final ConcurrentLinkedQueue<ArrayDeque<AbstractSqueakObjectWithHash>> objectsList = trace(roots, (currentObject, objects) -> {
+            currentObject.pointersBecomeOneWay(fromToMap);
+            if (targetClass == currentObject.getSqueakClass(image)) {
+                objects.add(currentObject);
+            }
+            return true;
+        });
+        postProcessBecomeMap(targetClass);
 
-        final Runnable[] tasks = new Runnable[USABLE_THREAD_COUNT];
-        final List<ArrayDeque<AbstractSqueakObjectWithHash>> objectsList = new ArrayList<>(USABLE_THREAD_COUNT);
-        for (int i = 0; i < USABLE_THREAD_COUNT; i++) {
-            final ArrayDeque<AbstractSqueakObjectWithHash> objects = new ArrayDeque<>();
-            objectsList.add(objects);
-            tasks[i] = new AllInstancesOfTask(targetClass, roots, objects, becomeMap);
+        final AbstractSqueakObjectWithHash[] result = toArray(objectsList);
+
+        if (trackOperations) {
+            ObjectGraphOperations.ALL_INSTANCES_OF.addNanos(System.nanoTime() - startTime);
         }
-        runTasks(tasks);
-        postProcessBecomeMap(targetClass);
+        return result;
+    }
 
+    private static AbstractSqueakObjectWithHash[] toArray(final ConcurrentLinkedQueue<ArrayDeque<AbstractSqueakObjectWithHash>> objectsList) {
         int totalSize = 0;
-        for (ArrayDeque<AbstractSqueakObjectWithHash> deque : objectsList) {
+        for (final ArrayDeque<AbstractSqueakObjectWithHash> deque : objectsList) {
             totalSize += deque.size();
         }
-
         final AbstractSqueakObjectWithHash[] result = new AbstractSqueakObjectWithHash[totalSize];
         int i = 0;
         for (final ArrayDeque<AbstractSqueakObjectWithHash> deque : objectsList) {
@@ -178,16 +162,29 @@ public final class ObjectGraphUtils {
                 result[i++] = value;
             }
         }
-
-        if (trackOperations) {
-            ObjectGraphOperations.ALL_INSTANCES_OF.addNanos(System.nanoTime() - startTime);
-        }
         return result;
     }
 
+    /*
+     * The registry cannot be used while forwarded objects still need to be unfollowed, which
+     * tracing does as a side effect.
+     */
+    private InstanceRegistry getInstanceRegistryOrNull(final ClassObject targetClass) {
+        return targetClass != null && becomeMap.isEmpty() ? targetClass.getInstanceRegistryOrNull() : null;
+    }
+
     @TruffleBoundary
     public AbstractSqueakObject someInstanceOf(final ClassObject targetClass) {
         final long startTime = System.nanoTime();
+
+        final InstanceRegistry registry = getInstanceRegistryOrNull(targetClass);
+        if (registry != null) {
+            final AbstractSqueakObject instance = registry.getSomeInstance();
+            if (trackOperations) {
+                ObjectGraphOperations.SOME_INSTANCE_OF.addNanos(System.nanoTime() - startTime);
+            }
+            return instance != null ? instance : NilObject.SINGLETON;
+        }
         final ArrayDeque<AbstractSqueakObjectWithHash> marked = new ArrayDeque<>(lastSeenObjects / 2);
         final ObjectTracer tracer = ObjectTracer.fromRoots(image, true, FrameHandling.SCAN);
         AbstractSqueakObject result = NilObject.SINGLETON;
@@ -247,6 +244,60 @@ public final class ObjectGraphUtils {
     @TruffleBoundary
     public void pointersBecomeOneWay(final Object[] fromPointers, final Object[] toPointers, final boolean copyHash) {
         final long startTime = System.nanoTime();
+        completeBecome(recordBecome(fromPointers, toPointers, copyHash));
+        if (trackOperations) {
+            ObjectGraphOperations.POINTERS_BECOME_ONE_WAY.addNanos(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Performs several one-way becomes with a single pass over the frames and at most one trace of
+     * the object graph. Objects forwarded by an earlier batch are resolved first, so the result is
+     * the same as performing the becomes one after another.
+     */
+    @TruffleBoundary
+    public void pointersBecomeOneWayBatched(final Object[][] fromPointersBatches, final Object[][] toPointersBatches, final boolean copyHash) {
+        assert fromPointersBatches.length == toPointersBatches.length;
+        final long startTime = System.nanoTime();
+        boolean allAbstractSqueakObjectWithHash = true;
+        int numTracesSaved = 0;
+        for (int i = 0; i < fromPointersBatches.length; i++) {
+            final Object[] fromPointers = resolveBecomes(fromPointersBatches[i]);
+            final Object[] toPointers = resolveBecomes(toPointersBatches[i]);
+            if (!recordBecome(fromPointers, toPointers, copyHash)) {
+                if (!allAbstractSqueakObjectWithHash) {
+                    numTracesSaved++; /* Unbatched, this would have required another trace. */
+                }
+                allAbstractSqueakObjectWithHash = false;
+            }
+        }
+        completeBecome(allAbstractSqueakObjectWithHash);
+        if (trackOperations) {
+            ObjectGraphOperations.POINTERS_BECOME_ONE_WAY_BATCHED.addNanos(System.nanoTime() - startTime);
+            ObjectGraphOperations.addTracesSaved(numTracesSaved);
+        }
+    }
+
+    /*
+     * Replaces objects that are the source of a pending become with their target, as the trace of an
+     * unbatched become would have done. The chains in becomeMap are acyclic because only resolved
+     * pairs are recorded.
+     */
+    private Object[] resolveBecomes(final Object[] pointers) {
+        final Object[] resolved = new Object[pointers.length];
+        for (int i = 0; i < pointers.length; i++) {
+            Object pointer = pointers[i];
+            Object target;
+            while ((target = becomeMap.get(pointer)) != null) {
+                pointer = target;
+            }
+            resolved[i] = AbstractSqueakObjectWithClassAndHash.resolveForwardingPointer(pointer);
+        }
+        return resolved;
+    }
+
+    /* Records pairs in becomeMap and returns false if some objects cannot be forwarded. */
+    private boolean recordBecome(final Object[] fromPointers, final Object[] toPointers, final boolean copyHash) {
         boolean allAbstractSqueakObjectWithHash = true;
         for (int i = 0; i < fromPointers.length; i++) {
             final Object from = fromPointers[i];
@@ -263,6 +314,10 @@ public final class ObjectGraphUtils {
                 }
             }
         }
+        return allAbstractSqueakObjectWithHash;
+    }
+
+    private void completeBecome(final boolean allAbstractSqueakObjectWithHash) {
         if (!becomeMap.isEmpty()) {
             flattenForwardPointers();
             if (allAbstractSqueakObjectWithHash) {
@@ -274,9 +329,6 @@ public final class ObjectGraphUtils {
                 becomeOneWayManyPairs(roots);
             }
         }
-        if (trackOperations) {
-            ObjectGraphOperations.POINTERS_BECOME_ONE_WAY.addNanos(System.nanoTime() - startTime);
-        }
     }
 
     /* Ensure forward pointers are never recursive. */
@@ -309,29 +361,14 @@ public final class ObjectGraphUtils {
     }
 
     private void becomeOneWayManyPairs(final ObjectTracer roots) {
-        final Runnable[] tasks = new Runnable[USABLE_THREAD_COUNT];
-        for (int i = 0; i < USABLE_THREAD_COUNT; i++) {
-            tasks[i] = new BecomeOneWayManyPairsTask(roots, becomeMap);
-        }
-        runTasks(tasks); // TODO: run these tasks async?
+        final UnmodifiableEconomicMap<Object, Object> fromToMap = becomeMap;
+        trace(roots, (currentObject, _) -> {
+            currentObject.pointersBecomeOneWay(fromToMap);
+            return true;
+        });
         postProcessBecomeMap(null);
     }
 
-    private record BecomeOneWayManyPairsTask(ObjectTracer roots,
-                    UnmodifiableEconomicMap<Object, Object> fromToMap) implements Runnable {
-        public void run() {
-            final ObjectTracer tracer = roots.copyEmpty();
-            AbstractSqueakObjectWithHash root;
-            while ((root = roots.getNextWithLock()) != null) {
-                AbstractSqueakObjectWithHash currentObject = root;
-                do {
-                    currentObject.pointersBecomeOneWay(fromToMap);
-                    tracer.tracePointers(currentObject);
-                } while ((currentObject = tracer.getNext()) != null);
-            }
-        }
-    }
-
     @TruffleBoundary
     private static void pointersBecomeOneWayFrames(final Consumer<Object> tracer, final UnmodifiableEconomicMap<Object, Object> fromToMap) {
         Truffle.getRuntime().iterateFrames((frameInstance) -> {
@@ -373,28 +410,6 @@ public final class ObjectGraphUtils {
         });
     }
 
-    private record EphemeronsTask(ObjectTracer roots, ArrayDeque<EphemeronObject> ephemeronsToBeTraced) implements Runnable {
-        public void run() {
-            final ObjectTracer tracer = roots.copyEmpty();
-            AbstractSqueakObjectWithHash root;
-            while ((root = roots.getNextWithLock()) != null) {
-                AbstractSqueakObjectWithHash currentObject = root;
-                do {
-                    // Ephemerons are traced in a special way.
-                    if (currentObject instanceof final EphemeronObject ephemeronObject) {
-                        // Defer all ephemerons to be traced safely in the sequential phase.
-                        synchronized (ephemeronsToBeTraced) {
-                            ephemeronsToBeTraced.add(ephemeronObject);
-                        }
-                    } else {
-                        // Normal object
-                        tracer.tracePointers(currentObject);
-                    }
-                } while ((currentObject = tracer.getNext()) != null);
-            }
-        }
-    }
-
     @TruffleBoundary
     public boolean checkEphemerons() {
         assert !isUnfollowNeeded();
@@ -405,12 +420,23 @@ public final class ObjectGraphUtils {
 
         // Mark and trace all non-ephemeron objects. Mark and trace ephemerons that have
         // been signaled or whose keys have been marked. Save all other ephemerons for later.
-        final Runnable[] tasks = new Runnable[USABLE_THREAD_COUNT];
+        final ConcurrentLinkedQueue<ArrayDeque<AbstractSqueakObjectWithHash>> deferredEphemerons = trace(roots, (currentObject, ephemerons) -> {
+            // Ephemerons are traced in a special way.
+            if (currentObject instanceof final EphemeronObject ephemeronObject) {
+                // Defer all ephemerons to be traced safely in the sequential phase.
+                ephemerons.add(ephemeronObject);
+                return false;
+            } else {
+                // Normal object
+                return true;
+            }
+        });
         final ArrayDeque<EphemeronObject> ephemeronsToBeTraced = new ArrayDeque<>();
-        for (int i = 0; i < USABLE_THREAD_COUNT; i++) {
-            tasks[i] = new EphemeronsTask(roots, ephemeronsToBeTraced);
+        for (final ArrayDeque<AbstractSqueakObjectWithHash> ephemerons : deferredEphemerons) {
+            for (final AbstractSqueakObjectWithHash ephemeron : ephemerons) {
+                ephemeronsToBeTraced.add((EphemeronObject) ephemeron);
+            }
         }
-        runTasks(tasks);
 
         // Now, trace the ephemerons until there are only ephemerons whose keys are reachable
         // through ephemerons.
@@ -469,17 +495,60 @@ public final class ObjectGraphUtils {
         }
     }
 
-    private static void runTasks(final Runnable[] tasks) {
+    /**
+     * Traces all objects reachable from the roots in parallel and returns the objects collected by
+     * the visitor. Marking is lock-free, so each object is visited exactly once.
+     */
+    private ConcurrentLinkedQueue<ArrayDeque<AbstractSqueakObjectWithHash>> trace(final ObjectTracer roots, final ObjectVisitor visitor) {
+        final ConcurrentLinkedQueue<ArrayDeque<AbstractSqueakObjectWithHash>> results = new ConcurrentLinkedQueue<>();
         try {
-            final Future<?>[] futures = new Future<?>[USABLE_THREAD_COUNT];
-            for (int i = 0; i < USABLE_THREAD_COUNT; i++) {
-                futures[i] = EXECUTOR.submit(tasks[i]);
+            getTracerPool().invoke(new TraceTask(null, roots, visitor, results));
+        } catch (final RuntimeException e) {
+            throw CompilerDirectives.shouldNotReachHere("Tracing the object graph failed", e);
+        }
+        return results;
+    }
+
+    @FunctionalInterface
+    private interface ObjectVisitor {
+        /** Visits a marked object, may collect it, and returns whether to trace its pointers. */
+        boolean visit(AbstractSqueakObjectWithHash object, ArrayDeque<AbstractSqueakObjectWithHash> results);
+    }
+
+    /*
+     * Work-stealing trace: every task traces depth-first with its own work stack. When other threads
+     * are idle, a task forks half of its pending objects as a new task that they can steal.
+     */
+    private static final class TraceTask extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+        private final transient ObjectTracer tracer;
+        private final transient ObjectVisitor visitor;
+        private final transient ConcurrentLinkedQueue<ArrayDeque<AbstractSqueakObjectWithHash>> results;
+
+        private TraceTask(final TraceTask parent, final ObjectTracer tracer, final ObjectVisitor visitor, final ConcurrentLinkedQueue<ArrayDeque<AbstractSqueakObjectWithHash>> results) {
+            super(parent);
+            this.tracer = tracer;
+            this.visitor = visitor;
+            this.results = results;
+        }
+
+        @Override
+        public void compute() {
+            final ArrayDeque<AbstractSqueakObjectWithHash> objects = new ArrayDeque<>();
+            AbstractSqueakObjectWithHash currentObject;
+            while ((currentObject = tracer.getNext()) != null) {
+                if (visitor.visit(currentObject, objects)) {
+                    tracer.tracePointers(currentObject);
+                }
+                if (tracer.workStack.size() >= SPLIT_THRESHOLD && getSurplusQueuedTaskCount() <= 0) {
+                    addToPendingCount(1);
+                    new TraceTask(this, tracer.splitOff(), visitor, results).fork();
+                }
             }
-            for (Future<?> future : futures) {
-                future.get();
+            if (!objects.isEmpty()) {
+                results.add(objects);
             }
-        } catch (final ExecutionException | InterruptedException e) {
-            throw CompilerDirectives.shouldNotReachHere("runTasks was interrupted", e);
+            tryComplete();
         }
     }
 
@@ -558,8 +627,16 @@ public final class ObjectGraphUtils {
             return workStack.pollFirst();
         }
 
-        private synchronized AbstractSqueakObjectWithHash getNextWithLock() {
-            return workStack.pollFirst();
+        /*
+         * Moves the older half of the work stack into a new tracer. Older objects are closer to the
+         * roots and therefore likely to lead to larger subgraphs.
+         */
+        private ObjectTracer splitOff() {
+            final ObjectTracer other = copyEmpty();
+            for (int i = workStack.size() / 2; i > 0; i--) {
+                other.workStack.addFirst(workStack.pollLast());
+            }
+            return other;
         }
 
         public boolean isMarked(final AbstractSqueakObjectWithHash object) {
@@ -614,11 +691,13 @@ public final class ObjectGraphUtils {
         SOME_INSTANCE_OF("someInstanceOf"),
         NEXT_OBJECT("nextObject"),
         POINTERS_BECOME_ONE_WAY("pointersBecomeOneWay"),
+        POINTERS_BECOME_ONE_WAY_BATCHED("pointersBecomeOneWayBatched"),
         UNFOLLOW("unfollow"),
         CHECK_EPHEMERONS("checkEphemerons");
 
         private static final int[] COUNTS = new int[ObjectGraphOperations.values().length];
         private static final long[] MILLIS = new long[ObjectGraphOperations.values().length];
+        private static long tracesSaved;
 
         private final String name;
 
@@ -637,6 +716,15 @@ public final class ObjectGraphUtils {
             LogUtils.OBJECT_GRAPH.log(Level.FINE, () -> getName() + " took " + millis + "ms");
         }
 
+        /* Counts full traces that batched becomes did not need to perform. */
+        public static void addTracesSaved(final int count) {
+            tracesSaved += count;
+        }
+
+        public static long getTracesSaved() {
+            return tracesSaved;
+        }
+
         public int getCount() {
             return COUNTS[ordinal()];
         }
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2017-2026 Software Architecture Group, Hasso Plattner Institute
+ * Copyright (c) 2021-2026 Oracle and/or its affiliates
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.util;
+
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import de.hpi.swa.trufflesqueak.model.ClassObject;
+import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
+import de.hpi.swa.trufflesqueak.model.NativeObject;
+
+/**
+ * Megamorphic cache that maps receiver classes to lookup results for a single selector. A table is
+ * shared by all megamorphic send sites of its selector, so that their lookups neither compete with
+ * other selectors for entries in the global method cache nor need to hash the selector. Entries are
+ * stored as class/result pairs in one open-addressing array that is replaced as a whole when the
+ * table is resized or flushed, so readers always see consistent pairs.
+ * <p>
+ * Changing the superclass or method dictionary of a class advances the {@link Epoch} shared by all
+ * tables of an image, and each table drops its entries on its next lookup. This keeps class flushes
+ * independent of the number of tables, which matters when many classes change at once.
+ * <p>
+ * Tables store lookup results rather than call targets. Call targets and primitive nodes are
+ * created once per method and cached in {@link CompiledCodeObject}, which also invalidates them
+ * when the method changes, so indirect sends do not resolve them again.
+ */
+public final class SelectorDispatchTable {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1024;
+
+    private final NativeObject selector;
+    private final Epoch epoch;
+    private volatile Object[] entries = new Object[INITIAL_CAPACITY * 2];
+    private int entriesEpoch;
+    private int size;
+
+    public SelectorDispatchTable(final NativeObject selector, final Epoch epoch) {
+        this.selector = selector;
+        this.epoch = epoch;
+        entriesEpoch = epoch.value;
+    }
+
+    public NativeObject getSelector() {
+        return selector;
+    }
+
+    /** Returns the lookup result for classObject ({@code null} signals DNU or CI). */
+    public Object lookup(final ClassObject classObject) {
+        if (entriesEpoch == epoch.value) {
+            final Object[] currentEntries = entries;
+            final int mask = (currentEntries.length >> 1) - 1;
+            int index = System.identityHashCode(classObject) & mask;
+            Object key;
+            while ((key = currentEntries[index << 1]) != null) {
+                if (key == classObject) {
+                    return currentEntries[(index << 1) + 1];
+                }
+                index = index + 1 & mask;
+            }
+        }
+        return lookupAndAdd(classObject);
+    }
+
+    @TruffleBoundary
+    private synchronized Object lookupAndAdd(final ClassObject classObject) {
+        final int currentEpoch = epoch.value;
+        if (entriesEpoch != currentEpoch) {
+            entries = new Object[INITIAL_CAPACITY * 2];
+            entriesEpoch = currentEpoch;
+            size = 0;
+        }
+        final Object result = classObject.lookupInMethodDictSlow(selector);
+        if (size >= entries.length >> 2) { /* Keep the load factor below 1/2. */
+            final int capacity = entries.length >> 1;
+            entries = capacity < MAX_CAPACITY ? rehash(entries, capacity * 2, null) : new Object[INITIAL_CAPACITY * 2];
+            size = countEntries(entries);
+        }
+        if (put(entries, classObject, result)) {
+            size++;
+        }
+        return result;
+    }
+
+    /* Remove entries for method, without reallocating the table if there are none. */
+    @TruffleBoundary
+    public synchronized void flushForMethod(final CompiledCodeObject method) {
+        if (size > 0 && entriesEpoch == epoch.value && containsResult(entries, method)) {
+            entries = rehash(entries, entries.length >> 1, method);
+            size = countEntries(entries);
+        }
+    }
+
+    @TruffleBoundary
+    public synchronized void flush() {
+        if (size > 0) {
+            entries = new Object[INITIAL_CAPACITY * 2];
+            size = 0;
+        }
+    }
+
+    private static boolean containsResult(final Object[] targetEntries, final Object result) {
+        for (int i = 0; i < targetEntries.length; i += 2) {
+            if (targetEntries[i] != null && targetEntries[i + 1] == result) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* Copies all entries except the ones for removedMethod (if not null). */
+    private static Object[] rehash(final Object[] oldEntries, final int capacity, final CompiledCodeObject removedMethod) {
+        final Object[] newEntries = new Object[capacity * 2];
+        for (int i = 0; i < oldEntries.length; i += 2) {
+            final ClassObject classObject = (ClassObject) oldEntries[i];
+            if (classObject != null && (removedMethod == null || oldEntries[i + 1] != removedMethod)) {
+                put(newEntries, classObject, oldEntries[i + 1]);
+            }
+        }
+        return newEntries;
+    }
+    /* Returns true if a new entry was added, false if the one for classObject was updated. */
+    private static boolean put(final Object[] targetEntries, final ClassObject classObject, final Object result) {
+        final int mask = (targetEntries.length >> 1) - 1;
+        int index = System.identityHashCode(classObject) & mask;
+        Object key;
+        while ((key = targetEntries[index << 1]) != null && key != classObject) {
+            index = index + 1 & mask;
+        }
+        /* Publish the result before the class, so that readers never see a missing result. */
+        targetEntries[(index << 1) + 1] = result;
+        targetEntries[index << 1] = classObject;
+        return key == null;
+    }
+
+    private static int countEntries(final Object[] targetEntries) {
+        int count = 0;
+        for (int i = 0; i < targetEntries.length; i += 2) {
+            if (targetEntries[i] != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        CompilerAsserts.neverPartOfCompilation();
+        return "SelectorDispatchTable[" + selector + "/" + size + "]";
+    }
+
+    /** Flush counter shared by all tables of an image. */
+    public static final class Epoch {
+        private volatile int value;
+
+        /* Flushes all tables lazily. */
+        public synchronized void advance() {
+            value++;
+        }
+    }
+}